@@ -48,6 +48,7 @@ public final class R {
         public static final int auto_focus=0x7f070000;
         public static final int back_button=0x7f070019;
         public static final int barcode_image_view=0x7f070011;
+        public static final int barcode_located=0x7f070026;
         public static final int bookmark_button=0x7f070021;
         public static final int bookmark_title=0x7f07000c;
         public static final int bookmark_url=0x7f07000d;
@@ -65,7 +66,10 @@ public final class R {
         public static final int image_view=0x7f070016;
         public static final int launch_product_query=0x7f070006;
         public static final int page_number_view=0x7f07001e;
+        public static final int preview_frame=0x7f070023;
         public static final int preview_view=0x7f07000e;
+        public static final int product_lookup_failed=0x7f070024;
+        public static final int product_lookup_succeeded=0x7f070025;
         public static final int query_button=0x7f07001c;
         public static final int query_text_view=0x7f07001b;
         public static final int quit=0x7f070007;
@@ -95,6 +99,13 @@ public final class R {
         public static final int beep=0x7f050000;
     }
     public static final class string {
+        public static final int aim_closer=0x7f080059;
+        public static final int aim_down=0x7f08005a;
+        public static final int aim_further=0x7f08005b;
+        public static final int aim_hold_still=0x7f08005c;
+        public static final int aim_left=0x7f08005d;
+        public static final int aim_right=0x7f08005e;
+        public static final int aim_up=0x7f08005f;
         public static final int app_name=0x7f080000;
         public static final int bookmark_picker_name=0x7f080001;
         public static final int button_add_calendar=0x7f080002;
@@ -129,6 +140,7 @@ public final class R {
         public static final int contents_sms=0x7f08001f;
         public static final int contents_text=0x7f080020;
         public static final int history_clear_text=0x7f08004f;
+        public static final int history_more_text=0x7f080056;
         public static final int history_title=0x7f08004e;
         public static final int menu_about=0x7f080021;
         public static final int menu_help=0x7f080022;
@@ -145,6 +157,7 @@ public final class R {
         public static final int msg_encode_contents_failed=0x7f08002d;
         public static final int msg_encode_in_progress=0x7f08002e;
         public static final int msg_intent_failed=0x7f08002f;
+        public static final int msg_product_lookup_failed=0x7f080062;
         public static final int msg_sbc_book_not_searchable=0x7f080030;
         public static final int msg_sbc_failed=0x7f080031;
         public static final int msg_sbc_no_page_returned=0x7f080032;
@@ -155,12 +168,18 @@ public final class R {
         public static final int msg_share_explanation=0x7f080037;
         public static final int msg_share_subject_line=0x7f080038;
         public static final int preferences_actions_title=0x7f080039;
+        public static final int preferences_aiming_guidance_summary=0x7f080061;
+        public static final int preferences_aiming_guidance_title=0x7f080060;
         public static final int preferences_copy_to_clipboard_title=0x7f08003a;
         public static final int preferences_custom_product_search_summary=0x7f080043;
         public static final int preferences_custom_product_search_title=0x7f080042;
         public static final int preferences_decode_1D_title=0x7f08003b;
         public static final int preferences_decode_QR_title=0x7f08003c;
+        public static final int preferences_decode_threads_summary=0x7f080054;
+        public static final int preferences_decode_threads_title=0x7f080055;
         public static final int preferences_general_title=0x7f08003d;
+        public static final int preferences_history_size_summary=0x7f080058;
+        public static final int preferences_history_size_title=0x7f080057;
         public static final int preferences_name=0x7f08003e;
         public static final int preferences_play_beep_title=0x7f08003f;
         public static final int preferences_result_title=0x7f080041;
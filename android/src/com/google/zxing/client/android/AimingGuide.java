@@ -0,0 +1,121 @@
+/*
+ * Copyright (C) 2010 ZXing authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.zxing.client.android;
+
+import com.google.zxing.BarcodeLocation;
+
+import android.content.Context;
+import android.os.SystemClock;
+
+/**
+ * <p>Turns the location of a barcode which has been seen but not yet read into a direction for
+ * the user: which way to move the phone to center it, then whether to move closer or further
+ * away, and finally to hold still. Coordinates are those of the viewfinder frame, which in this
+ * landscape activity run the same way as the screen.</p>
+ *
+ * <p>A direction is only given when it changes, and not more often than every couple of
+ * seconds, so that the user is not talked over while moving.</p>
+ */
+final class AimingGuide {
+
+  // How far off center, as a percentage of the frame, still counts as centered.
+  private static final int CENTER_TOLERANCE_PERCENT = 15;
+  // The barcode's width, as a percentage of the frame's, at which it reads best.
+  private static final int MIN_WIDTH_PERCENT = 35;
+  private static final int MAX_WIDTH_PERCENT = 90;
+  private static final long MIN_INTERVAL_MS = 2000L;
+
+  private static final int NONE = -1;
+  private static final int LEFT = 0;
+  private static final int RIGHT = 1;
+  private static final int UP = 2;
+  private static final int DOWN = 3;
+  private static final int CLOSER = 4;
+  private static final int FURTHER = 5;
+  private static final int HOLD_STILL = 6;
+
+  private final String[] directions;
+  private int lastDirection;
+  private long lastDirectionTime;
+
+  AimingGuide(Context context) {
+    directions = new String[] {
+        context.getString(R.string.aim_left),
+        context.getString(R.string.aim_right),
+        context.getString(R.string.aim_up),
+        context.getString(R.string.aim_down),
+        context.getString(R.string.aim_closer),
+        context.getString(R.string.aim_further),
+        context.getString(R.string.aim_hold_still)
+    };
+    reset();
+  }
+
+  /**
+   * @param location    Where the barcode is in the frame.
+   * @param frameWidth  The width of the frame which was searched.
+   * @param frameHeight The height of the frame which was searched.
+   * @return What to tell the user, or null if they have already been told.
+   */
+  String guide(BarcodeLocation location, int frameWidth, int frameHeight) {
+    int direction = findDirection(location, frameWidth, frameHeight);
+    long now = SystemClock.uptimeMillis();
+    if (direction == lastDirection || now - lastDirectionTime < MIN_INTERVAL_MS) {
+      return null;
+    }
+    lastDirection = direction;
+    lastDirectionTime = now;
+    return directions[direction];
+  }
+
+  /**
+   * @return true if the last direction given was to hold still
+   */
+  boolean isOnTarget() {
+    return lastDirection == HOLD_STILL;
+  }
+
+  /**
+   * Forgets the last direction, so that the next barcode is guided from scratch.
+   */
+  void reset() {
+    lastDirection = NONE;
+    lastDirectionTime = 0L;
+  }
+
+  private static int findDirection(BarcodeLocation location, int frameWidth, int frameHeight) {
+    int offsetX = (int) (100.0f * location.getCenterX() / frameWidth) - 50;
+    int offsetY = (int) (100.0f * location.getCenterY() / frameHeight) - 50;
+    if (Math.abs(offsetX) > CENTER_TOLERANCE_PERCENT ||
+        Math.abs(offsetY) > CENTER_TOLERANCE_PERCENT) {
+      if (Math.abs(offsetX) >= Math.abs(offsetY)) {
+        return offsetX < 0 ? LEFT : RIGHT;
+      }
+      return offsetY < 0 ? UP : DOWN;
+    }
+    // Only the width is used: the height of a 1D barcode is only known to the rows sampled.
+    int widthPercent = (int) (100.0f * location.getWidth() / frameWidth);
+    if (widthPercent < MIN_WIDTH_PERCENT) {
+      return CLOSER;
+    }
+    if (widthPercent > MAX_WIDTH_PERCENT) {
+      return FURTHER;
+    }
+    return HOLD_STILL;
+  }
+
+}
@@ -16,9 +16,11 @@
 
 package com.google.zxing.client.android;
 
+import com.google.zxing.BarcodeLocation;
 import com.google.zxing.Result;
 import com.google.zxing.ResultPoint;
 import com.google.zxing.client.android.history.HistoryManager;
+import com.google.zxing.client.android.product.ProductLookupService;
 import com.google.zxing.client.android.result.ResultButtonListener;
 import com.google.zxing.client.android.result.ResultHandler;
 import com.google.zxing.client.android.result.ResultHandlerFactory;
@@ -69,15 +71,6 @@ import android.speech.tts.TextToSpeech;
 import android.speech.tts.TextToSpeech.OnInitListener;
 
 import java.io.IOException;
-import java.io.BufferedReader;
-import java.io.InputStreamReader;
-
-import org.apache.http.client.HttpClient;
-import org.apache.http.protocol.HttpContext;
-import org.apache.http.protocol.BasicHttpContext;
-import org.apache.http.client.methods.HttpGet;
-import org.apache.http.HttpResponse;
-import org.apache.http.impl.client.DefaultHttpClient;
 
 /**
  * The barcode reader activity itself. This is loosely based on the CameraPreview
@@ -100,6 +93,7 @@ public final class CaptureActivity extends Activity implements SurfaceHolder.Cal
   private static final long INTENT_RESULT_DURATION = 1500L;
   private static final float BEEP_VOLUME = 0.10f;
   private static final long VIBRATE_DURATION = 200L;
+  private static final long AIM_VIBRATE_DURATION = 50L;
 
   private static final String PACKAGE_NAME = "com.google.zxing.client.android";
   private static final String PRODUCT_SEARCH_URL_PREFIX = "http://www.google";
@@ -107,6 +101,7 @@ public final class CaptureActivity extends Activity implements SurfaceHolder.Cal
   private static final String ZXING_URL = "http://zxing.appspot.com/scan";
 
   private TextToSpeech tts;
+  private SpeechScheduler speechScheduler;
 	private Display display;
 
   private enum Source {
@@ -127,14 +122,37 @@ public final class CaptureActivity extends Activity implements SurfaceHolder.Cal
   private boolean playBeep;
   private boolean vibrate;
   private boolean copyToClipboard;
+  private boolean aimingGuidance;
+  private AimingGuide aimingGuide;
   private Source source;
   private String sourceUrl;
   private String decodeMode;
   private String versionName;
   private HistoryManager historyManager;
+  private ProductLookupService productLookupService;
   
   private final OnCompletionListener beepListener = new BeepListener();
 
+  private final Handler lookupHandler = new Handler() {
+    @Override
+    public void handleMessage(Message message) {
+      switch (message.what) {
+        case R.id.product_lookup_succeeded:
+          String productResult = (String) message.obj;
+          Log.v("html", "product result: " + productResult);
+          speechScheduler.speak(message.getData().getString(ProductLookupService.PRODUCT_ID),
+              productResult);
+          break;
+        case R.id.product_lookup_failed:
+          // Say so, or the user can't tell a lookup that gave up from one still running.
+          Log.v("html", "no product result for " + message.obj);
+          speechScheduler.speak(message.getData().getString(ProductLookupService.PRODUCT_ID),
+              getString(R.string.msg_product_lookup_failed));
+          break;
+      }
+    }
+  };
+
   private final DialogInterface.OnClickListener aboutListener =
       new DialogInterface.OnClickListener() {
     public void onClick(DialogInterface dialogInterface, int i) {
@@ -167,8 +185,11 @@ public final class CaptureActivity extends Activity implements SurfaceHolder.Cal
     hasSurface = false;
     historyManager = new HistoryManager(this);
     historyManager.trimHistory();
+    productLookupService = new ProductLookupService(this);
 
 	tts = new TextToSpeech(this, this);
+    speechScheduler = new SpeechScheduler(tts);
+    aimingGuide = new AimingGuide(this);
 
 	// *!*
     //showHelpOnFirstLaunch();
@@ -176,8 +197,11 @@ public final class CaptureActivity extends Activity implements SurfaceHolder.Cal
 
     public void onInit(int status) 
 	{
-		if (status == TextToSpeech.SUCCESS)    	
-			tts.speak("This is the Android Talking Barcode Reader", TextToSpeech.QUEUE_ADD, null);
+		if (status == TextToSpeech.SUCCESS)
+		{
+			speechScheduler.onEngineReady();
+			speechScheduler.speak(null, "This is the Android Talking Barcode Reader");
+		}
 	}
 
   @Override
@@ -237,6 +261,7 @@ public final class CaptureActivity extends Activity implements SurfaceHolder.Cal
     playBeep = prefs.getBoolean(PreferencesActivity.KEY_PLAY_BEEP, true);
     vibrate = prefs.getBoolean(PreferencesActivity.KEY_VIBRATE, false);
     copyToClipboard = prefs.getBoolean(PreferencesActivity.KEY_COPY_TO_CLIPBOARD, true);
+    aimingGuidance = prefs.getBoolean(PreferencesActivity.KEY_AIMING_GUIDANCE, true);
     initBeepSound();
   }
 
@@ -253,8 +278,11 @@ public final class CaptureActivity extends Activity implements SurfaceHolder.Cal
   @Override
   protected void onDestroy() 
   {
+    productLookupService.shutdown();
+    historyManager.close();
  	if (tts != null) 
  	{
+ 		speechScheduler.stop();
  		tts.stop();            
  		tts.shutdown();        
  	}
@@ -312,8 +340,7 @@ public final class CaptureActivity extends Activity implements SurfaceHolder.Cal
         break;
       }
       case HISTORY_ID: {
-        AlertDialog historyAlert = historyManager.buildAlert();
-        historyAlert.show();
+        historyManager.showHistory();
         break;
       }
       case SETTINGS_ID: {
@@ -362,6 +389,30 @@ public final class CaptureActivity extends Activity implements SurfaceHolder.Cal
 
   }
 
+  /**
+   * A barcode is in view but could not be read yet, so tell the user how to aim at it. Directions
+   * wait until nothing else is being said, and a short buzz confirms the aim is right.
+   *
+   * @param location    Where the barcode is in the viewfinder frame.
+   * @param frameWidth  The width of the viewfinder frame.
+   * @param frameHeight The height of the viewfinder frame.
+   */
+  public void handleLocation(BarcodeLocation location, int frameWidth, int frameHeight) {
+    if (!aimingGuidance || !speechScheduler.isIdle()) {
+      return;
+    }
+    String direction = aimingGuide.guide(location, frameWidth, frameHeight);
+    if (direction == null) {
+      return;
+    }
+    Log.v(TAG, "Aiming: " + direction + " (" + location + ')');
+    speechScheduler.speak(null, direction);
+    if (vibrate && aimingGuide.isOnTarget()) {
+      Vibrator vibrator = (Vibrator) getSystemService(VIBRATOR_SERVICE);
+      vibrator.vibrate(AIM_VIBRATE_DURATION);
+    }
+  }
+
   /**
    * A valid barcode has been found, so give an indication of success and show the results.
    *
@@ -370,6 +421,7 @@ public final class CaptureActivity extends Activity implements SurfaceHolder.Cal
    */
   public void handleDecode(Result rawResult, Bitmap barcode) {
     lastResult = rawResult;
+    aimingGuide.reset();
     historyManager.addHistoryItem(rawResult);
     if (barcode == null) {
       // This is from history -- no saved barcode
@@ -570,10 +622,10 @@ Log.v("detect", "barcode width: " + barcode.getWidth() + " barcode height: " + b
       handler.sendMessageDelayed(message, INTENT_RESULT_DURATION);
     }*/
 
-		// *!* calling new method
-		String productResult = getOnlineBarcodeInfo(rawResult);
-		Log.v("html", "product result: " + productResult);
-		tts.speak(productResult, TextToSpeech.QUEUE_ADD, null);
+		// *!* look the product up in the background, it will be spoken when the lookup completes.
+		// A new barcode cuts off whatever is still being said about the previous one.
+		speechScheduler.onBarcodeAcquired(ProductLookupService.getProductID(rawResult));
+		productLookupService.lookup(rawResult, lookupHandler);
 		
 		 resetStatusView();
 	     handler.sendEmptyMessage(R.id.restart_preview);
@@ -581,68 +633,6 @@ Log.v("detect", "barcode width: " + barcode.getWidth() + " barcode height: " + b
 	
   }
 
-// *!* new method
-private String getOnlineBarcodeInfo(Result rawResult)
-{
-	HttpClient httpClient = new DefaultHttpClient();
-	HttpContext localContext = new BasicHttpContext();
-	HttpGet httpGet = new HttpGet("http://upcdatabase.com/item/"+rawResult);
-	Log.v("html","about to try to get http");
-	String result = "";
-
-	try{
-	Log.v("html","in try loop html");
-	HttpResponse response = httpClient.execute(httpGet, localContext);
-	
-
-	BufferedReader reader = new BufferedReader(
-	    new InputStreamReader(
-	      response.getEntity().getContent()
-	    )
-	  );
-
-	String line = null;
-	while ((line = reader.readLine()) != null){
-	  result += line + "\n";
-		}
-			Log.v("html", "first few letters: " + result.substring(0,20));
-			
-	//here parse the html		
-	//want to find <div id="content">, cut off everything until then
-	int b = result.indexOf("<div id=\"content\">");
-	Log.v("html", "b: " + b);
-	result = result.substring(b+23,result.length());	
-	Log.v("html", "result so far error? : " + result.substring(0,9));
-	Log.v("html", "result so far item? : " + result.substring(0,11));
-	if(result.substring(0,9).equals("UPC Error"))
-	{
-		result = "error";
-	}
-	else if(result.substring(0,11).equals("Item Record"))
-	{
-		//valid product code here- 
-		b = result.indexOf("<tr><td>Description");
-		result = result.substring(b+37, result.length());
-		Log.v("html", "result so far: " + result.substring(0,30));
-		//now you want to cut off where </td> starts
-		b = result.indexOf("</td>");
-		result = result.substring(0,b);
-	}
-	else
-	{
-		result = "error";
-	}
-			
-	}
-	catch(IOException ie)
-	{
-		Log.v("html", "ioexception");
-	}
-	
-	return result;
-}
-
-
   /**
    * We want the help screen to be shown automatically the first time a new version of the app is
    * run. The easiest way to do this is to check android:versionCode from the manifest, and compare
@@ -16,25 +16,53 @@
 
 package com.google.zxing.client.android;
 
+import com.google.zxing.BarcodeLocation;
 import com.google.zxing.Result;
+import com.google.zxing.common.FrameQuality;
 
 import android.app.Activity;
 import android.content.Intent;
+import android.content.SharedPreferences;
 import android.graphics.Bitmap;
 import android.net.Uri;
 import android.os.Bundle;
 import android.os.Handler;
 import android.os.Message;
+import android.os.SystemClock;
+import android.preference.PreferenceManager;
+import android.util.Log;
 
 /**
  * This class handles all the messaging which comprises the state machine for capture.
  *
+ * Preview frames are handed out round-robin to a small pool of DecodeThreads, and a new frame is
+ * requested as soon as one of them is idle. The first success wins: every frame captured before
+ * it is marked stale, so the other threads drop what is still queued and any late results are
+ * discarded. This keeps the results we deliver ordered by frame timestamp.
+ *
+ * Auto focus is driven by the sharpness the decode threads report. Another focus pass is only
+ * started while frames are soft, or when it has been a while since the last one, so the lens
+ * does not hunt while it already holds a sharp image.
+ *
  * @author dswitkin@google.com (Daniel Switkin)
  */
 public final class CaptureActivityHandler extends Handler {
+  private static final String TAG = "CaptureActivityHandler";
+  private static final int MAX_DECODE_THREADS = 4;
+  // Frames this soft are still decoded, but are worth refocusing for.
+  private static final int FOCUS_SHARPNESS = 2 * FrameQuality.MIN_SHARPNESS;
+  private static final long MAX_FOCUS_INTERVAL_MS = 6 * 1000L;
+
   private final CaptureActivity activity;
-  private final DecodeThread decodeThread;
+  private final DecodeThread[] decodeThreads;
+  private int nextDecodeThread;
+  private int framesInFlight;
+  private boolean frameRequested;
+  private volatile long staleBefore;
   private State state;
+  private boolean focusing;
+  private long lastFocusTime;
+  private int lastSharpness;
 
   private enum State {
     PREVIEW,
@@ -45,8 +73,18 @@ public final class CaptureActivityHandler extends Handler {
   CaptureActivityHandler(CaptureActivity activity, String decodeMode,
                                  boolean beginScanning) {
     this.activity = activity;
-    decodeThread = new DecodeThread(activity, decodeMode);
-    decodeThread.start();
+    int threadCount = getDecodeThreadCount(activity);
+    Log.v(TAG, "Starting " + threadCount + " decode threads");
+    decodeThreads = new DecodeThread[threadCount];
+    for (int x = 0; x < threadCount; x++) {
+      decodeThreads[x] = new DecodeThread(activity, this, decodeMode);
+      decodeThreads[x].setName("DecodeThread-" + x);
+      decodeThreads[x].start();
+    }
+    nextDecodeThread = 0;
+    framesInFlight = 0;
+    frameRequested = false;
+    staleBefore = 0L;
     state = State.SUCCESS;
 
     // Start ourselves capturing previews and decoding.
@@ -62,23 +100,56 @@ public final class CaptureActivityHandler extends Handler {
       case R.id.auto_focus:
         // When one auto focus pass finishes, start another. This is the closest thing to
         // continuous AF. It does seem to hunt a bit, but I'm not sure what else to do.
-        if (state == State.PREVIEW) {
-          CameraManager.get().requestAutoFocus(this, R.id.auto_focus);
+        // Now only while the picture is soft, or as a fallback every few seconds.
+        focusing = false;
+        if (lastSharpness < FOCUS_SHARPNESS ||
+            SystemClock.uptimeMillis() - lastFocusTime > MAX_FOCUS_INTERVAL_MS) {
+          requestAutoFocus();
         }
         break;
       case R.id.restart_preview:
         restartPreviewAndDecode();
         break;
+      case R.id.preview_frame:
+        frameRequested = false;
+        if (state == State.PREVIEW) {
+          dispatchFrame(message);
+        }
+        break;
       case R.id.decode_succeeded:
-        state = State.SUCCESS;
+        framesInFlight--;
         Bundle bundle = message.getData();
-        Bitmap barcode = bundle == null ? null : (Bitmap) bundle.getParcelable(DecodeThread.BARCODE_BITMAP);
+        if (state != State.PREVIEW || isFrameStale(bundle.getLong(DecodeThread.FRAME_TIMESTAMP))) {
+          // Another thread got there first with an earlier or equally good frame. This thread is
+          // idle now, so keep it fed as a failure would.
+          requestFrames();
+          break;
+        }
+        state = State.SUCCESS;
+        staleBefore = SystemClock.uptimeMillis();
+        Bitmap barcode = (Bitmap) bundle.getParcelable(DecodeThread.BARCODE_BITMAP);
         activity.handleDecode((Result) message.obj, barcode);
         break;
       case R.id.decode_failed:
         // We're decoding as fast as possible, so when one decode fails, start another.
-        state = State.PREVIEW;
-        CameraManager.get().requestPreviewFrame(decodeThread.getHandler(), R.id.decode);
+        framesInFlight--;
+        if (message.arg1 >= 0) {
+          lastSharpness = message.arg1;
+          if (lastSharpness < FOCUS_SHARPNESS) {
+            requestAutoFocus();
+          }
+        }
+        // Once frames are sharp no focus pass is running to schedule the next one, so the
+        // fallback pass has to be started from here.
+        if (SystemClock.uptimeMillis() - lastFocusTime > MAX_FOCUS_INTERVAL_MS) {
+          requestAutoFocus();
+        }
+        requestFrames();
+        break;
+      case R.id.barcode_located:
+        if (state == State.PREVIEW) {
+          activity.handleLocation((BarcodeLocation) message.obj, message.arg1, message.arg2);
+        }
         break;
       case R.id.return_scan_result:
         activity.setResult(Activity.RESULT_OK, (Intent) message.obj);
@@ -93,25 +164,91 @@ public final class CaptureActivityHandler extends Handler {
 
   public void quitSynchronously() {
     state = State.DONE;
+    staleBefore = Long.MAX_VALUE;
     CameraManager.get().stopPreview();
-    Message quit = Message.obtain(decodeThread.getHandler(), R.id.quit);
-    quit.sendToTarget();
-    try {
-      decodeThread.join();
-    } catch (InterruptedException e) {
+    for (DecodeThread decodeThread : decodeThreads) {
+      Message quit = Message.obtain(decodeThread.getHandler(), R.id.quit);
+      quit.sendToTarget();
+    }
+    for (DecodeThread decodeThread : decodeThreads) {
+      try {
+        decodeThread.join();
+      } catch (InterruptedException e) {
+      }
     }
 
     // Be absolutely sure we don't send any queued up messages
+    removeMessages(R.id.preview_frame);
     removeMessages(R.id.decode_succeeded);
     removeMessages(R.id.decode_failed);
+    removeMessages(R.id.barcode_located);
+  }
+
+  /**
+   * Called from the decode threads, so this only reads the volatile field.
+   *
+   * @param timestamp When the frame arrived, in uptime milliseconds.
+   * @return true if a barcode has been found since the frame arrived, or in the same millisecond,
+   *         or we are shutting down.
+   */
+  boolean isFrameStale(long timestamp) {
+    return timestamp <= staleBefore;
   }
 
   private void restartPreviewAndDecode() {
     if (state == State.SUCCESS) {
       state = State.PREVIEW;
-      CameraManager.get().requestPreviewFrame(decodeThread.getHandler(), R.id.decode);
-      CameraManager.get().requestAutoFocus(this, R.id.auto_focus);
+      requestFrames();
+      lastSharpness = 0;
+      requestAutoFocus();
       activity.drawViewfinder();
     }
   }
+
+  /**
+   * Asks the camera for one more frame if any decode thread would otherwise sit idle. The camera
+   * only delivers one-shot frames, so there is never more than one request outstanding.
+   */
+  private void requestFrames() {
+    if (state == State.PREVIEW && !frameRequested && framesInFlight < decodeThreads.length) {
+      frameRequested = true;
+      CameraManager.get().requestPreviewFrame(this, R.id.preview_frame);
+    }
+  }
+
+  private void requestAutoFocus() {
+    if (state == State.PREVIEW && !focusing) {
+      focusing = true;
+      lastFocusTime = SystemClock.uptimeMillis();
+      CameraManager.get().requestAutoFocus(this, R.id.auto_focus);
+    }
+  }
+
+  private void dispatchFrame(Message frame) {
+    DecodeThread decodeThread = decodeThreads[nextDecodeThread];
+    nextDecodeThread = (nextDecodeThread + 1) % decodeThreads.length;
+
+    Message message = Message.obtain(decodeThread.getHandler(), R.id.decode, frame.arg1, frame.arg2,
+        frame.obj);
+    Bundle bundle = new Bundle();
+    bundle.putLong(DecodeThread.FRAME_TIMESTAMP, SystemClock.uptimeMillis());
+    message.setData(bundle);
+    message.sendToTarget();
+    framesInFlight++;
+    requestFrames();
+  }
+
+  private static int getDecodeThreadCount(Activity activity) {
+    SharedPreferences prefs = PreferenceManager.getDefaultSharedPreferences(activity);
+    int count;
+    try {
+      count = Integer.parseInt(prefs.getString(PreferencesActivity.KEY_DECODE_THREADS, "0"));
+    } catch (NumberFormatException nfe) {
+      count = 0;
+    }
+    if (count <= 0) {
+      count = Runtime.getRuntime().availableProcessors();
+    }
+    return Math.max(1, Math.min(count, MAX_DECODE_THREADS));
+  }
 }
@@ -17,11 +17,14 @@
 package com.google.zxing.client.android;
 
 import com.google.zxing.BarcodeFormat;
+import com.google.zxing.BarcodeLocation;
 import com.google.zxing.BinaryBitmap;
 import com.google.zxing.DecodeHintType;
+import com.google.zxing.MultiFormatLocator;
 import com.google.zxing.MultiFormatReader;
 import com.google.zxing.ReaderException;
 import com.google.zxing.Result;
+import com.google.zxing.common.FrameQuality;
 import com.google.zxing.common.GlobalHistogramBinarizer;
 
 import android.content.SharedPreferences;
@@ -34,27 +37,39 @@ import android.util.Log;
 
 import java.util.Hashtable;
 import java.util.Vector;
+import java.util.concurrent.CountDownLatch;
 
 /**
- * This thread does all the heavy lifting of decoding the images.
+ * This thread does all the heavy lifting of decoding the images. CaptureActivityHandler may run
+ * several of these side by side, so each one owns its own reader and never shares state with the
+ * others.
  *
  * @author dswitkin@google.com (Daniel Switkin)
  */
 final class DecodeThread extends Thread {
   public static final String BARCODE_BITMAP = "barcode_bitmap";
+  public static final String FRAME_TIMESTAMP = "frame_timestamp";
   private static final String TAG = "DecodeThread";
+  // How often a frame too blurred to decode is still searched for a barcode to aim at.
+  private static final long BLURRED_LOCATE_INTERVAL_MS = 200L;
 
   private Handler handler;
-  private final CaptureActivity activity;
+  private final CountDownLatch handlerInitLatch;
+  private final CaptureActivityHandler resultHandler;
   private final MultiFormatReader multiFormatReader;
+  private final MultiFormatLocator multiFormatLocator;
+  private long lastBlurredLocateTime;
 
-  DecodeThread(CaptureActivity activity, String mode) {
-    this.activity = activity;
+  DecodeThread(CaptureActivity activity, CaptureActivityHandler resultHandler, String mode) {
+    this.resultHandler = resultHandler;
+    handlerInitLatch = new CountDownLatch(1);
     multiFormatReader = new MultiFormatReader();
 
     // The prefs can't change while the thread is running, so pick them up once here.
+    SharedPreferences prefs = PreferenceManager.getDefaultSharedPreferences(activity);
+    multiFormatLocator = prefs.getBoolean(PreferencesActivity.KEY_AIMING_GUIDANCE, true) ?
+        new MultiFormatLocator() : null;
     if (mode == null || mode.length() == 0) {
-      SharedPreferences prefs = PreferenceManager.getDefaultSharedPreferences(activity);
       boolean decode1D = prefs.getBoolean(PreferencesActivity.KEY_DECODE_1D, true);
       boolean decodeQR = prefs.getBoolean(PreferencesActivity.KEY_DECODE_QR, true);
       if (decode1D && decodeQR) {
@@ -77,7 +92,16 @@ final class DecodeThread extends Thread {
     }
   }
 
+  /**
+   * Blocks until run() has created the handler, since frames may be dispatched to this thread
+   * as soon as it has been started.
+   */
   Handler getHandler() {
+    try {
+      handlerInitLatch.await();
+    } catch (InterruptedException ie) {
+      // continue?
+    }
     return handler;
   }
 
@@ -89,7 +113,8 @@ final class DecodeThread extends Thread {
       public void handleMessage(Message message) {
         switch (message.what) {
           case R.id.decode:
-            decode((byte[]) message.obj, message.arg1, message.arg2);
+            long timestamp = message.getData().getLong(FRAME_TIMESTAMP);
+            decode((byte[]) message.obj, message.arg1, message.arg2, timestamp);
             break;
           case R.id.quit:
             Looper.myLooper().quit();
@@ -97,6 +122,7 @@ final class DecodeThread extends Thread {
         }
       }
     };
+    handlerInitLatch.countDown();
     Looper.loop();
   }
 
@@ -108,7 +134,7 @@ final class DecodeThread extends Thread {
     vector.addElement(BarcodeFormat.EAN_13);
     vector.addElement(BarcodeFormat.EAN_8);
     hints.put(DecodeHintType.POSSIBLE_FORMATS, vector);
-    multiFormatReader.setHints(hints);
+    setHints(hints);
   }
 
   /**
@@ -125,7 +151,7 @@ final class DecodeThread extends Thread {
     vector.addElement(BarcodeFormat.CODE_128);
     vector.addElement(BarcodeFormat.ITF);
     hints.put(DecodeHintType.POSSIBLE_FORMATS, vector);
-    multiFormatReader.setHints(hints);
+    setHints(hints);
   }
 
   private void setDecodeQRMode() {
@@ -133,7 +159,7 @@ final class DecodeThread extends Thread {
     Vector<BarcodeFormat> vector = new Vector<BarcodeFormat>(1);
     vector.addElement(BarcodeFormat.QR_CODE);
     hints.put(DecodeHintType.POSSIBLE_FORMATS, vector);
-    multiFormatReader.setHints(hints);
+    setHints(hints);
   }
 
   /**
@@ -152,23 +178,59 @@ final class DecodeThread extends Thread {
     vector.addElement(BarcodeFormat.ITF);
     vector.addElement(BarcodeFormat.QR_CODE);
     hints.put(DecodeHintType.POSSIBLE_FORMATS, vector);
+    setHints(hints);
+  }
+
+  private void setHints(Hashtable<DecodeHintType, Object> hints) {
     multiFormatReader.setHints(hints);
+    if (multiFormatLocator != null) {
+      multiFormatLocator.setHints(hints);
+    }
   }
 
   /**
    * Decode the data within the viewfinder rectangle, and time how long it took. For efficiency,
-   * reuse the same reader objects from one decode to the next.
+   * reuse the same reader objects from one decode to the next. Frames which went stale while
+   * they sat in our queue, because another thread already found a barcode, are skipped, and so
+   * are frames too blurred or flat to decode. A failure reports the frame's sharpness and
+   * contrast in arg1 and arg2, or -1 if they were not measured, so that focus can follow them.
+   * Before each decode, the barcode is looked for by its guard or finder patterns alone, which
+   * costs about a millisecond, and any location found is reported straight away so the user can
+   * be told how to aim. Blurred frames are the ones seen while the phone is being moved, so they
+   * are searched too, though only every BLURRED_LOCATE_INTERVAL_MS.
    *
-   * @param data   The YUV preview frame.
-   * @param width  The width of the preview frame.
-   * @param height The height of the preview frame.
+   * @param data      The YUV preview frame.
+   * @param width     The width of the preview frame.
+   * @param height    The height of the preview frame.
+   * @param timestamp When the frame arrived from the camera, in uptime milliseconds.
    */
-  private void decode(byte[] data, int width, int height) {
+  private void decode(byte[] data, int width, int height, long timestamp) {
+    if (resultHandler.isFrameStale(timestamp)) {
+      Message message = Message.obtain(resultHandler, R.id.decode_failed, -1, -1);
+      message.sendToTarget();
+      return;
+    }
+
     long start = System.currentTimeMillis();
     boolean success;
     Result rawResult = null;
     BaseLuminanceSource source = CameraManager.get().buildLuminanceSource(data, width, height);
+    FrameQuality quality = FrameQuality.estimate(source);
     BinaryBitmap bitmap = new BinaryBitmap(new GlobalHistogramBinarizer(source));
+    if (!quality.isWorthDecoding()) {
+      if (multiFormatLocator != null &&
+          timestamp - lastBlurredLocateTime >= BLURRED_LOCATE_INTERVAL_MS) {
+        lastBlurredLocateTime = timestamp;
+        locate(bitmap);
+      }
+      Message message = Message.obtain(resultHandler, R.id.decode_failed, quality.getSharpness(),
+          quality.getContrast());
+      message.sendToTarget();
+      return;
+    }
+    if (multiFormatLocator != null) {
+      locate(bitmap);
+    }
     try {
       rawResult = multiFormatReader.decodeWithState(bitmap);
       success = true;
@@ -178,15 +240,29 @@ final class DecodeThread extends Thread {
     long end = System.currentTimeMillis();
 
     if (success) {
-      Log.v(TAG, "Found barcode (" + (end - start) + " ms):\n" + rawResult.toString());
-      Message message = Message.obtain(activity.getHandler(), R.id.decode_succeeded, rawResult);
+      Log.v(TAG, getName() + " found barcode (" + (end - start) + " ms):\n" + rawResult.toString());
+      Message message = Message.obtain(resultHandler, R.id.decode_succeeded, rawResult);
       Bundle bundle = new Bundle();
       bundle.putParcelable(BARCODE_BITMAP, source.renderCroppedGreyscaleBitmap());
+      bundle.putLong(FRAME_TIMESTAMP, timestamp);
       message.setData(bundle);
       message.sendToTarget();
     } else {
-      Message message = Message.obtain(activity.getHandler(), R.id.decode_failed);
+      Message message = Message.obtain(resultHandler, R.id.decode_failed, quality.getSharpness(),
+          quality.getContrast());
       message.sendToTarget();
     }
   }
+
+  private void locate(BinaryBitmap bitmap) {
+    BarcodeLocation location;
+    try {
+      location = multiFormatLocator.locateWithState(bitmap);
+    } catch (ReaderException re) {
+      return;
+    }
+    Message message = Message.obtain(resultHandler, R.id.barcode_located, bitmap.getWidth(),
+        bitmap.getHeight(), location);
+    message.sendToTarget();
+  }
 }
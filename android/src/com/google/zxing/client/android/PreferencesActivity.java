@@ -33,7 +33,10 @@ public final class PreferencesActivity extends PreferenceActivity
 
   static final String KEY_DECODE_1D = "preferences_decode_1D";
   static final String KEY_DECODE_QR = "preferences_decode_QR";
+  static final String KEY_DECODE_THREADS = "preferences_decode_threads";
+  static final String KEY_AIMING_GUIDANCE = "preferences_aiming_guidance";
   public static final String KEY_CUSTOM_PRODUCT_SEARCH = "preferences_custom_product_search";
+  public static final String KEY_HISTORY_SIZE = "preferences_history_size";
 
   static final String KEY_PLAY_BEEP = "preferences_play_beep";
   static final String KEY_VIBRATE = "preferences_vibrate";
@@ -0,0 +1,263 @@
+/*
+ * Copyright (C) 2010 ZXing authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.zxing.client.android;
+
+import android.os.Handler;
+import android.os.SystemClock;
+import android.speech.tts.TextToSpeech;
+import android.util.Log;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.Map;
+
+/**
+ * <p>Sits between scan results and TextToSpeech so that what is spoken keeps up with what is being
+ * scanned. Only one utterance is handed to the engine at a time; the rest wait in a short queue
+ * which drops its oldest entry when full. Speaking the same thing about the same barcode again
+ * within a few seconds is ignored, and acquiring a different barcode interrupts whatever is being
+ * said about the previous one and discards anything still queued for it.</p>
+ *
+ * <p>For each utterance about a barcode, the time from decode to the start of speech is recorded.
+ * TextToSpeech on this API level has no start callback, so the start is taken as the moment the
+ * utterance is handed to an idle engine.</p>
+ *
+ * <p>The engine may drop an utterance without reporting its completion, for example when it
+ * restarts or another caller flushes its queue. An utterance is therefore taken to be over once it
+ * has had well over the time needed to say it, so that the scheduler never stays busy for good.</p>
+ *
+ * <p>All methods must be called on the thread which created the scheduler.</p>
+ */
+final class SpeechScheduler implements TextToSpeech.OnUtteranceCompletedListener {
+
+  private static final String TAG = SpeechScheduler.class.getSimpleName();
+
+  private static final int MAX_QUEUED = 4;
+  private static final long DUPLICATE_WINDOW_MS = 10 * 1000L;
+  // Generous bounds on how long an utterance takes; speech runs at about 15 characters a second.
+  private static final long MIN_UTTERANCE_MS = 5 * 1000L;
+  private static final long MAX_MS_PER_CHARACTER = 150L;
+
+  private final TextToSpeech tts;
+  private final Handler handler;
+  private final LinkedList<Utterance> queue;
+  private final Map<String, Long> recentlySpoken;
+  private final HashMap<String, String> speakParams;
+  private boolean ready;
+  private boolean speaking;
+  private int utteranceId;
+  private String currentBarcode;
+  private long currentDecodeTime;
+  private final Runnable utteranceExpired = new Runnable() {
+    public void run() {
+      if (speaking) {
+        Log.w(TAG, "No completion for utterance " + utteranceId + ", assuming it was dropped");
+        speaking = false;
+        speakNext();
+      }
+    }
+  };
+
+  private int utterancesStarted;
+  private int utterancesDropped;
+  private long lastLatencyMs;
+  private long maxLatencyMs;
+  private long totalLatencyMs;
+  private int latencySamples;
+
+  SpeechScheduler(TextToSpeech tts) {
+    this.tts = tts;
+    handler = new Handler();
+    queue = new LinkedList<Utterance>();
+    recentlySpoken = new HashMap<String, Long>();
+    speakParams = new HashMap<String, String>();
+    ready = false;
+    speaking = false;
+  }
+
+  /**
+   * Call once the TextToSpeech engine has initialized successfully. Anything queued before then
+   * is spoken now.
+   */
+  void onEngineReady() {
+    tts.setOnUtteranceCompletedListener(this);
+    ready = true;
+    // Anything handed to an engine which then restarted will never complete.
+    stopSpeaking();
+    speakNext();
+  }
+
+  /**
+   * Tells the scheduler a barcode was just decoded. If it differs from the last one, speech about
+   * the last one is cut off.
+   *
+   * @param barcode Identifies the barcode, e.g. its normalized product ID.
+   */
+  void onBarcodeAcquired(String barcode) {
+    long now = SystemClock.uptimeMillis();
+    if (barcode.equals(currentBarcode)) {
+      // A rescan of the same item: keep talking about it, but measure from the newest decode.
+      currentDecodeTime = now;
+      return;
+    }
+    currentBarcode = barcode;
+    currentDecodeTime = now;
+    utterancesDropped += queue.size();
+    queue.clear();
+    stopSpeaking();
+  }
+
+  /**
+   * Queues something to say about a barcode. It is dropped if a different barcode has been
+   * acquired since, or if the same text was said about it within the last few seconds.
+   *
+   * @param barcode The barcode this is about, as passed to onBarcodeAcquired(), or null for an
+   *                announcement which is not about any barcode.
+   * @param text    What to say.
+   */
+  void speak(String barcode, String text) {
+    if (barcode != null && !barcode.equals(currentBarcode)) {
+      Log.v(TAG, "Dropping stale speech for " + barcode);
+      utterancesDropped++;
+      return;
+    }
+    long now = SystemClock.uptimeMillis();
+    String key = barcode + '\n' + text;
+    Long lastSpoken = recentlySpoken.get(key);
+    if (lastSpoken != null && now - lastSpoken < DUPLICATE_WINDOW_MS) {
+      Log.v(TAG, "Dropping repeated speech for " + barcode);
+      utterancesDropped++;
+      return;
+    }
+    pruneRecentlySpoken(now);
+    recentlySpoken.put(key, now);
+
+    if (queue.size() == MAX_QUEUED) {
+      queue.removeFirst();
+      utterancesDropped++;
+    }
+    queue.addLast(new Utterance(barcode, text));
+    speakNext();
+  }
+
+  /**
+   * Stops speaking and forgets everything queued.
+   */
+  void stop() {
+    queue.clear();
+    stopSpeaking();
+  }
+
+  /**
+   * @return true if the engine is ready and has nothing to say
+   */
+  boolean isIdle() {
+    return ready && !speaking && queue.isEmpty();
+  }
+
+  int getUtterancesStarted() {
+    return utterancesStarted;
+  }
+
+  /**
+   * @return how many utterances were never spoken because they were stale, repeated or pushed out
+   *         of a full queue
+   */
+  int getUtterancesDropped() {
+    return utterancesDropped;
+  }
+
+  long getLastLatencyMs() {
+    return lastLatencyMs;
+  }
+
+  long getMaxLatencyMs() {
+    return maxLatencyMs;
+  }
+
+  long getAverageLatencyMs() {
+    return latencySamples == 0 ? 0L : totalLatencyMs / latencySamples;
+  }
+
+  // Called on a TextToSpeech binder thread.
+  public void onUtteranceCompleted(final String completedId) {
+    handler.post(new Runnable() {
+      public void run() {
+        // Ignore utterances which were cut off; something newer may already be playing.
+        if (speaking && completedId.equals(String.valueOf(utteranceId))) {
+          speaking = false;
+          handler.removeCallbacks(utteranceExpired);
+          speakNext();
+        }
+      }
+    });
+  }
+
+  private void speakNext() {
+    if (!ready || speaking || queue.isEmpty()) {
+      return;
+    }
+    Utterance utterance = queue.removeFirst();
+    speakParams.put(TextToSpeech.Engine.KEY_PARAM_UTTERANCE_ID, String.valueOf(++utteranceId));
+    if (tts.speak(utterance.text, TextToSpeech.QUEUE_FLUSH, speakParams) != TextToSpeech.SUCCESS) {
+      Log.w(TAG, "Could not speak: " + utterance.text);
+      speakNext();
+      return;
+    }
+    speaking = true;
+    handler.removeCallbacks(utteranceExpired);
+    handler.postDelayed(utteranceExpired,
+        MIN_UTTERANCE_MS + MAX_MS_PER_CHARACTER * utterance.text.length());
+    utterancesStarted++;
+    if (utterance.barcode != null) {
+      lastLatencyMs = SystemClock.uptimeMillis() - currentDecodeTime;
+      maxLatencyMs = Math.max(maxLatencyMs, lastLatencyMs);
+      totalLatencyMs += lastLatencyMs;
+      latencySamples++;
+      Log.v(TAG, "Decode to speech: " + lastLatencyMs + " ms (average " + getAverageLatencyMs() +
+          " ms, max " + maxLatencyMs + " ms, " + utterancesDropped + " dropped)");
+    }
+  }
+
+  private void stopSpeaking() {
+    if (speaking) {
+      tts.stop();
+      speaking = false;
+      handler.removeCallbacks(utteranceExpired);
+    }
+  }
+
+  private void pruneRecentlySpoken(long now) {
+    for (Iterator<Long> it = recentlySpoken.values().iterator(); it.hasNext();) {
+      if (now - it.next() >= DUPLICATE_WINDOW_MS) {
+        it.remove();
+      }
+    }
+  }
+
+  private static final class Utterance {
+    private final String barcode;
+    private final String text;
+
+    private Utterance(String barcode, String text) {
+      this.barcode = barcode;
+      this.text = text;
+    }
+  }
+
+}
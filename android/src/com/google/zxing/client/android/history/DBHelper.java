@@ -16,16 +16,25 @@
 
 package com.google.zxing.client.android.history;
 
+import android.database.Cursor;
+import android.database.sqlite.SQLiteException;
 import android.database.sqlite.SQLiteOpenHelper;
 import android.database.sqlite.SQLiteDatabase;
 import android.content.Context;
+import android.util.Log;
 
 /**
+ * <p>The history table, plus a full text index over the text and display columns which is kept
+ * in step with it by triggers. The index is only created if this SQLite has FTS3; searches fall
+ * back to LIKE when it does not.</p>
+ *
  * @author Sean Owen
  */
 final class DBHelper extends SQLiteOpenHelper {
 
-  private static final int DB_VERSION = 1;
+  private static final String TAG = DBHelper.class.getSimpleName();
+
+  private static final int DB_VERSION = 3;
   private static final String DB_NAME = "barcode_scanner_history.db";
   static final String TABLE_NAME = "history";
   static final String ID_COL = "id";
@@ -33,6 +42,7 @@ final class DBHelper extends SQLiteOpenHelper {
   static final String FORMAT_COL = "format";
   static final String DISPLAY_COL = "display";
   static final String TIMESTAMP_COL = "timestamp";
+  static final String FTS_TABLE_NAME = "history_fts";
 
   DBHelper(Context context) {
     super(context, DB_NAME, null, DB_VERSION);
@@ -48,12 +58,66 @@ final class DBHelper extends SQLiteOpenHelper {
             DISPLAY_COL + " TEXT, " +
             TIMESTAMP_COL + " INTEGER" +
             ");");
+    createIndexes(sqLiteDatabase);
+    createFullTextIndex(sqLiteDatabase);
   }
 
   @Override
   public void onUpgrade(SQLiteDatabase sqLiteDatabase, int oldVersion, int newVersion) {
-    sqLiteDatabase.delete(TABLE_NAME, null, null);
-    onCreate(sqLiteDatabase);
+    // Versions 2 and 3 only added indexes, so the history can be kept.
+    if (oldVersion < 2) {
+      createIndexes(sqLiteDatabase);
+    }
+    if (oldVersion < 3) {
+      createFullTextIndex(sqLiteDatabase);
+    }
+  }
+
+  /**
+   * @return true if the full text index exists in this database
+   */
+  static boolean hasFullTextIndex(SQLiteDatabase sqLiteDatabase) {
+    Cursor cursor = sqLiteDatabase.rawQuery(
+        "SELECT name FROM sqlite_master WHERE type='table' AND name=?",
+        new String[] { FTS_TABLE_NAME });
+    try {
+      return cursor.moveToNext();
+    } finally {
+      cursor.close();
+    }
+  }
+
+  /**
+   * Duplicate checks look rows up by text, and listing and trimming order them by timestamp.
+   */
+  private static void createIndexes(SQLiteDatabase sqLiteDatabase) {
+    sqLiteDatabase.execSQL(
+            "CREATE INDEX IF NOT EXISTS " + TABLE_NAME + '_' + TEXT_COL + " ON " + TABLE_NAME +
+            " (" + TEXT_COL + ");");
+    sqLiteDatabase.execSQL(
+            "CREATE INDEX IF NOT EXISTS " + TABLE_NAME + '_' + TIMESTAMP_COL + " ON " + TABLE_NAME +
+            " (" + TIMESTAMP_COL + ");");
+  }
+
+  private static void createFullTextIndex(SQLiteDatabase sqLiteDatabase) {
+    try {
+      sqLiteDatabase.execSQL(
+              "CREATE VIRTUAL TABLE " + FTS_TABLE_NAME + " USING fts3(" +
+              TEXT_COL + ", " + DISPLAY_COL + ");");
+    } catch (SQLiteException sqle) {
+      Log.w(TAG, "No full text search: " + sqle);
+      return;
+    }
+    sqLiteDatabase.execSQL(
+            "INSERT INTO " + FTS_TABLE_NAME + " (rowid, " + TEXT_COL + ", " + DISPLAY_COL + ")" +
+            " SELECT " + ID_COL + ", " + TEXT_COL + ", " + DISPLAY_COL + " FROM " + TABLE_NAME + ';');
+    sqLiteDatabase.execSQL(
+            "CREATE TRIGGER " + FTS_TABLE_NAME + "_insert AFTER INSERT ON " + TABLE_NAME +
+            " BEGIN INSERT INTO " + FTS_TABLE_NAME + " (rowid, " + TEXT_COL + ", " + DISPLAY_COL +
+            ") VALUES (new." + ID_COL + ", new." + TEXT_COL + ", new." + DISPLAY_COL + "); END;");
+    sqLiteDatabase.execSQL(
+            "CREATE TRIGGER " + FTS_TABLE_NAME + "_delete AFTER DELETE ON " + TABLE_NAME +
+            " BEGIN DELETE FROM " + FTS_TABLE_NAME + " WHERE rowid = old." + ID_COL + "; END;");
   }
 
 }
@@ -0,0 +1,62 @@
+/*
+ * Copyright (C) 2010 ZXing authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.zxing.client.android.history;
+
+import com.google.zxing.BarcodeFormat;
+
+/**
+ * Restricts a history query. Every condition is optional; {@link #ALL} matches everything.
+ */
+public final class HistoryFilter {
+
+  public static final HistoryFilter ALL = new HistoryFilter(null, null, 0L, Long.MAX_VALUE);
+
+  private final String search;
+  private final BarcodeFormat format;
+  private final long from;
+  private final long to;
+
+  /**
+   * @param search Words which must all start a word of the text or display value, or null.
+   * @param format Only return this format, or null for any.
+   * @param from   Earliest timestamp to return, inclusive, in ms since the epoch.
+   * @param to     Latest timestamp to return, exclusive, in ms since the epoch.
+   */
+  public HistoryFilter(String search, BarcodeFormat format, long from, long to) {
+    this.search = search;
+    this.format = format;
+    this.from = from;
+    this.to = to;
+  }
+
+  public String getSearch() {
+    return search;
+  }
+
+  public BarcodeFormat getFormat() {
+    return format;
+  }
+
+  public long getFrom() {
+    return from;
+  }
+
+  public long getTo() {
+    return to;
+  }
+
+}
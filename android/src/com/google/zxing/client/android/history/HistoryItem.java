@@ -0,0 +1,58 @@
+/*
+ * Copyright (C) 2010 ZXing authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.zxing.client.android.history;
+
+import com.google.zxing.Result;
+
+/**
+ * One row of the scan history.
+ */
+public final class HistoryItem {
+
+  private final long id;
+  private final Result result;
+  private final String display;
+  private final long timestamp;
+
+  HistoryItem(long id, Result result, String display, long timestamp) {
+    this.id = id;
+    this.result = result;
+    this.display = display;
+    this.timestamp = timestamp;
+  }
+
+  long getId() {
+    return id;
+  }
+
+  public Result getResult() {
+    return result;
+  }
+
+  /**
+   * @return the parsed result's display value, or the raw text for items saved before it was
+   *         recorded
+   */
+  public String getDisplay() {
+    return display == null ? result.getText() : display;
+  }
+
+  public long getTimestamp() {
+    return timestamp;
+  }
+
+}
@@ -19,73 +19,248 @@ package com.google.zxing.client.android.history;
 import android.app.AlertDialog;
 import android.content.ContentValues;
 import android.content.DialogInterface;
+import android.content.SharedPreferences;
 import android.database.sqlite.SQLiteDatabase;
-import android.database.sqlite.SQLiteOpenHelper;
+import android.database.sqlite.SQLiteException;
 import android.database.Cursor;
+import android.os.Handler;
 import android.os.Message;
+import android.preference.PreferenceManager;
+import android.util.Log;
 
+import java.util.HashSet;
 import java.util.List;
 import java.util.ArrayList;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
 
 import com.google.zxing.BarcodeFormat;
 import com.google.zxing.client.android.R;
 import com.google.zxing.client.android.CaptureActivity;
+import com.google.zxing.client.android.PreferencesActivity;
+import com.google.zxing.client.result.ResultParser;
 import com.google.zxing.Result;
 
 /**
  * <p>Manages functionality related to scan history.</p>
+ *
+ * <p>One database connection is kept open for the life of the manager, and all access to it goes
+ * through a single background thread, so nothing here blocks decoding. New items are queued and
+ * written in batches, each in one transaction. Reads run on the same thread, after any queued
+ * writes, so they always see every item added before them. The history dialog is built from a
+ * page read there too, and is then shown on the UI thread.</p>
+ *
+ * <p>History is read a page at a time and can be filtered by text, format and time, so it may
+ * grow to as many items as the history size preference allows.</p>
  * 
  * @author Sean Owen
  */
 public final class HistoryManager {
 
-  private static final int MAX_ITEMS = 20;
-  private static final String[] TEXT_COL_PROJECTION = { DBHelper.TEXT_COL };
-  private static final String[] TEXT_FORMAT_COL_PROJECTION = { DBHelper.TEXT_COL, DBHelper.FORMAT_COL };
+  private static final String TAG = HistoryManager.class.getSimpleName();
+
+  private static final int DEFAULT_MAX_ITEMS = 10000;
+  private static final int PAGE_SIZE = 50;
   private static final String[] ID_COL_PROJECTION = { DBHelper.ID_COL };
+  private static final String[] ITEM_PROJECTION = {
+      DBHelper.ID_COL, DBHelper.TEXT_COL, DBHelper.FORMAT_COL, DBHelper.DISPLAY_COL,
+      DBHelper.TIMESTAMP_COL };
 
   private final CaptureActivity activity;
+  private final DBHelper helper;
+  private final ExecutorService executor;
+  private final Handler uiHandler;
+  // Scans not yet written, as items without an ID or display text.
+  private final List<HistoryItem> pendingItems;
+  // Only touched on the history thread.
+  private Boolean fullTextIndex;
 
   public HistoryManager(CaptureActivity activity) {
     this.activity = activity;
+    helper = new DBHelper(activity);
+    executor = Executors.newSingleThreadExecutor();
+    uiHandler = new Handler();
+    pendingItems = new ArrayList<HistoryItem>();
   }
 
-  List<Result> getHistoryItems() {
-    SQLiteOpenHelper helper = new DBHelper(activity);
-    List<Result> items = new ArrayList<Result>();
-    SQLiteDatabase db = helper.getReadableDatabase();
+  /**
+   * Returns one page of history, newest first. Each page is read with its own bounded query, so
+   * memory use depends on the page size and not on the size of the history. This waits for the
+   * history thread; call it from a background thread if the filter is expensive.
+   *
+   * @param filter   Which items to return.
+   * @param after    The last item of the previous page, or null for the first page.
+   * @param pageSize The maximum number of items to return.
+   * @return the items, or an empty list if there are no more
+   */
+  public List<HistoryItem> getHistoryPage(final HistoryFilter filter,
+                                          final HistoryItem after,
+                                          final int pageSize) {
+    Future<List<HistoryItem>> items = executor.submit(new Callable<List<HistoryItem>>() {
+      public List<HistoryItem> call() {
+        return queryHistoryPage(filter, after, pageSize);
+      }
+    });
+    try {
+      return items.get();
+    } catch (InterruptedException ie) {
+      Thread.currentThread().interrupt();
+    } catch (ExecutionException ee) {
+      Log.w(TAG, ee.getCause());
+    }
+    return new ArrayList<HistoryItem>();
+  }
+
+  private List<HistoryItem> queryHistoryPage(HistoryFilter filter, HistoryItem after, int pageSize) {
+    StringBuilder selection = new StringBuilder();
+    List<String> args = new ArrayList<String>();
+    if (filter.getFormat() != null) {
+      appendCondition(selection, DBHelper.FORMAT_COL + "=?");
+      args.add(filter.getFormat().toString());
+    }
+    if (filter.getFrom() > 0L) {
+      appendCondition(selection, DBHelper.TIMESTAMP_COL + ">=?");
+      args.add(String.valueOf(filter.getFrom()));
+    }
+    if (filter.getTo() < Long.MAX_VALUE) {
+      appendCondition(selection, DBHelper.TIMESTAMP_COL + "<?");
+      args.add(String.valueOf(filter.getTo()));
+    }
+    if (after != null) {
+      // Keyset paging: carry on from the last row seen instead of counting rows with OFFSET.
+      appendCondition(selection, '(' + DBHelper.TIMESTAMP_COL + "<? OR (" +
+          DBHelper.TIMESTAMP_COL + "=? AND " + DBHelper.ID_COL + "<?))");
+      args.add(String.valueOf(after.getTimestamp()));
+      args.add(String.valueOf(after.getTimestamp()));
+      args.add(String.valueOf(after.getId()));
+    }
+
+    List<HistoryItem> items = new ArrayList<HistoryItem>();
     Cursor cursor = null;
     try {
+      SQLiteDatabase db = helper.getReadableDatabase();
+      List<String> terms = toSearchTerms(filter.getSearch());
+      if (!terms.isEmpty()) {
+        if (fullTextIndex == null) {
+          fullTextIndex = DBHelper.hasFullTextIndex(db);
+        }
+        if (fullTextIndex) {
+          StringBuilder match = new StringBuilder();
+          for (String term : terms) {
+            match.append(term).append("* ");
+          }
+          appendCondition(selection, DBHelper.ID_COL + " IN (SELECT rowid FROM " +
+              DBHelper.FTS_TABLE_NAME + " WHERE " + DBHelper.FTS_TABLE_NAME + " MATCH ?)");
+          args.add(match.toString().trim());
+        } else {
+          for (String term : terms) {
+            appendCondition(selection, '(' + DBHelper.TEXT_COL + " LIKE ? OR " +
+                DBHelper.DISPLAY_COL + " LIKE ?)");
+            args.add('%' + term + '%');
+            args.add('%' + term + '%');
+          }
+        }
+      }
+
       cursor = db.query(DBHelper.TABLE_NAME,
-                        TEXT_FORMAT_COL_PROJECTION,
-                        null, null, null, null,
-                        DBHelper.TIMESTAMP_COL + " DESC");
+                        ITEM_PROJECTION,
+                        selection.length() == 0 ? null : selection.toString(),
+                        args.toArray(new String[args.size()]),
+                        null, null,
+                        DBHelper.TIMESTAMP_COL + " DESC, " + DBHelper.ID_COL + " DESC",
+                        String.valueOf(pageSize));
       while (cursor.moveToNext()) {
-        Result result = new Result(cursor.getString(0), null, null, BarcodeFormat.valueOf(cursor.getString(1)));
-        items.add(result);
+        Result result = new Result(cursor.getString(1), null, null, BarcodeFormat.valueOf(cursor.getString(2)));
+        items.add(new HistoryItem(cursor.getLong(0), result, cursor.getString(3), cursor.getLong(4)));
       }
+    } catch (SQLiteException sqle) {
+      Log.w(TAG, sqle);
     } finally {
       if (cursor != null) {
         cursor.close();
       }
-      db.close();
     }
     return items;
   }
 
-  public AlertDialog buildAlert() {
-    final List<Result> items = getHistoryItems();
-    final String[] dialogItems = new String[items.size() + 1];
+  private static void appendCondition(StringBuilder selection, String condition) {
+    if (selection.length() > 0) {
+      selection.append(" AND ");
+    }
+    selection.append(condition);
+  }
+
+  /**
+   * Splits a search into words of letters and digits, which are safe to use in both MATCH and
+   * LIKE patterns.
+   */
+  private static List<String> toSearchTerms(String search) {
+    List<String> terms = new ArrayList<String>();
+    if (search == null) {
+      return terms;
+    }
+    int start = -1;
+    for (int i = 0; i <= search.length(); i++) {
+      boolean wordChar = i < search.length() && Character.isLetterOrDigit(search.charAt(i));
+      if (wordChar && start < 0) {
+        start = i;
+      } else if (!wordChar && start >= 0) {
+        terms.add(search.substring(start, i));
+        start = -1;
+      }
+    }
+    return terms;
+  }
+
+  /**
+   * Reads the newest page of history in the background, then shows it in a dialog.
+   */
+  public void showHistory() {
+    showHistory(null);
+  }
+
+  private void showHistory(final HistoryItem after) {
+    submit(new Runnable() {
+      public void run() {
+        // One row more than is shown, to tell whether there is another page without reading it.
+        final List<HistoryItem> items = queryHistoryPage(HistoryFilter.ALL, after, PAGE_SIZE + 1);
+        uiHandler.post(new Runnable() {
+          public void run() {
+            if (!activity.isFinishing()) {
+              buildAlert(items).show();
+            }
+          }
+        });
+      }
+    });
+  }
+
+  private AlertDialog buildAlert(final List<HistoryItem> items) {
+    final boolean hasMore = items.size() > PAGE_SIZE;
+    if (hasMore) {
+      items.remove(PAGE_SIZE);
+    }
+    final String[] dialogItems = new String[items.size() + (hasMore ? 2 : 1)];
     for (int i = 0; i < items.size(); i++) {
-      dialogItems[i] = items.get(i).getText();
+      dialogItems[i] = items.get(i).getResult().getText();
+    }
+    if (hasMore) {
+      dialogItems[items.size()] = activity.getResources().getString(R.string.history_more_text);
     }
     dialogItems[dialogItems.length - 1] = activity.getResources().getString(R.string.history_clear_text);
     DialogInterface.OnClickListener clickListener = new DialogInterface.OnClickListener() {
       public void onClick(DialogInterface dialogInterface, int i) {
         if (i == dialogItems.length - 1) {
           clearHistory();
+        } else if (i == items.size()) {
+          showHistory(items.get(items.size() - 1));
         } else {
-          Result result = items.get(i);
+          Result result = items.get(i).getResult();
           Message message = Message.obtain(activity.getHandler(), R.id.decode_succeeded, result);
           message.sendToTarget();
         }
@@ -97,65 +272,137 @@ public final class HistoryManager {
     return builder.create();
   }
 
+  /**
+   * Queues a scan to be saved. This returns immediately; the write happens on the history thread,
+   * batched with any other items which arrive before it gets there. Even parsing the result for
+   * its display text waits for the history thread.
+   */
   public void addHistoryItem(Result result) {
+    HistoryItem item = new HistoryItem(-1L, result, null, System.currentTimeMillis());
+    boolean startBatch;
+    synchronized (pendingItems) {
+      startBatch = pendingItems.isEmpty();
+      pendingItems.add(item);
+    }
+    if (startBatch) {
+      submit(new Runnable() {
+        public void run() {
+          writePendingItems();
+        }
+      });
+    }
+  }
 
-    SQLiteOpenHelper helper = new DBHelper(activity);
-    SQLiteDatabase db = helper.getWritableDatabase();
-    Cursor cursor = null;
+  private void writePendingItems() {
+    List<HistoryItem> batch;
+    synchronized (pendingItems) {
+      batch = new ArrayList<HistoryItem>(pendingItems);
+      pendingItems.clear();
+    }
+    if (batch.isEmpty()) {
+      return;
+    }
     try {
-      cursor = db.query(DBHelper.TABLE_NAME,
-                        TEXT_COL_PROJECTION,
-                        DBHelper.TEXT_COL + "=?",
-                        new String[] { result.getText() },
-                        null, null, null, null);
-      if (cursor.moveToNext()) {
-        return;
+      SQLiteDatabase db = helper.getWritableDatabase();
+      Set<String> added = new HashSet<String>();
+      db.beginTransaction();
+      try {
+        for (HistoryItem item : batch) {
+          Result result = item.getResult();
+          String text = result.getText();
+          if (added.add(text) && !contains(db, text)) {
+            ContentValues values = new ContentValues();
+            values.put(DBHelper.TEXT_COL, text);
+            values.put(DBHelper.FORMAT_COL, result.getBarcodeFormat().toString());
+            values.put(DBHelper.DISPLAY_COL, ResultParser.parseResult(result).getDisplayResult());
+            values.put(DBHelper.TIMESTAMP_COL, item.getTimestamp());
+            db.insert(DBHelper.TABLE_NAME, DBHelper.TIMESTAMP_COL, values);
+          }
+        }
+        db.setTransactionSuccessful();
+      } finally {
+        db.endTransaction();
       }
-      ContentValues values = new ContentValues();
-      values.put(DBHelper.TEXT_COL, result.getText());
-      values.put(DBHelper.FORMAT_COL, result.getBarcodeFormat().toString());
-      values.put(DBHelper.DISPLAY_COL, result.getText()); // TODO use parsed result display value?
-      values.put(DBHelper.TIMESTAMP_COL, System.currentTimeMillis());
-      db.insert(DBHelper.TABLE_NAME, DBHelper.TIMESTAMP_COL, values);
+    } catch (SQLiteException sqle) {
+      Log.w(TAG, sqle);
+    }
+  }
+
+  private static boolean contains(SQLiteDatabase db, String text) {
+    Cursor cursor = db.query(DBHelper.TABLE_NAME,
+                             ID_COL_PROJECTION,
+                             DBHelper.TEXT_COL + "=?",
+                             new String[] { text },
+                             null, null, null, "1");
+    try {
+      return cursor.moveToNext();
     } finally {
-      if (cursor != null) {
-        cursor.close();
-      }
-      db.close();
+      cursor.close();
     }
   }
 
+  /**
+   * Deletes all but the newest items, in the background. How many are kept is a preference.
+   */
   public void trimHistory() {
-    SQLiteOpenHelper helper = new DBHelper(activity);
-    SQLiteDatabase db = helper.getWritableDatabase();
-    Cursor cursor = null;
-    try {
-      cursor = db.query(DBHelper.TABLE_NAME,
-                        ID_COL_PROJECTION,
-                        null, null, null, null,
-                        DBHelper.TIMESTAMP_COL + " DESC");
-      int count = 0;
-      while (count < MAX_ITEMS && cursor.moveToNext()) {
-        count++;
+    final int maxItems = getMaxItems();
+    submit(new Runnable() {
+      public void run() {
+        try {
+          helper.getWritableDatabase().execSQL(
+              "DELETE FROM " + DBHelper.TABLE_NAME + " WHERE " + DBHelper.ID_COL +
+              " NOT IN (SELECT " + DBHelper.ID_COL + " FROM " + DBHelper.TABLE_NAME +
+              " ORDER BY " + DBHelper.TIMESTAMP_COL + " DESC LIMIT " + maxItems + ')');
+        } catch (SQLiteException sqle) {
+          Log.w(TAG, sqle);
+        }
       }
-      while (cursor.moveToNext()) {
-        db.delete(DBHelper.TABLE_NAME, DBHelper.ID_COL + '=' + cursor.getString(0), null);
+    });
+  }
+
+  void clearHistory() {
+    synchronized (pendingItems) {
+      pendingItems.clear();
+    }
+    submit(new Runnable() {
+      public void run() {
+        try {
+          helper.getWritableDatabase().delete(DBHelper.TABLE_NAME, null, null);
+        } catch (SQLiteException sqle) {
+          Log.w(TAG, sqle);
+        }
       }
-    } finally {
-      if (cursor != null) {
-        cursor.close();
+    });
+  }
+
+  /**
+   * Finishes any queued writes in the background and then closes the database.
+   */
+  public void close() {
+    submit(new Runnable() {
+      public void run() {
+        helper.close();
       }
-      db.close();
+    });
+    executor.shutdown();
+  }
+
+  private int getMaxItems() {
+    SharedPreferences prefs = PreferenceManager.getDefaultSharedPreferences(activity);
+    try {
+      int maxItems = Integer.parseInt(prefs.getString(PreferencesActivity.KEY_HISTORY_SIZE,
+          String.valueOf(DEFAULT_MAX_ITEMS)));
+      return maxItems > 0 ? maxItems : DEFAULT_MAX_ITEMS;
+    } catch (NumberFormatException nfe) {
+      return DEFAULT_MAX_ITEMS;
     }
   }
 
-  void clearHistory() {
-    SQLiteOpenHelper helper = new DBHelper(activity);
-    SQLiteDatabase db = helper.getWritableDatabase();
+  private void submit(Runnable task) {
     try {
-      db.delete(DBHelper.TABLE_NAME, null, null);
-    } finally {
-      db.close();
+      executor.execute(task);
+    } catch (RejectedExecutionException ree) {
+      Log.w(TAG, "History is closed");
     }
   }
 
@@ -0,0 +1,196 @@
+/*
+ * Copyright (C) 2010 ZXing authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.zxing.client.android.product;
+
+import android.content.ContentValues;
+import android.content.Context;
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteException;
+import android.util.Log;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * <p>A two level cache of product descriptions: a small LRU map in memory, backed by a SQLite
+ * table which survives restarts. Products the lookup service did not recognize are cached too,
+ * for a shorter time, so that scanning an unknown item again does not go back to the network.</p>
+ *
+ * <p>The memory level may be queried from the UI thread. Everything which touches the database
+ * should be called from a background thread.</p>
+ */
+final class ProductCache {
+  private static final String TAG = "ProductCache";
+
+  private static final int MAX_MEMORY_ITEMS = 64;
+  private static final int MAX_DB_ITEMS = 2000;
+  private static final long FOUND_TTL_MS = 30L * 24L * 60L * 60L * 1000L;
+  private static final long NOT_FOUND_TTL_MS = 24L * 60L * 60L * 1000L;
+
+  private static final String[] DESCRIPTION_TIMESTAMP_COL_PROJECTION =
+      { ProductDBHelper.DESCRIPTION_COL, ProductDBHelper.TIMESTAMP_COL };
+
+  private final ProductDBHelper helper;
+  private final Map<String, Entry> memory;
+  private int putsSinceTrim;
+
+  ProductCache(Context context) {
+    helper = new ProductDBHelper(context);
+    memory = new LinkedHashMap<String, Entry>(MAX_MEMORY_ITEMS, 0.75f, true) {
+      @Override
+      protected boolean removeEldestEntry(Map.Entry<String, ProductCache.Entry> eldest) {
+        return size() > MAX_MEMORY_ITEMS;
+      }
+    };
+    putsSinceTrim = 0;
+  }
+
+  /**
+   * @return the fresh entry for this product if it is held in memory, otherwise null
+   */
+  Entry getFromMemory(String productID) {
+    synchronized (memory) {
+      Entry entry = memory.get(productID);
+      if (entry != null && entry.isExpired(System.currentTimeMillis())) {
+        memory.remove(productID);
+        return null;
+      }
+      return entry;
+    }
+  }
+
+  /**
+   * Checks memory and then the database. Entries found in the database are promoted to memory.
+   *
+   * @param productID The normalized product ID.
+   * @param allowExpired If true, return an entry even if it has outlived its TTL. This is useful
+   *        when the network is unavailable and an old answer is better than none.
+   * @return the cached entry, or null if there is none
+   */
+  Entry get(String productID, boolean allowExpired) {
+    long now = System.currentTimeMillis();
+    synchronized (memory) {
+      Entry entry = memory.get(productID);
+      if (entry != null && (allowExpired || !entry.isExpired(now))) {
+        return entry;
+      }
+    }
+
+    Entry entry = null;
+    Cursor cursor = null;
+    try {
+      SQLiteDatabase db = helper.getReadableDatabase();
+      cursor = db.query(ProductDBHelper.TABLE_NAME,
+                        DESCRIPTION_TIMESTAMP_COL_PROJECTION,
+                        ProductDBHelper.PRODUCT_ID_COL + "=?",
+                        new String[] { productID },
+                        null, null, null);
+      if (cursor.moveToNext()) {
+        entry = new Entry(cursor.isNull(0) ? null : cursor.getString(0), cursor.getLong(1));
+      }
+    } catch (SQLiteException sqle) {
+      Log.w(TAG, sqle);
+    } finally {
+      if (cursor != null) {
+        cursor.close();
+      }
+    }
+
+    if (entry == null || (!allowExpired && entry.isExpired(now))) {
+      return null;
+    }
+    if (!entry.isExpired(now)) {
+      synchronized (memory) {
+        memory.put(productID, entry);
+      }
+    }
+    return entry;
+  }
+
+  /**
+   * @param productID The normalized product ID.
+   * @param description The description, or null if the product is unknown.
+   */
+  void put(String productID, String description) {
+    Entry entry = new Entry(description, System.currentTimeMillis());
+    synchronized (memory) {
+      memory.put(productID, entry);
+    }
+
+    ContentValues values = new ContentValues();
+    values.put(ProductDBHelper.PRODUCT_ID_COL, productID);
+    values.put(ProductDBHelper.DESCRIPTION_COL, description);
+    values.put(ProductDBHelper.TIMESTAMP_COL, entry.timestamp);
+    try {
+      SQLiteDatabase db = helper.getWritableDatabase();
+      db.replace(ProductDBHelper.TABLE_NAME, ProductDBHelper.DESCRIPTION_COL, values);
+      boolean trim;
+      synchronized (this) {
+        trim = ++putsSinceTrim >= MAX_DB_ITEMS / 10;
+        if (trim) {
+          putsSinceTrim = 0;
+        }
+      }
+      if (trim) {
+        trim(db);
+      }
+    } catch (SQLiteException sqle) {
+      Log.w(TAG, sqle);
+    }
+  }
+
+  void close() {
+    synchronized (memory) {
+      memory.clear();
+    }
+    helper.close();
+  }
+
+  /**
+   * Drops everything but the most recently stored MAX_DB_ITEMS rows in one statement.
+   */
+  private static void trim(SQLiteDatabase db) {
+    db.execSQL("DELETE FROM " + ProductDBHelper.TABLE_NAME + " WHERE " +
+        ProductDBHelper.PRODUCT_ID_COL + " NOT IN (SELECT " + ProductDBHelper.PRODUCT_ID_COL +
+        " FROM " + ProductDBHelper.TABLE_NAME + " ORDER BY " + ProductDBHelper.TIMESTAMP_COL +
+        " DESC LIMIT " + MAX_DB_ITEMS + ')');
+  }
+
+  static final class Entry {
+    private final String description;
+    private final long timestamp;
+
+    Entry(String description, long timestamp) {
+      this.description = description;
+      this.timestamp = timestamp;
+    }
+
+    /**
+     * @return the description, or null if the lookup service did not know the product
+     */
+    String getDescription() {
+      return description;
+    }
+
+    boolean isExpired(long now) {
+      long ttl = description == null ? NOT_FOUND_TTL_MS : FOUND_TTL_MS;
+      return now - timestamp > ttl;
+    }
+  }
+
+}
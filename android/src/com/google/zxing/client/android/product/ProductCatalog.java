@@ -0,0 +1,264 @@
+/*
+ * Copyright (C) 2010 ZXing authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.zxing.client.android.product;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.io.UnsupportedEncodingException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * <p>A read-only catalog of product descriptions which is memory-mapped and searched in place,
+ * so lookups need no network and allocate nothing but the returned String.</p>
+ *
+ * <p>The file is a 32 byte header, followed by a fixed-width table of keys, a fixed-width table
+ * of block offsets and then the descriptions. Keys are product codes stored as longs in
+ * increasing order, so a lookup is a binary search over the key table. The descriptions are
+ * UTF-8 and front coded in blocks of {@link #BLOCK_SIZE}: each one is stored as the number of
+ * leading bytes it shares with the previous description, the number of bytes which follow, and
+ * those bytes. The first description of a block shares nothing, so decoding never has to start
+ * further back than the block offset.</p>
+ *
+ * <p>A delta has the same layout with {@link #FLAG_DELTA} set. An empty description in a delta
+ * deletes the product. Deltas are applied with {@link #merge(File, File, File)}.</p>
+ *
+ * <p>This class does not depend on Android; see {@link ProductCatalogTool}.</p>
+ */
+public final class ProductCatalog {
+
+  static final int MAGIC = 0x5A585043; // "ZXPC"
+  static final int VERSION = 1;
+  static final int FLAG_DELTA = 0x01;
+  static final int BLOCK_SIZE = 16;
+
+  private static final int HEADER_SIZE = 32;
+
+  private final RandomAccessFile file;
+  private final ByteBuffer buffer;
+  private final boolean delta;
+  private final int count;
+  private final int blocksStart;
+  private final int dataStart;
+  private byte[] scratch;
+
+  private ProductCatalog(RandomAccessFile file, ByteBuffer buffer) throws IOException {
+    this.file = file;
+    this.buffer = buffer;
+    if (buffer.capacity() < HEADER_SIZE || buffer.getInt(0) != MAGIC) {
+      throw new IOException("Not a product catalog");
+    }
+    if (buffer.getInt(4) != VERSION) {
+      throw new IOException("Unsupported catalog version " + buffer.getInt(4));
+    }
+    delta = (buffer.getInt(8) & FLAG_DELTA) != 0;
+    count = buffer.getInt(12);
+    if (buffer.getInt(16) != BLOCK_SIZE) {
+      throw new IOException("Unsupported block size " + buffer.getInt(16));
+    }
+    int dataLength = buffer.getInt(20);
+    blocksStart = HEADER_SIZE + count * 8;
+    dataStart = blocksStart + ((count + BLOCK_SIZE - 1) / BLOCK_SIZE) * 4;
+    if (count < 0 || dataStart < 0 || dataStart + dataLength != buffer.capacity()) {
+      throw new IOException("Truncated product catalog");
+    }
+    scratch = new byte[256];
+  }
+
+  /**
+   * Maps a catalog into memory.
+   *
+   * @param path The catalog file.
+   * @return the opened catalog, which should be closed when no longer needed
+   * @throws IOException if the file can't be read or is not a valid catalog
+   */
+  public static ProductCatalog open(File path) throws IOException {
+    RandomAccessFile file = new RandomAccessFile(path, "r");
+    try {
+      long length = file.length();
+      if (length > Integer.MAX_VALUE) {
+        throw new IOException("Catalog is too large to map");
+      }
+      ByteBuffer buffer = file.getChannel().map(FileChannel.MapMode.READ_ONLY, 0L, length);
+      return new ProductCatalog(file, buffer);
+    } catch (IOException ioe) {
+      file.close();
+      throw ioe;
+    }
+  }
+
+  /**
+   * Converts a product code to a catalog key. Codes are compared as GTINs, so "012345678905" as
+   * UPC-A and "0012345678905" as EAN-13 are the same product.
+   *
+   * @param productID A code of 8 to 14 digits, as produced by the UPC/EAN readers.
+   * @return the key, or -1 if this is not a product code
+   */
+  public static long toKey(String productID) {
+    int length = productID.length();
+    if (length < 8 || length > 14) {
+      return -1L;
+    }
+    long key = 0L;
+    for (int i = 0; i < length; i++) {
+      char c = productID.charAt(i);
+      if (c < '0' || c > '9') {
+        return -1L;
+      }
+      key = key * 10L + (c - '0');
+    }
+    return key;
+  }
+
+  public boolean isDelta() {
+    return delta;
+  }
+
+  public int size() {
+    return count;
+  }
+
+  /**
+   * @param productID The scanned product code.
+   * @return the description, or null if the catalog does not contain it
+   */
+  public String lookup(String productID) {
+    long key = toKey(productID);
+    if (key < 0L) {
+      return null;
+    }
+    int index = find(key);
+    return index < 0 ? null : getDescription(index);
+  }
+
+  public void close() throws IOException {
+    file.close();
+  }
+
+  long getKey(int index) {
+    return buffer.getLong(HEADER_SIZE + index * 8);
+  }
+
+  /**
+   * @return the index of the key, or -1 if it is not in the catalog
+   */
+  int find(long key) {
+    int low = 0;
+    int high = count - 1;
+    while (low <= high) {
+      int mid = (low + high) >>> 1;
+      long midKey = getKey(mid);
+      if (midKey < key) {
+        low = mid + 1;
+      } else if (midKey > key) {
+        high = mid - 1;
+      } else {
+        return mid;
+      }
+    }
+    return -1;
+  }
+
+  /**
+   * @return the description at this index, or null if it is a deletion in a delta
+   */
+  synchronized String getDescription(int index) {
+    int block = index / BLOCK_SIZE;
+    int position = dataStart + buffer.getInt(blocksStart + block * 4);
+    int length = 0;
+    for (int i = block * BLOCK_SIZE; i <= index; i++) {
+      int shared = 0;
+      int shift = 0;
+      int b;
+      do {
+        b = buffer.get(position++);
+        shared |= (b & 0x7F) << shift;
+        shift += 7;
+      } while ((b & 0x80) != 0);
+      int suffix = 0;
+      shift = 0;
+      do {
+        b = buffer.get(position++);
+        suffix |= (b & 0x7F) << shift;
+        shift += 7;
+      } while ((b & 0x80) != 0);
+      length = shared + suffix;
+      if (scratch.length < length) {
+        byte[] larger = new byte[Math.max(length, scratch.length * 2)];
+        System.arraycopy(scratch, 0, larger, 0, shared);
+        scratch = larger;
+      }
+      for (int j = shared; j < length; j++) {
+        scratch[j] = buffer.get(position++);
+      }
+    }
+    if (length == 0) {
+      return null;
+    }
+    try {
+      return new String(scratch, 0, length, "UTF-8");
+    } catch (UnsupportedEncodingException uee) {
+      // Can't happen
+      throw new RuntimeException(uee.toString());
+    }
+  }
+
+  /**
+   * Applies a delta to a catalog in one streaming pass over both.
+   *
+   * @param base The current catalog.
+   * @param delta The delta, which must have been built with the delta flag.
+   * @param output Where to write the updated catalog. This must not be base or delta.
+   */
+  public static void merge(File base, File delta, File output) throws IOException {
+    ProductCatalog baseCatalog = open(base);
+    try {
+      ProductCatalog deltaCatalog = open(delta);
+      try {
+        if (baseCatalog.isDelta() || !deltaCatalog.isDelta()) {
+          throw new IOException("Expected a full catalog and a delta");
+        }
+        ProductCatalogWriter writer = new ProductCatalogWriter(output, false);
+        int baseIndex = 0;
+        int deltaIndex = 0;
+        while (baseIndex < baseCatalog.count || deltaIndex < deltaCatalog.count) {
+          long baseKey = baseIndex < baseCatalog.count ? baseCatalog.getKey(baseIndex) : Long.MAX_VALUE;
+          long deltaKey =
+              deltaIndex < deltaCatalog.count ? deltaCatalog.getKey(deltaIndex) : Long.MAX_VALUE;
+          if (baseKey < deltaKey) {
+            writer.add(baseKey, baseCatalog.getDescription(baseIndex++));
+          } else {
+            String description = deltaCatalog.getDescription(deltaIndex++);
+            if (description != null) {
+              writer.add(deltaKey, description);
+            }
+            if (baseKey == deltaKey) {
+              baseIndex++;
+            }
+          }
+        }
+        writer.finish();
+      } finally {
+        deltaCatalog.close();
+      }
+    } finally {
+      baseCatalog.close();
+    }
+  }
+
+}
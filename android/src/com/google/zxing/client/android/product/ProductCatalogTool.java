@@ -0,0 +1,167 @@
+/*
+ * Copyright (C) 2010 ZXing authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.zxing.client.android.product;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+
+/**
+ * <p>A desktop tool for building product catalogs and deltas for {@link ProductCatalog}. It only
+ * needs the three ProductCatalog classes, for example:</p>
+ *
+ * <pre>
+ * javac -d out ProductCatalog*.java
+ * java -cp out com.google.zxing.client.android.product.ProductCatalogTool build products.tsv products.cat
+ * </pre>
+ *
+ * <p>Input files have one product per line, as the code and the description separated by a tab.
+ * In a delta, a line with only a code deletes that product.</p>
+ */
+public final class ProductCatalogTool {
+
+  private ProductCatalogTool() {
+  }
+
+  public static void main(String[] args) throws IOException {
+    if (args.length == 3 && args[0].equals("build")) {
+      build(new File(args[1]), new File(args[2]), false);
+    } else if (args.length == 3 && args[0].equals("delta")) {
+      build(new File(args[1]), new File(args[2]), true);
+    } else if (args.length == 4 && args[0].equals("merge")) {
+      ProductCatalog.merge(new File(args[1]), new File(args[2]), new File(args[3]));
+    } else if (args.length == 3 && args[0].equals("lookup")) {
+      ProductCatalog catalog = ProductCatalog.open(new File(args[1]));
+      try {
+        System.out.println(catalog.lookup(args[2]));
+      } finally {
+        catalog.close();
+      }
+    } else if ((args.length == 2 || args.length == 3) && args[0].equals("bench")) {
+      int entries = Integer.parseInt(args[1]);
+      int lookups = args.length == 3 ? Integer.parseInt(args[2]) : 1000000;
+      bench(entries, lookups);
+    } else {
+      System.err.println("Usage: ProductCatalogTool build <products.tsv> <catalog>\n" +
+          "       ProductCatalogTool delta <changes.tsv> <delta>\n" +
+          "       ProductCatalogTool merge <catalog> <delta> <new catalog>\n" +
+          "       ProductCatalogTool lookup <catalog> <code>\n" +
+          "       ProductCatalogTool bench <entries> [lookups]");
+    }
+  }
+
+  private static void build(File input, File output, boolean delta) throws IOException {
+    // A later line for the same product replaces an earlier one.
+    Map<Long, String> products = new TreeMap<Long, String>();
+    BufferedReader reader =
+        new BufferedReader(new InputStreamReader(new FileInputStream(input), "UTF-8"));
+    try {
+      String line;
+      while ((line = reader.readLine()) != null) {
+        int tab = line.indexOf('\t');
+        String code = tab < 0 ? line.trim() : line.substring(0, tab).trim();
+        String description = tab < 0 ? null : line.substring(tab + 1).trim();
+        if (description != null && description.length() == 0) {
+          description = null;
+        }
+        long key = ProductCatalog.toKey(code);
+        if (key < 0L || (description == null && !delta)) {
+          System.err.println("Skipping: " + line);
+          continue;
+        }
+        products.put(key, description);
+      }
+    } finally {
+      reader.close();
+    }
+
+    ProductCatalogWriter writer = new ProductCatalogWriter(output, delta);
+    for (Map.Entry<Long, String> entry : products.entrySet()) {
+      writer.add(entry.getKey(), entry.getValue());
+    }
+    writer.finish();
+    System.out.println("Wrote " + products.size() + " products to " + output);
+  }
+
+  /**
+   * Builds a synthetic catalog of EAN-13 codes and times random lookups against it, half of
+   * which hit.
+   */
+  private static void bench(int entries, int lookups) throws IOException {
+    File file = File.createTempFile("catalog", ".cat");
+    file.deleteOnExit();
+    long start = System.currentTimeMillis();
+    ProductCatalogWriter writer = new ProductCatalogWriter(file, false);
+    for (int i = 0; i < entries; i++) {
+      writer.add(syntheticKey(i), "Product " + (i % 1000) + " brand " + (i / 1000) + " 500g");
+    }
+    writer.finish();
+    System.out.println("Built " + entries + " entries (" + file.length() + " bytes) in " +
+        (System.currentTimeMillis() - start) + " ms");
+
+    String[] codes = new String[lookups];
+    Random random = new Random(0xCAFEL);
+    for (int i = 0; i < lookups; i++) {
+      long key = syntheticKey(random.nextInt(entries)) + random.nextInt(2);
+      codes[i] = pad13(key);
+    }
+
+    ProductCatalog catalog = ProductCatalog.open(file);
+    try {
+      // Warm up the page cache and the JIT before measuring.
+      int found = 0;
+      for (int i = 0; i < lookups; i++) {
+        if (catalog.lookup(codes[i]) != null) {
+          found++;
+        }
+      }
+      Runtime runtime = Runtime.getRuntime();
+      System.gc();
+      long heapBefore = runtime.totalMemory() - runtime.freeMemory();
+      long nanos = System.nanoTime();
+      for (int i = 0; i < lookups; i++) {
+        catalog.lookup(codes[i]);
+      }
+      nanos = System.nanoTime() - nanos;
+      long heapAfter = runtime.totalMemory() - runtime.freeMemory();
+      System.out.println(lookups + " lookups, " + found + " found: " + (nanos / lookups) +
+          " ns per lookup, heap grew by " + ((heapAfter - heapBefore) / 1024) + " KB");
+    } finally {
+      catalog.close();
+    }
+  }
+
+  // Spread the keys out so that about half of the neighbouring codes are misses.
+  private static long syntheticKey(int i) {
+    return 4000000000000L + i * 2L;
+  }
+
+  private static String pad13(long key) {
+    String digits = Long.toString(key);
+    StringBuilder result = new StringBuilder(13);
+    for (int i = digits.length(); i < 13; i++) {
+      result.append('0');
+    }
+    return result.append(digits).toString();
+  }
+
+}
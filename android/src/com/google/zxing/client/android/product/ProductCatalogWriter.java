@@ -0,0 +1,185 @@
+/*
+ * Copyright (C) 2010 ZXing authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.zxing.client.android.product;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.io.UnsupportedEncodingException;
+
+/**
+ * <p>Writes the file format read by {@link ProductCatalog}. Entries must be added in strictly
+ * increasing key order. The three sections are spooled to temporary files and joined in
+ * {@link #finish()}, so memory use does not depend on the size of the catalog.</p>
+ *
+ * <p>This class does not depend on Android, so that catalogs and deltas can be built on a
+ * desktop machine with {@link ProductCatalogTool}.</p>
+ */
+public final class ProductCatalogWriter {
+
+  private final File file;
+  private final boolean delta;
+  private final File keysFile;
+  private final File blocksFile;
+  private final File dataFile;
+  private final DataOutputStream keys;
+  private final DataOutputStream blocks;
+  private final DataOutputStream data;
+  private byte[] previous;
+  private int previousLength;
+  private long lastKey;
+  private int count;
+  private int dataLength;
+
+  /**
+   * @param file Where to write the catalog.
+   * @param delta If true, the result is a delta to be merged into an existing catalog, and may
+   *        contain deletions.
+   */
+  public ProductCatalogWriter(File file, boolean delta) throws IOException {
+    this.file = file;
+    this.delta = delta;
+    keysFile = new File(file.getPath() + ".keys");
+    blocksFile = new File(file.getPath() + ".blocks");
+    dataFile = new File(file.getPath() + ".data");
+    keys = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(keysFile)));
+    blocks = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(blocksFile)));
+    data = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(dataFile)));
+    previous = new byte[64];
+    previousLength = 0;
+    lastKey = -1L;
+    count = 0;
+    dataLength = 0;
+  }
+
+  /**
+   * @param key The product key, see {@link ProductCatalog#toKey(String)}.
+   * @param description The description. In a delta, null deletes the product.
+   */
+  public void add(long key, String description) throws IOException {
+    if (key <= lastKey) {
+      throw new IllegalArgumentException("Keys must be added in increasing order: " + key);
+    }
+    if (description == null && !delta) {
+      throw new IllegalArgumentException("Only deltas may delete products");
+    }
+    if (description != null && description.length() == 0) {
+      throw new IllegalArgumentException("Empty description for " + key);
+    }
+    lastKey = key;
+    keys.writeLong(key);
+
+    byte[] bytes = description == null ? new byte[0] : toBytes(description);
+    int shared = 0;
+    if (count % ProductCatalog.BLOCK_SIZE == 0) {
+      blocks.writeInt(dataLength);
+    } else {
+      int max = Math.min(previousLength, bytes.length);
+      while (shared < max && previous[shared] == bytes[shared]) {
+        shared++;
+      }
+    }
+    dataLength += writeVarInt(data, shared);
+    dataLength += writeVarInt(data, bytes.length - shared);
+    data.write(bytes, shared, bytes.length - shared);
+    dataLength += bytes.length - shared;
+    if (dataLength < 0) {
+      throw new IOException("Catalog is too large");
+    }
+
+    if (previous.length < bytes.length) {
+      previous = new byte[bytes.length];
+    }
+    System.arraycopy(bytes, 0, previous, 0, bytes.length);
+    previousLength = bytes.length;
+    count++;
+  }
+
+  /**
+   * Writes the header and joins the sections into the final file.
+   */
+  public void finish() throws IOException {
+    keys.close();
+    blocks.close();
+    data.close();
+
+    RandomAccessFile header = new RandomAccessFile(file, "rw");
+    try {
+      header.setLength(0L);
+      header.writeInt(ProductCatalog.MAGIC);
+      header.writeInt(ProductCatalog.VERSION);
+      header.writeInt(delta ? ProductCatalog.FLAG_DELTA : 0);
+      header.writeInt(count);
+      header.writeInt(ProductCatalog.BLOCK_SIZE);
+      header.writeInt(dataLength);
+      header.writeLong(0L);
+    } finally {
+      header.close();
+    }
+
+    OutputStream out = new BufferedOutputStream(new FileOutputStream(file, true));
+    try {
+      append(keysFile, out);
+      append(blocksFile, out);
+      append(dataFile, out);
+    } finally {
+      out.close();
+    }
+  }
+
+  private static void append(File section, OutputStream out) throws IOException {
+    byte[] buffer = new byte[8192];
+    InputStream in = new BufferedInputStream(new FileInputStream(section));
+    try {
+      int read;
+      while ((read = in.read(buffer)) > 0) {
+        out.write(buffer, 0, read);
+      }
+    } finally {
+      in.close();
+    }
+    section.delete();
+  }
+
+  private static int writeVarInt(DataOutputStream out, int value) throws IOException {
+    int written = 1;
+    while ((value & ~0x7F) != 0) {
+      out.write((value & 0x7F) | 0x80);
+      value >>>= 7;
+      written++;
+    }
+    out.write(value);
+    return written;
+  }
+
+  private static byte[] toBytes(String s) {
+    try {
+      return s.getBytes("UTF-8");
+    } catch (UnsupportedEncodingException uee) {
+      // Can't happen
+      throw new RuntimeException(uee.toString());
+    }
+  }
+
+}
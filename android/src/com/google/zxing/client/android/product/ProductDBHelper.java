@@ -0,0 +1,59 @@
+/*
+ * Copyright (C) 2010 ZXing authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.zxing.client.android.product;
+
+import android.database.sqlite.SQLiteOpenHelper;
+import android.database.sqlite.SQLiteDatabase;
+import android.content.Context;
+
+/**
+ * Stores product descriptions we have already looked up, alongside the scan history database.
+ * A null description records that the lookup service did not know the product.
+ */
+final class ProductDBHelper extends SQLiteOpenHelper {
+
+  private static final int DB_VERSION = 1;
+  private static final String DB_NAME = "barcode_scanner_products.db";
+  static final String TABLE_NAME = "products";
+  static final String PRODUCT_ID_COL = "product_id";
+  static final String DESCRIPTION_COL = "description";
+  static final String TIMESTAMP_COL = "timestamp";
+
+  ProductDBHelper(Context context) {
+    super(context, DB_NAME, null, DB_VERSION);
+  }
+
+  @Override
+  public void onCreate(SQLiteDatabase sqLiteDatabase) {
+    sqLiteDatabase.execSQL(
+            "CREATE TABLE " + TABLE_NAME + " (" +
+            PRODUCT_ID_COL + " TEXT PRIMARY KEY, " +
+            DESCRIPTION_COL + " TEXT, " +
+            TIMESTAMP_COL + " INTEGER" +
+            ");");
+    sqLiteDatabase.execSQL(
+            "CREATE INDEX " + TABLE_NAME + '_' + TIMESTAMP_COL + " ON " + TABLE_NAME +
+            " (" + TIMESTAMP_COL + ");");
+  }
+
+  @Override
+  public void onUpgrade(SQLiteDatabase sqLiteDatabase, int oldVersion, int newVersion) {
+    sqLiteDatabase.execSQL("DROP TABLE IF EXISTS " + TABLE_NAME);
+    onCreate(sqLiteDatabase);
+  }
+
+}
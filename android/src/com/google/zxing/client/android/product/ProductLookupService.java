@@ -0,0 +1,354 @@
+/*
+ * Copyright (C) 2010 ZXing authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.zxing.client.android.product;
+
+import com.google.zxing.Result;
+import com.google.zxing.client.android.AndroidHttpClient;
+import com.google.zxing.client.android.R;
+import com.google.zxing.client.result.ISBNParsedResult;
+import com.google.zxing.client.result.ParsedResult;
+import com.google.zxing.client.result.ParsedResultType;
+import com.google.zxing.client.result.ProductParsedResult;
+import com.google.zxing.client.result.ResultParser;
+
+import android.content.Context;
+import android.os.Handler;
+import android.os.Message;
+import android.util.Log;
+
+import org.apache.http.HttpEntity;
+import org.apache.http.HttpResponse;
+import org.apache.http.client.methods.HttpGet;
+import org.apache.http.params.HttpConnectionParams;
+import org.apache.http.params.HttpParams;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Looks up product descriptions by UPC/EAN on a small pool of background threads, so that
+ * neither the UI nor the next scan waits on the network. If the same product is requested again
+ * while a lookup for it is still running, the caller shares that request instead of starting a
+ * new one. A local ProductCatalog, if one has been installed, is consulted before anything else.
+ * Answers from the network are kept in a ProductCache, so products scanned before are answered
+ * without the network, and an expired answer is still used if the network is unavailable.
+ *
+ * Results are delivered to each waiting Handler as R.id.product_lookup_succeeded, with the
+ * description (or NOT_FOUND) in message.obj, or as R.id.product_lookup_failed. Either way the
+ * product ID is in the message data under PRODUCT_ID.
+ */
+public final class ProductLookupService {
+  private static final String TAG = "ProductLookupService";
+  private static final String USER_AGENT = "ZXing (Android)";
+
+  public static final String UPC_DATABASE_URL = "http://upcdatabase.com/item/";
+  public static final String NOT_FOUND = "error";
+  public static final String PRODUCT_ID = "product_id";
+
+  private static final String CATALOG_FILE_NAME = "products.cat";
+
+  private static final int LOOKUP_THREADS = 2;
+  private static final int MAX_QUEUED_LOOKUPS = 8;
+  private static final int CONNECT_TIMEOUT_MS = 5 * 1000;
+  private static final int READ_TIMEOUT_MS = 10 * 1000;
+  private static final long SHUTDOWN_TIMEOUT_MS = 5 * 1000L;
+
+  private final String urlPrefix;
+  private final AndroidHttpClient client;
+  private final ProductCache cache;
+  private final File catalogFile;
+  private volatile ProductCatalog catalog;
+  private final ThreadPoolExecutor executor;
+  private final Map<String, List<Handler>> pendingLookups;
+
+  public ProductLookupService(Context context) {
+    this(context, UPC_DATABASE_URL);
+  }
+
+  /**
+   * @param context   Used to open the product cache database.
+   * @param urlPrefix The product ID is appended to this to form the lookup URL. Pointing this at
+   *                  a local server makes it possible to exercise the service without the network.
+   */
+  public ProductLookupService(Context context, String urlPrefix) {
+    this.urlPrefix = urlPrefix;
+    cache = new ProductCache(context);
+    catalogFile = context.getFileStreamPath(CATALOG_FILE_NAME);
+    catalog = openCatalog(catalogFile);
+    client = AndroidHttpClient.newInstance(USER_AGENT);
+    HttpParams params = client.getParams();
+    HttpConnectionParams.setConnectionTimeout(params, CONNECT_TIMEOUT_MS);
+    HttpConnectionParams.setSoTimeout(params, READ_TIMEOUT_MS);
+    executor = new ThreadPoolExecutor(LOOKUP_THREADS, LOOKUP_THREADS, 30L, TimeUnit.SECONDS,
+        new ArrayBlockingQueue<Runnable>(MAX_QUEUED_LOOKUPS));
+    pendingLookups = new HashMap<String, List<Handler>>();
+  }
+
+  /**
+   * Starts looking up a product, or joins the lookup already running for it. Each Handler is told
+   * about a given lookup at most once, however many times it asked. If the answer is cached in
+   * memory, the Handler is sent it right away.
+   *
+   * @param result  The barcode which was scanned.
+   * @param handler The Handler to notify when the lookup completes.
+   */
+  public void lookup(Result result, Handler handler) {
+    final String productID = getProductID(result);
+    ProductCache.Entry cached = cache.getFromMemory(productID);
+    if (cached != null) {
+      Message message = Message.obtain(handler, R.id.product_lookup_succeeded, toSpoken(cached));
+      message.getData().putString(PRODUCT_ID, productID);
+      message.sendToTarget();
+      return;
+    }
+
+    synchronized (pendingLookups) {
+      List<Handler> waiting = pendingLookups.get(productID);
+      if (waiting != null) {
+        if (!waiting.contains(handler)) {
+          waiting.add(handler);
+        }
+        Log.v(TAG, "Joining lookup already in flight for " + productID);
+        return;
+      }
+      waiting = new ArrayList<Handler>(2);
+      waiting.add(handler);
+      pendingLookups.put(productID, waiting);
+    }
+
+    try {
+      executor.execute(new Runnable() {
+        public void run() {
+          deliver(productID, lookupInBackground(productID));
+        }
+      });
+    } catch (RejectedExecutionException ree) {
+      Log.w(TAG, "Too many lookups queued, dropping " + productID);
+      deliver(productID, null);
+    }
+  }
+
+  /**
+   * Stops all lookups and releases the connections. Pending callers are not notified. Closing the
+   * client aborts any request in flight; the cache and catalog are then closed in the background,
+   * once the lookup threads have finished with them, so this does not block the caller.
+   */
+  public void shutdown() {
+    executor.shutdownNow();
+    synchronized (pendingLookups) {
+      pendingLookups.clear();
+    }
+    client.close();
+    new Thread("ProductLookupService shutdown") {
+      @Override
+      public void run() {
+        try {
+          if (!executor.awaitTermination(SHUTDOWN_TIMEOUT_MS, TimeUnit.MILLISECONDS)) {
+            Log.w(TAG, "Lookups still running after " + SHUTDOWN_TIMEOUT_MS + " ms, closing anyway");
+          }
+        } catch (InterruptedException ie) {
+          // Close anyway
+        }
+        cache.close();
+        closeCatalog(catalog);
+        catalog = null;
+      }
+    }.start();
+  }
+
+  /**
+   * Installs a new offline catalog, or applies a delta to the current one. This does disk I/O
+   * proportional to the size of the catalog, so it must not be called on the UI thread.
+   *
+   * @param update A full catalog or a delta built with ProductCatalogTool. It is left in place.
+   * @throws IOException if the update is invalid, or is a delta and there is no catalog yet
+   */
+  public synchronized void updateCatalog(File update) throws IOException {
+    File newCatalog = new File(catalogFile.getPath() + ".new");
+    ProductCatalog updateCatalog = ProductCatalog.open(update);
+    boolean delta = updateCatalog.isDelta();
+    updateCatalog.close();
+    if (delta) {
+      ProductCatalog.merge(catalogFile, update, newCatalog);
+    } else {
+      copy(update, newCatalog);
+    }
+    // Make sure the result is valid before it replaces anything.
+    closeCatalog(ProductCatalog.open(newCatalog));
+
+    // Lookups still running against the old catalog keep their mapping after it is closed.
+    ProductCatalog oldCatalog = catalog;
+    if (!newCatalog.renameTo(catalogFile)) {
+      newCatalog.delete();
+      throw new IOException("Could not replace " + catalogFile);
+    }
+    catalog = openCatalog(catalogFile);
+    closeCatalog(oldCatalog);
+  }
+
+  /**
+   * Product barcodes are keyed by their normalized GTIN, so that a UPC-E and the UPC-A it expands
+   * to share one entry. MultiFormatUPCEANReader already reports an EAN-13 with a leading zero as
+   * the equivalent UPC-A. Anything else is keyed by its raw text.
+   */
+  public static String getProductID(Result result) {
+    ParsedResult parsed = ResultParser.parseResult(result);
+    if (parsed.getType() == ParsedResultType.PRODUCT) {
+      return ((ProductParsedResult) parsed).getNormalizedProductID();
+    }
+    if (parsed.getType() == ParsedResultType.ISBN) {
+      return ((ISBNParsedResult) parsed).getISBN();
+    }
+    return result.getText();
+  }
+
+  /**
+   * Runs on the executor: the offline catalog and disk cache first, then the network, then an
+   * expired cache entry.
+   *
+   * @return what should be spoken, or null if we have no answer at all
+   */
+  private String lookupInBackground(String productID) {
+    ProductCatalog currentCatalog = catalog;
+    if (currentCatalog != null) {
+      String description = currentCatalog.lookup(productID);
+      if (description != null) {
+        return description;
+      }
+    }
+
+    ProductCache.Entry cached = cache.get(productID, false);
+    if (cached != null) {
+      return toSpoken(cached);
+    }
+    try {
+      String description = fetchDescription(productID);
+      cache.put(productID, description);
+      return description == null ? NOT_FOUND : description;
+    } catch (IOException ioe) {
+      Log.w(TAG, "Lookup failed for " + productID + ": " + ioe);
+    }
+    cached = cache.get(productID, true);
+    return cached == null ? null : toSpoken(cached);
+  }
+
+  private static ProductCatalog openCatalog(File file) {
+    if (!file.exists()) {
+      return null;
+    }
+    try {
+      return ProductCatalog.open(file);
+    } catch (IOException ioe) {
+      Log.w(TAG, "Could not open product catalog: " + ioe);
+      return null;
+    }
+  }
+
+  private static void closeCatalog(ProductCatalog catalog) {
+    if (catalog != null) {
+      try {
+        catalog.close();
+      } catch (IOException ioe) {
+        Log.w(TAG, ioe);
+      }
+    }
+  }
+
+  private static void copy(File from, File to) throws IOException {
+    InputStream in = new FileInputStream(from);
+    try {
+      OutputStream out = new FileOutputStream(to);
+      try {
+        byte[] buffer = new byte[8192];
+        int read;
+        while ((read = in.read(buffer)) > 0) {
+          out.write(buffer, 0, read);
+        }
+      } finally {
+        out.close();
+      }
+    } finally {
+      in.close();
+    }
+  }
+
+  private static String toSpoken(ProductCache.Entry entry) {
+    String description = entry.getDescription();
+    return description == null ? NOT_FOUND : description;
+  }
+
+  /**
+   * @param description What to speak, or null if the lookup failed.
+   */
+  private void deliver(String productID, String description) {
+    List<Handler> waiting;
+    synchronized (pendingLookups) {
+      waiting = pendingLookups.remove(productID);
+    }
+    if (waiting == null) {
+      return;
+    }
+    for (Handler handler : waiting) {
+      Message message;
+      if (description == null) {
+        message = Message.obtain(handler, R.id.product_lookup_failed, productID);
+      } else {
+        message = Message.obtain(handler, R.id.product_lookup_succeeded, description);
+      }
+      message.getData().putString(PRODUCT_ID, productID);
+      message.sendToTarget();
+    }
+  }
+
+  private String fetchDescription(String productID) throws IOException {
+    HttpGet get = new HttpGet(urlPrefix + productID);
+    HttpResponse response = client.execute(get);
+    HttpEntity entity = response.getEntity();
+    if (response.getStatusLine().getStatusCode() != 200) {
+      if (entity != null) {
+        entity.consumeContent();
+      }
+      throw new IOException("HTTP returned " + response.getStatusLine().getStatusCode());
+    }
+
+    ProductPageParser parser = new ProductPageParser();
+    InputStream in = entity.getContent();
+    try {
+      return parser.parse(new InputStreamReader(in));
+    } finally {
+      if (parser.stoppedEarly()) {
+        // Drop the connection rather than download the rest of the page.
+        get.abort();
+      } else {
+        in.close();
+      }
+    }
+  }
+}
@@ -0,0 +1,196 @@
+/*
+ * Copyright (C) 2010 ZXing authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.zxing.client.android.product;
+
+import java.io.IOException;
+import java.io.Reader;
+
+/**
+ * <p>Pulls the product description out of an upcdatabase.com item page as it streams in. The
+ * page is scanned one character at a time by a small state machine, and reading stops as soon as
+ * the description cell has been closed, or as soon as it is clear the page is not an item record.
+ * The page itself is never held in memory.</p>
+ *
+ * <p>The markers and offsets are those of the page layout: the record type follows the content
+ * div after a line break and a heading tag, and the description follows its label after two
+ * more cells. Line breaks are normalized to '\n' first.</p>
+ */
+final class ProductPageParser {
+
+  private static final int FIND_CONTENT = 0;
+  private static final int SKIP_AFTER_CONTENT = 1;
+  private static final int CHECK_RECORD = 2;
+  private static final int FIND_DESCRIPTION_ROW = 3;
+  private static final int SKIP_AFTER_ROW = 4;
+  private static final int READ_DESCRIPTION = 5;
+  private static final int DONE = 6;
+
+  private static final String ITEM_RECORD = "Item Record";
+  private static final int SKIPPED_AFTER_CONTENT = 5;
+  private static final int SKIPPED_AFTER_ROW = 18;
+  private static final int MAX_DESCRIPTION_LENGTH = 1024;
+
+  private final Marker content;
+  private final Marker descriptionRow;
+  private final Marker endOfCell;
+  private final StringBuilder description;
+  private int state;
+  private int position;
+  private boolean lastWasCR;
+  private String result;
+
+  ProductPageParser() {
+    content = new Marker("<div id=\"content\">");
+    descriptionRow = new Marker("<tr><td>Description");
+    endOfCell = new Marker("</td>");
+    description = new StringBuilder(64);
+    state = FIND_CONTENT;
+  }
+
+  /**
+   * Reads from the page until the description is known. The reader is not closed.
+   *
+   * @return The description, or null if the page is not a valid item record.
+   */
+  String parse(Reader reader) throws IOException {
+    char[] buffer = new char[1024];
+    int read;
+    while (state != DONE && (read = reader.read(buffer)) > 0) {
+      for (int i = 0; i < read && state != DONE; i++) {
+        char c = buffer[i];
+        if (c == '\r') {
+          lastWasCR = true;
+          c = '\n';
+        } else if (c == '\n' && lastWasCR) {
+          lastWasCR = false;
+          continue;
+        } else {
+          lastWasCR = false;
+        }
+        accept(c);
+      }
+    }
+    if (state == READ_DESCRIPTION) {
+      // The page ended inside the description cell; take what there is.
+      result = description.toString();
+    }
+    return result;
+  }
+
+  /**
+   * @return true if parsing stopped before the end of the page, so the rest of the response
+   *         should be abandoned rather than drained
+   */
+  boolean stoppedEarly() {
+    return state == DONE;
+  }
+
+  private void accept(char c) {
+    switch (state) {
+      case FIND_CONTENT:
+        if (content.accept(c)) {
+          state = SKIP_AFTER_CONTENT;
+          position = 0;
+        }
+        break;
+      case SKIP_AFTER_CONTENT:
+        if (++position == SKIPPED_AFTER_CONTENT) {
+          state = CHECK_RECORD;
+          position = 0;
+        }
+        break;
+      case CHECK_RECORD:
+        // Anything else, such as "UPC Error", means there is no description to find.
+        if (c != ITEM_RECORD.charAt(position)) {
+          state = DONE;
+        } else if (++position == ITEM_RECORD.length()) {
+          state = FIND_DESCRIPTION_ROW;
+        }
+        break;
+      case FIND_DESCRIPTION_ROW:
+        if (descriptionRow.accept(c)) {
+          state = SKIP_AFTER_ROW;
+          position = 0;
+        }
+        break;
+      case SKIP_AFTER_ROW:
+        if (++position == SKIPPED_AFTER_ROW) {
+          state = READ_DESCRIPTION;
+        }
+        break;
+      case READ_DESCRIPTION:
+        description.append(c);
+        if (endOfCell.accept(c)) {
+          description.setLength(description.length() - endOfCell.length());
+          result = description.toString();
+          state = DONE;
+        } else if (description.length() >= MAX_DESCRIPTION_LENGTH) {
+          result = description.toString();
+          state = DONE;
+        }
+        break;
+    }
+  }
+
+  /**
+   * Matches a fixed string against a stream of characters, one at a time, without backing up.
+   */
+  private static final class Marker {
+    private final String text;
+    private final int[] fallback;
+    private int matched;
+
+    Marker(String text) {
+      this.text = text;
+      // Knuth-Morris-Pratt failure table: fallback[i] is the length of the longest proper prefix
+      // of text[0..i] which is also a suffix of it.
+      fallback = new int[text.length()];
+      int k = 0;
+      for (int i = 1; i < text.length(); i++) {
+        while (k > 0 && text.charAt(i) != text.charAt(k)) {
+          k = fallback[k - 1];
+        }
+        if (text.charAt(i) == text.charAt(k)) {
+          k++;
+        }
+        fallback[i] = k;
+      }
+    }
+
+    int length() {
+      return text.length();
+    }
+
+    /**
+     * @return true if this character completes the marker
+     */
+    boolean accept(char c) {
+      while (matched > 0 && c != text.charAt(matched)) {
+        matched = fallback[matched - 1];
+      }
+      if (c == text.charAt(matched)) {
+        matched++;
+      }
+      if (matched == text.length()) {
+        matched = 0;
+        return true;
+      }
+      return false;
+    }
+  }
+
+}
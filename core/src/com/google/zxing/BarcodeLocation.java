@@ -0,0 +1,96 @@
+/*
+ * Copyright 2010 ZXing authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.zxing;
+
+/**
+ * <p>Where a {@link Locator} found a barcode: its outline as points in image coordinates, and the
+ * bounding box of those points. The outline is approximate, since the barcode has not been
+ * decoded.</p>
+ */
+public final class BarcodeLocation {
+
+  private final BarcodeFormat format;
+  private final ResultPoint[] points;
+  private final float left;
+  private final float top;
+  private final float right;
+  private final float bottom;
+
+  /**
+   * @param format The format whose patterns were found.
+   * @param points At least two points on the outline of the barcode.
+   */
+  public BarcodeLocation(BarcodeFormat format, ResultPoint[] points) {
+    if (points == null || points.length < 2) {
+      throw new IllegalArgumentException("Need at least two points");
+    }
+    this.format = format;
+    this.points = points;
+    float minX = Float.MAX_VALUE;
+    float minY = Float.MAX_VALUE;
+    float maxX = -Float.MAX_VALUE;
+    float maxY = -Float.MAX_VALUE;
+    for (int i = 0; i < points.length; i++) {
+      float x = points[i].getX();
+      float y = points[i].getY();
+      minX = Math.min(minX, x);
+      minY = Math.min(minY, y);
+      maxX = Math.max(maxX, x);
+      maxY = Math.max(maxY, y);
+    }
+    left = minX;
+    top = minY;
+    right = maxX;
+    bottom = maxY;
+  }
+
+  public BarcodeFormat getFormat() {
+    return format;
+  }
+
+  public ResultPoint[] getPoints() {
+    return points;
+  }
+
+  public float getCenterX() {
+    return (left + right) / 2.0f;
+  }
+
+  public float getCenterY() {
+    return (top + bottom) / 2.0f;
+  }
+
+  /**
+   * @return The width of the bounding box.
+   */
+  public float getWidth() {
+    return right - left;
+  }
+
+  /**
+   * @return The height of the bounding box.
+   */
+  public float getHeight() {
+    return bottom - top;
+  }
+
+  public String toString() {
+    return format + " at (" + getCenterX() + ',' + getCenterY() + "), " + getWidth() + 'x' +
+        getHeight();
+  }
+
+}
@@ -57,6 +57,13 @@ public final class DecodeHintType {
    */
   public static final DecodeHintType ALLOWED_LENGTHS = new DecodeHintType();
 
+  /**
+   * Specifies what character encoding to use when decoding, where applicable (type String).
+   * For example, QR Code byte mode segments without an ECI designator are then taken to be in
+   * this encoding, rather than it being guessed from the bytes.
+   */
+  public static final DecodeHintType CHARACTER_SET = new DecodeHintType();
+
   private DecodeHintType() {
   }
 
@@ -0,0 +1,42 @@
+/*
+ * Copyright 2010 ZXing authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.zxing;
+
+import java.util.Hashtable;
+
+/**
+ * Implementations of this interface find where a barcode is in an image without decoding it.
+ * They stop after finding the format's fixed patterns, such as guard or finder patterns, so they
+ * are much cheaper than a {@link Reader} and can run on every frame to help the user aim, even
+ * when the barcode is too far away or too blurred to decode yet.
+ *
+ * See {@link com.google.zxing.MultiFormatLocator}.
+ */
+public interface Locator {
+
+  /**
+   * Finds a barcode in an image.
+   *
+   * @param image image which may contain a barcode
+   * @param hints passed as a {@link java.util.Hashtable} from {@link com.google.zxing.DecodeHintType}
+   * to arbitrary data, as for {@link Reader#decode(BinaryBitmap, Hashtable)}
+   * @return where the barcode appears to be
+   * @throws ReaderException if no barcode was found
+   */
+  BarcodeLocation locate(BinaryBitmap image, Hashtable hints) throws ReaderException;
+
+}
@@ -0,0 +1,98 @@
+/*
+ * Copyright 2010 ZXing authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.zxing;
+
+import com.google.zxing.oned.UPCEANLocator;
+import com.google.zxing.pdf417.PDF417Locator;
+import com.google.zxing.qrcode.QRCodeLocator;
+
+import java.util.Hashtable;
+import java.util.Vector;
+
+/**
+ * MultiFormatLocator is the {@link Locator} counterpart of {@link MultiFormatReader}. It tries
+ * the locators for the formats in the POSSIBLE_FORMATS hint, or for UPC/EAN and QR Code if there
+ * is no such hint, and returns the first location found. UPC/EAN goes first because it only
+ * examines a few rows. As with MultiFormatReader, call setHints() once and then
+ * locateWithState() on each frame.
+ */
+public final class MultiFormatLocator implements Locator {
+
+  private Hashtable hints;
+  private Vector locators;
+
+  /**
+   * Locates a barcode using the hints provided. Does not honor existing state.
+   */
+  public BarcodeLocation locate(BinaryBitmap image, Hashtable hints) throws ReaderException {
+    setHints(hints);
+    return locateInternal(image);
+  }
+
+  /**
+   * Locates a barcode using the state set up by calling setHints() previously.
+   */
+  public BarcodeLocation locateWithState(BinaryBitmap image) throws ReaderException {
+    if (locators == null) {
+      setHints(null);
+    }
+    return locateInternal(image);
+  }
+
+  /**
+   * @param hints The set of hints to use for subsequent calls to locateWithState(image)
+   */
+  public void setHints(Hashtable hints) {
+    this.hints = hints;
+
+    Vector formats = hints == null ? null : (Vector) hints.get(DecodeHintType.POSSIBLE_FORMATS);
+    locators = new Vector();
+    if (formats != null) {
+      if (formats.contains(BarcodeFormat.UPC_A) ||
+          formats.contains(BarcodeFormat.UPC_E) ||
+          formats.contains(BarcodeFormat.EAN_13) ||
+          formats.contains(BarcodeFormat.EAN_8)) {
+        locators.addElement(new UPCEANLocator());
+      }
+      if (formats.contains(BarcodeFormat.QR_CODE)) {
+        locators.addElement(new QRCodeLocator());
+      }
+      if (formats.contains(BarcodeFormat.PDF417)) {
+        locators.addElement(new PDF417Locator());
+      }
+    }
+    if (locators.isEmpty()) {
+      locators.addElement(new UPCEANLocator());
+      locators.addElement(new QRCodeLocator());
+    }
+  }
+
+  private BarcodeLocation locateInternal(BinaryBitmap image) throws ReaderException {
+    int size = locators.size();
+    for (int i = 0; i < size; i++) {
+      Locator locator = (Locator) locators.elementAt(i);
+      try {
+        return locator.locate(image, hints);
+      } catch (ReaderException re) {
+        // continue
+      }
+    }
+
+    throw ReaderException.getInstance();
+  }
+
+}
@@ -16,6 +16,8 @@
 
 package com.google.zxing;
 
+import com.google.zxing.common.DecoderResult;
+
 import java.util.Hashtable;
 
 /**
@@ -27,6 +29,7 @@ public final class Result {
 
   private final String text;
   private final byte[] rawBytes;
+  private final DecoderResult decoderResult;
   private final ResultPoint[] resultPoints;
   private final BarcodeFormat format;
   private Hashtable resultMetadata;
@@ -40,6 +43,25 @@ public final class Result {
     }
     this.text = text;
     this.rawBytes = rawBytes;
+    this.decoderResult = null;
+    this.resultPoints = resultPoints;
+    this.format = format;
+    this.resultMetadata = null;
+  }
+
+  /**
+   * Creates a result whose text and raw bytes are those of a {@link DecoderResult}. Its text is
+   * then only decoded from the raw bytes when {@link #getText()} is first called.
+   */
+  public Result(DecoderResult decoderResult,
+                ResultPoint[] resultPoints,
+                BarcodeFormat format) {
+    if (decoderResult == null) {
+      throw new IllegalArgumentException("Decoder result is null");
+    }
+    this.text = null;
+    this.rawBytes = null;
+    this.decoderResult = decoderResult;
     this.resultPoints = resultPoints;
     this.format = format;
     this.resultMetadata = null;
@@ -49,14 +71,14 @@ public final class Result {
    * @return raw text encoded by the barcode, if applicable, otherwise <code>null</code>
    */
   public String getText() {
-    return text;
+    return decoderResult == null ? text : decoderResult.getText();
   }
 
   /**
    * @return raw bytes encoded by the barcode, if applicable, otherwise <code>null</code>
    */
   public byte[] getRawBytes() {
-    return rawBytes;
+    return decoderResult == null ? rawBytes : decoderResult.getRawBytes();
   }
 
   /**
@@ -92,8 +114,9 @@ public final class Result {
   }
 
   public String toString() {
+    String text = getText();
     if (text == null) {
-      return "[" + rawBytes.length + " bytes]";
+      return "[" + getRawBytes().length + " bytes]";
     } else {
       return text;
   }
@@ -16,6 +16,8 @@
 
 package com.google.zxing.client.result;
 
+import java.util.Vector;
+
 /**
  * <p>See
  * <a href="http://www.nttdocomo.co.jp/english/service/imode/make/content/barcode/about/s2.html">
@@ -28,12 +30,94 @@ package com.google.zxing.client.result;
  */
 abstract class AbstractDoCoMoResultParser extends ResultParser {
 
-  static String[] matchDoCoMoPrefixedField(String prefix, String rawText, boolean trim) {
-    return matchPrefixedField(prefix, rawText, ';', trim);
-  }
+  /**
+   * <p>Splits a record like "MECARD:N:Owen,Sean;TEL:+12125551212;;" into its fields, in one pass.
+   * Each field is a name and a value separated by a colon, ended by a semicolon or the end of the
+   * record. A backslash escapes the character after it, so a value may contain ';' as "\;".</p>
+   *
+   * @param rawText the record
+   * @param typeLength length of the record type, like "MECARD:", which comes first
+   * @param names names of the fields to collect
+   * @return for each name, untrimmed values as for {@link #getFieldValues(Vector, boolean)}
+   */
+  static Vector[] parseDoCoMoFields(String rawText, int typeLength, String[] names) {
+    Vector[] fields = new Vector[names.length];
+    int max = rawText.length();
+    // Where the next colon and backslash are; searches only ever move forward
+    int colon = -1;
+    int backslash = rawText.indexOf((int) '\\', typeLength);
+    int i = typeLength;
+    while (i < max) {
+      if (colon < i) {
+        colon = rawText.indexOf((int) ':', i);
+        if (colon < 0) {
+          break;
+        }
+      }
+      int end = rawText.indexOf((int) ';', i);
+      if (end < 0) {
+        end = max;
+      }
+      if (end < colon) {
+        // No name; skip it
+        i = end + 1;
+        continue;
+      }
+
+      // Same as trimming the name
+      int nameEnd = colon;
+      while (i < nameEnd && rawText.charAt(i) <= ' ') {
+        i++;
+      }
+      while (nameEnd > i && rawText.charAt(nameEnd - 1) <= ' ') {
+        nameEnd--;
+      }
+      int field = findFieldName(names, rawText, i, nameEnd);
 
-  static String matchSingleDoCoMoPrefixedField(String prefix, String rawText, boolean trim) {
-    return matchSinglePrefixedField(prefix, rawText, ';', trim);
+      if (backslash >= 0 && backslash < colon) {
+        backslash = rawText.indexOf((int) '\\', colon + 1);
+      }
+      String value = null;
+      if (backslash < 0 || backslash > end) {
+        if (field >= 0) {
+          value = rawText.substring(colon + 1, end);
+        }
+      } else {
+        // The value has an escape, maybe of a semicolon, so go through it character by character
+        StringBuffer unescaped = null;
+        if (field >= 0) {
+          unescaped = new StringBuffer(max - colon);
+          unescaped.append(rawText.substring(colon + 1, backslash));
+        }
+        end = backslash;
+        while (end < max) {
+          char c = rawText.charAt(end);
+          if (c == ';') {
+            break;
+          }
+          if (c == '\\') {
+            end++;
+            if (end == max) {
+              break;
+            }
+            c = rawText.charAt(end);
+          }
+          if (unescaped != null) {
+            unescaped.append(c);
+          }
+          end++;
+        }
+        if (unescaped != null) {
+          value = unescaped.toString();
+        }
+        backslash = rawText.indexOf((int) '\\', end);
+      }
+      if (field >= 0) {
+        addFieldValue(fields, field, value);
+      }
+      i = end + 1;
+    }
+    return fields;
   }
 
 }
@@ -18,6 +18,8 @@ package com.google.zxing.client.result;
 
 import com.google.zxing.Result;
 
+import java.util.Vector;
+
 /**
  * Implements the "MECARD" address book entry format.
  *
@@ -35,31 +37,44 @@ import com.google.zxing.Result;
  */
 final class AddressBookDoCoMoResultParser extends AbstractDoCoMoResultParser {
 
+  private static final String[] FIELD_NAMES =
+      {"N", "SOUND", "TEL", "EMAIL", "NOTE", "ADR", "BDAY", "URL", "ORG"};
+  private static final int NAME = 0;
+  private static final int SOUND = 1;
+  private static final int TEL = 2;
+  private static final int EMAIL = 3;
+  private static final int NOTE = 4;
+  private static final int ADR = 5;
+  private static final int BDAY = 6;
+  private static final int URL = 7;
+  private static final int ORG = 8;
+
   public static AddressBookParsedResult parse(Result result) {
     String rawText = result.getText();
     if (rawText == null || !rawText.startsWith("MECARD:")) {
       return null;
     }
-    String[] rawName = matchDoCoMoPrefixedField("N:", rawText, true);
+    Vector[] fields = parseDoCoMoFields(rawText, 7, FIELD_NAMES);
+    String[] rawName = getFieldValues(fields[NAME], true);
     if (rawName == null) {
       return null;
     }
     String name = parseName(rawName[0]);
-    String pronunciation = matchSingleDoCoMoPrefixedField("SOUND:", rawText, true);
-    String[] phoneNumbers = matchDoCoMoPrefixedField("TEL:", rawText, true);
-    String[] emails = matchDoCoMoPrefixedField("EMAIL:", rawText, true);
-    String note = matchSingleDoCoMoPrefixedField("NOTE:", rawText, false);
-    String address = matchSingleDoCoMoPrefixedField("ADR:", rawText, true);
-    String birthday = matchSingleDoCoMoPrefixedField("BDAY:", rawText, true);
+    String pronunciation = getSingleFieldValue(fields[SOUND], true);
+    String[] phoneNumbers = getFieldValues(fields[TEL], true);
+    String[] emails = getFieldValues(fields[EMAIL], true);
+    String note = getSingleFieldValue(fields[NOTE], false);
+    String address = getSingleFieldValue(fields[ADR], true);
+    String birthday = getSingleFieldValue(fields[BDAY], true);
     if (birthday != null && !isStringOfDigits(birthday, 8)) {
       // No reason to throw out the whole card because the birthday is formatted wrong.
       birthday = null;
     }
-    String url = matchSingleDoCoMoPrefixedField("URL:", rawText, true);
+    String url = getSingleFieldValue(fields[URL], true);
 
     // Although ORG may not be strictly legal in MECARD, it does exist in VCARD and we might as well
     // honor it when found in the wild.
-    String org = matchSingleDoCoMoPrefixedField("ORG:", rawText, true);
+    String org = getSingleFieldValue(fields[ORG], true);
 
     return new AddressBookParsedResult(maybeWrap(name),
                                        pronunciation,
@@ -33,21 +33,33 @@ final class BizcardResultParser extends AbstractDoCoMoResultParser {
   // like the DoCoMo MECARD format, but this is not technically one of 
   // DoCoMo's proposed formats
 
+  private static final String[] FIELD_NAMES = {"N", "X", "T", "C", "A", "B", "M", "F", "E"};
+  private static final int FIRST_NAME = 0;
+  private static final int LAST_NAME = 1;
+  private static final int TITLE = 2;
+  private static final int ORG = 3;
+  private static final int ADDRESS = 4;
+  private static final int PHONE_NUMBER_1 = 5;
+  private static final int PHONE_NUMBER_2 = 6;
+  private static final int PHONE_NUMBER_3 = 7;
+  private static final int EMAIL = 8;
+
   public static AddressBookParsedResult parse(Result result) {
     String rawText = result.getText();
     if (rawText == null || !rawText.startsWith("BIZCARD:")) {
       return null;
     }
-    String firstName = matchSingleDoCoMoPrefixedField("N:", rawText, true);
-    String lastName = matchSingleDoCoMoPrefixedField("X:", rawText, true);
+    Vector[] fields = parseDoCoMoFields(rawText, 8, FIELD_NAMES);
+    String firstName = getSingleFieldValue(fields[FIRST_NAME], true);
+    String lastName = getSingleFieldValue(fields[LAST_NAME], true);
     String fullName = buildName(firstName, lastName);
-    String title = matchSingleDoCoMoPrefixedField("T:", rawText, true);
-    String org = matchSingleDoCoMoPrefixedField("C:", rawText, true);
-    String address = matchSingleDoCoMoPrefixedField("A:", rawText, true);
-    String phoneNumber1 = matchSingleDoCoMoPrefixedField("B:", rawText, true);
-    String phoneNumber2 = matchSingleDoCoMoPrefixedField("M:", rawText, true);
-    String phoneNumber3 = matchSingleDoCoMoPrefixedField("F:", rawText, true);
-    String email = matchSingleDoCoMoPrefixedField("E:", rawText, true);
+    String title = getSingleFieldValue(fields[TITLE], true);
+    String org = getSingleFieldValue(fields[ORG], true);
+    String address = getSingleFieldValue(fields[ADDRESS], true);
+    String phoneNumber1 = getSingleFieldValue(fields[PHONE_NUMBER_1], true);
+    String phoneNumber2 = getSingleFieldValue(fields[PHONE_NUMBER_2], true);
+    String phoneNumber3 = getSingleFieldValue(fields[PHONE_NUMBER_3], true);
+    String email = getSingleFieldValue(fields[EMAIL], true);
 
     return new AddressBookParsedResult(maybeWrap(fullName),
                                        null,
@@ -18,11 +18,17 @@ package com.google.zxing.client.result;
 
 import com.google.zxing.Result;
 
+import java.util.Vector;
+
 /**
  * @author Sean Owen
  */
 final class BookmarkDoCoMoResultParser extends AbstractDoCoMoResultParser {
 
+  private static final String[] FIELD_NAMES = {"TITLE", "URL"};
+  private static final int TITLE = 0;
+  private static final int URL = 1;
+
   private BookmarkDoCoMoResultParser() {
   }
 
@@ -31,8 +37,9 @@ final class BookmarkDoCoMoResultParser extends AbstractDoCoMoResultParser {
     if (rawText == null || !rawText.startsWith("MEBKM:")) {
       return null;
     }
-    String title = matchSingleDoCoMoPrefixedField("TITLE:", rawText, true);
-    String[] rawUri = matchDoCoMoPrefixedField("URL:", rawText, true);
+    Vector[] fields = parseDoCoMoFields(rawText, 6, FIELD_NAMES);
+    String title = getSingleFieldValue(fields[TITLE], true);
+    String[] rawUri = getFieldValues(fields[URL], true);
     if (rawUri == null) {
       return null;
     }
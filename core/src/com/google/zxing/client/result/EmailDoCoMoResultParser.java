@@ -18,6 +18,8 @@ package com.google.zxing.client.result;
 
 import com.google.zxing.Result;
 
+import java.util.Vector;
+
 /**
  * Implements the "MATMSG" email message entry format.
  *
@@ -30,12 +32,18 @@ final class EmailDoCoMoResultParser extends AbstractDoCoMoResultParser {
   private static final char[] ATEXT_SYMBOLS =
       {'@','.','!','#','$','%','&','\'','*','+','-','/','=','?','^','_','`','{','|','}','~'};
 
+  private static final String[] FIELD_NAMES = {"TO", "SUB", "BODY"};
+  private static final int TO = 0;
+  private static final int SUB = 1;
+  private static final int BODY = 2;
+
   public static EmailAddressParsedResult parse(Result result) {
     String rawText = result.getText();
     if (rawText == null || !rawText.startsWith("MATMSG:")) {
       return null;
     }
-    String[] rawTo = matchDoCoMoPrefixedField("TO:", rawText, true);
+    Vector[] fields = parseDoCoMoFields(rawText, 7, FIELD_NAMES);
+    String[] rawTo = getFieldValues(fields[TO], true);
     if (rawTo == null) {
       return null;
     }
@@ -43,8 +51,8 @@ final class EmailDoCoMoResultParser extends AbstractDoCoMoResultParser {
     if (!isBasicallyValidEmailAddress(to)) {
       return null;
     }
-    String subject = matchSingleDoCoMoPrefixedField("SUB:", rawText, false);
-    String body = matchSingleDoCoMoPrefixedField("BODY:", rawText, false);
+    String subject = getSingleFieldValue(fields[SUB], false);
+    String body = getSingleFieldValue(fields[BODY], false);
     return new EmailAddressParsedResult(to, subject, body, "mailto:" + to);
   }
 
@@ -34,44 +34,199 @@ import java.util.Vector;
  */
 public abstract class ResultParser {
 
+  // One bit per parser, for those which may accept a given text
+  private static final int BOOKMARK_DOCOMO = 1 << 0;
+  private static final int ADDRESS_BOOK_DOCOMO = 1 << 1;
+  private static final int EMAIL_DOCOMO = 1 << 2;
+  private static final int ADDRESS_BOOK_AU = 1 << 3;
+  private static final int VCARD = 1 << 4;
+  private static final int BIZCARD = 1 << 5;
+  private static final int VEVENT = 1 << 6;
+  private static final int EMAIL_ADDRESS = 1 << 7;
+  private static final int TEL = 1 << 8;
+  private static final int SMS_MMS = 1 << 9;
+  private static final int GEO = 1 << 10;
+  private static final int URLTO = 1 << 11;
+  private static final int URI = 1 << 12;
+  private static final int ISBN = 1 << 13;
+  private static final int PRODUCT = 1 << 14;
+  private static final int ALL_PARSERS = (1 << 15) - 1;
+
   public static ParsedResult parseResult(Result theResult) {
     // This is a bit messy, but given limited options in MIDP / CLDC, this may well be the simplest
     // way to go about this. For example, we have no reflection available, really.
-    // Order is important here.
+    // Order is important here. Parsers which cannot accept the text are skipped, which does
+    // not change which one matches first.
+    String rawText = theResult.getText();
+    int candidates = prefixCandidates(rawText);
     ParsedResult result;
-    if ((result = BookmarkDoCoMoResultParser.parse(theResult)) != null) {
+    // The DoCoMo formats come first and go by prefix alone, so try them before looking further
+    if ((candidates & BOOKMARK_DOCOMO) != 0 &&
+        (result = BookmarkDoCoMoResultParser.parse(theResult)) != null) {
       return result;
-    } else if ((result = AddressBookDoCoMoResultParser.parse(theResult)) != null) {
+    } else if ((candidates & ADDRESS_BOOK_DOCOMO) != 0 &&
+        (result = AddressBookDoCoMoResultParser.parse(theResult)) != null) {
       return result;
-    } else if ((result = EmailDoCoMoResultParser.parse(theResult)) != null) {
+    } else if ((candidates & EMAIL_DOCOMO) != 0 &&
+        (result = EmailDoCoMoResultParser.parse(theResult)) != null) {
       return result;
-    } else if ((result = AddressBookAUResultParser.parse(theResult)) != null) {
+    }
+    candidates |= contentCandidates(rawText);
+    if ((candidates & ADDRESS_BOOK_AU) != 0 &&
+        (result = AddressBookAUResultParser.parse(theResult)) != null) {
       return result;
-    } else if ((result = VCardResultParser.parse(theResult)) != null) {
+    } else if ((candidates & VCARD) != 0 &&
+        (result = VCardResultParser.parse(theResult)) != null) {
       return result;
-    } else if ((result = BizcardResultParser.parse(theResult)) != null) {
+    } else if ((candidates & BIZCARD) != 0 &&
+        (result = BizcardResultParser.parse(theResult)) != null) {
       return result;
-    } else if ((result = VEventResultParser.parse(theResult)) != null) {
+    } else if ((candidates & VEVENT) != 0 &&
+        (result = VEventResultParser.parse(theResult)) != null) {
       return result;
-    } else if ((result = EmailAddressResultParser.parse(theResult)) != null) {
+    } else if ((candidates & EMAIL_ADDRESS) != 0 &&
+        (result = EmailAddressResultParser.parse(theResult)) != null) {
       return result;
-    } else if ((result = TelResultParser.parse(theResult)) != null) {
+    } else if ((candidates & TEL) != 0 &&
+        (result = TelResultParser.parse(theResult)) != null) {
       return result;
-    } else if ((result = SMSMMSResultParser.parse(theResult)) != null) {
+    } else if ((candidates & SMS_MMS) != 0 &&
+        (result = SMSMMSResultParser.parse(theResult)) != null) {
       return result;
-    } else if ((result = GeoResultParser.parse(theResult)) != null) {
+    } else if ((candidates & GEO) != 0 &&
+        (result = GeoResultParser.parse(theResult)) != null) {
       return result;
-    } else if ((result = URLTOResultParser.parse(theResult)) != null) {
+    } else if ((candidates & URLTO) != 0 &&
+        (result = URLTOResultParser.parse(theResult)) != null) {
       return result;
-    } else if ((result = URIResultParser.parse(theResult)) != null) {
+    } else if ((candidates & URI) != 0 &&
+        (result = URIResultParser.parse(theResult)) != null) {
       return result;
-    } else if ((result = ISBNResultParser.parse(theResult)) != null) {
+    } else if ((candidates & ISBN) != 0 &&
+        (result = ISBNResultParser.parse(theResult)) != null) {
       // We depend on ISBN parsing coming before UPC, as it is a subset.
       return result;
-    } else if ((result = ProductResultParser.parse(theResult)) != null) {
+    } else if ((candidates & PRODUCT) != 0 &&
+        (result = ProductResultParser.parse(theResult)) != null) {
       return result;
     }
-    return new TextParsedResult(theResult.getText(), null);
+    return new TextParsedResult(rawText, null);
+  }
+
+  /**
+   * <p>Works out from its first character which parsers of prefixed formats could possibly
+   * accept some text. Like {@link #contentCandidates(String)}, each test is only a necessary
+   * condition for its parser, which still makes its own checks, so a parser left out would have
+   * returned null anyway.</p>
+   *
+   * @param rawText decoded text, possibly null
+   * @return bits for each parser worth trying
+   */
+  private static int prefixCandidates(String rawText) {
+    if (rawText == null) {
+      return ALL_PARSERS;
+    }
+    if (rawText.length() == 0) {
+      return 0;
+    }
+    switch (rawText.charAt(0)) {
+      case 'M':
+        // MEBKM:, MECARD:, MATMSG:, MAILTO:, MMS:, MMSTO:
+        return BOOKMARK_DOCOMO | ADDRESS_BOOK_DOCOMO | EMAIL_DOCOMO | EMAIL_ADDRESS | SMS_MMS;
+      case 'm':
+        // mailto:, mms:, mmsto:
+        return EMAIL_ADDRESS | SMS_MMS;
+      case 'B':
+        // BEGIN:VCARD, BIZCARD:
+        return VCARD | BIZCARD;
+      case 'T':
+      case 't':
+        return TEL;
+      case 'S':
+      case 's':
+        return SMS_MMS;
+      case 'G':
+      case 'g':
+        return GEO;
+      case 'U':
+      case 'u':
+        return URLTO;
+      default:
+        return 0;
+    }
+  }
+
+  /**
+   * <p>Works out, in one pass over some text, which parsers of formats that need not be at its
+   * start could possibly accept it.</p>
+   *
+   * @param rawText decoded text, possibly null
+   * @return bits for each parser worth trying
+   */
+  private static int contentCandidates(String rawText) {
+    if (rawText == null) {
+      return ALL_PARSERS;
+    }
+    int length = rawText.length();
+    boolean hasAt = false;
+    boolean hasColon = false;
+    boolean hasPeriod = false;
+    boolean hasWhitespace = false;
+    boolean hasCRLF = false;
+    boolean allDigits = true;
+    for (int i = 0; i < length; i++) {
+      char c = rawText.charAt(i);
+      if (c > '@') {
+        // Letters, mostly, which say nothing here
+        allDigits = false;
+        continue;
+      }
+      if (c >= '0' && c <= '9') {
+        continue;
+      }
+      allDigits = false;
+      switch (c) {
+        case '@':
+          hasAt = true;
+          break;
+        case ':':
+          hasColon = true;
+          break;
+        case '.':
+          hasPeriod = true;
+          break;
+        case ' ':
+          hasWhitespace = true;
+          break;
+        case '\n':
+          hasWhitespace = true;
+          if (i > 0 && rawText.charAt(i - 1) == '\r') {
+            hasCRLF = true;
+          }
+          break;
+      }
+    }
+
+    int candidates = 0;
+    if (hasCRLF) {
+      candidates |= ADDRESS_BOOK_AU;
+    }
+    if (hasColon) {
+      candidates |= VEVENT;
+    }
+    if (hasAt) {
+      candidates |= EMAIL_ADDRESS;
+    }
+    if (!hasWhitespace && (hasPeriod || hasColon)) {
+      candidates |= URI;
+    }
+    if (length == 13) {
+      candidates |= ISBN;
+    }
+    if (allDigits) {
+      candidates |= PRODUCT;
+    }
+    return candidates;
   }
 
   protected static void maybeAppend(String value, StringBuffer result) {
@@ -283,6 +438,64 @@ public abstract class ResultParser {
     return matches == null ? null : matches[0];
   }
 
+  /**
+   * @param names field names to look for
+   * @return index in names of the name which is the text from start to end, or -1 if none is
+   */
+  static int findFieldName(String[] names, String text, int start, int end) {
+    int length = end - start;
+    if (length == 0) {
+      return -1;
+    }
+    char first = text.charAt(start);
+    for (int i = 0; i < names.length; i++) {
+      String name = names[i];
+      if (name.length() == length && name.charAt(0) == first && text.startsWith(name, start)) {
+        return i;
+      }
+    }
+    return -1;
+  }
+
+  /**
+   * <p>Records a value of a field, among the fields parsed from a record.</p>
+   *
+   * @param fields for each field, a {@link Vector} of its values in the order found, or null
+   */
+  static void addFieldValue(Vector[] fields, int field, String value) {
+    Vector values = fields[field];
+    if (values == null) {
+      values = new Vector(3);
+      fields[field] = values;
+    }
+    values.addElement(value);
+  }
+
+  /**
+   * @param values a field's values, as built by {@link #addFieldValue(Vector[], int, String)}
+   * @return all of them in the order found, or null if there are none
+   */
+  static String[] getFieldValues(Vector values, boolean trim) {
+    if (values == null) {
+      return null;
+    }
+    String[] result = toStringArray(values);
+    if (trim) {
+      for (int i = 0; i < result.length; i++) {
+        result[i] = result[i].trim();
+      }
+    }
+    return result;
+  }
+
+  static String getSingleFieldValue(Vector values, boolean trim) {
+    if (values == null) {
+      return null;
+    }
+    String value = (String) values.elementAt(0);
+    return trim ? value.trim() : value;
+  }
+
   static String[] toStringArray(Vector strings) {
     int size = strings.size();
     String[] result = new String[size];
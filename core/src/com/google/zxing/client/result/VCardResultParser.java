@@ -28,6 +28,19 @@ import java.util.Vector;
  */
 final class VCardResultParser extends ResultParser {
 
+  private static final String[] FIELD_NAMES =
+      {"FN", "N", "TEL", "EMAIL", "NOTE", "ADR", "ORG", "BDAY", "TITLE", "URL"};
+  private static final int FORMATTED_NAME = 0;
+  private static final int NAME = 1;
+  private static final int TEL = 2;
+  private static final int EMAIL = 3;
+  private static final int NOTE = 4;
+  private static final int ADR = 5;
+  private static final int ORG = 6;
+  private static final int BDAY = 7;
+  private static final int TITLE = 8;
+  private static final int URL = 9;
+
   private VCardResultParser() {
   }
 
@@ -36,79 +49,60 @@ final class VCardResultParser extends ResultParser {
     if (rawText == null || !rawText.startsWith("BEGIN:VCARD") || !rawText.endsWith("END:VCARD")) {
       return null;
     }
-    String[] names = matchVCardPrefixedField("FN", rawText, true);
+    Vector[] fields = parseVCardFields(rawText, FIELD_NAMES);
+    String[] names = getFieldValues(fields[FORMATTED_NAME], true);
     if (names == null) {
       // If no display names found, look for regular name fields and format them
-      names = matchVCardPrefixedField("N", rawText, true);
+      names = getFieldValues(fields[NAME], true);
       formatNames(names);
     }
-    String[] phoneNumbers = matchVCardPrefixedField("TEL", rawText, true);
-    String[] emails = matchVCardPrefixedField("EMAIL", rawText, true);
-    String note = matchSingleVCardPrefixedField("NOTE", rawText, false);
-    String address = matchSingleVCardPrefixedField("ADR", rawText, true);
+    String[] phoneNumbers = getFieldValues(fields[TEL], true);
+    String[] emails = getFieldValues(fields[EMAIL], true);
+    String note = getSingleFieldValue(fields[NOTE], false);
+    String address = getSingleFieldValue(fields[ADR], true);
     address = formatAddress(address);
-    String org = matchSingleVCardPrefixedField("ORG", rawText, true);
-    String birthday = matchSingleVCardPrefixedField("BDAY", rawText, true);
+    String org = getSingleFieldValue(fields[ORG], true);
+    String birthday = getSingleFieldValue(fields[BDAY], true);
     if (birthday != null && !isStringOfDigits(birthday, 8)) {
       return null;
     }
-    String title = matchSingleVCardPrefixedField("TITLE", rawText, true);
-    String url = matchSingleVCardPrefixedField("URL", rawText, true);
+    String title = getSingleFieldValue(fields[TITLE], true);
+    String url = getSingleFieldValue(fields[URL], true);
     return new AddressBookParsedResult(names, null, phoneNumbers, emails, note, address, org,
         birthday, title, url);
   }
 
-  private static String[] matchVCardPrefixedField(String prefix, String rawText, boolean trim) {
-    Vector matches = null;
-    int i = 0;
-    int max = rawText.length();
-    while (i < max) {
-      i = rawText.indexOf(prefix, i);
-      if (i < 0) {
-        break;
-      }
-      if (i > 0 && rawText.charAt(i - 1) != '\n') {
-        // then this didn't start a new token, we matched in the middle of something
-        i++;
-        continue;
-      }
-      i += prefix.length(); // Skip past this prefix we found to start
-      if (rawText.charAt(i) != ':' && rawText.charAt(i) != ';') {
-        continue;
-      }
-      while (rawText.charAt(i) != ':') { // Skip until a colon
-        i++;
-      }
-      i++; // skip colon
-      int start = i; // Found the start of a match here
-      i = rawText.indexOf((int) '\n', i); // Really, ends in \r\n
-      if (i < 0) {
-        // No terminating end character? uh, done. Set i such that loop terminates and break
-        i = max;
-      } else if (i > start) {
-        // found a match
-        if (matches == null) {
-          matches = new Vector(3); // lazy init
-        }
-        String element = rawText.substring(start, i);
-        if (trim) {
-          element = element.trim();
+  /**
+   * <p>Splits the lines of a record like a vCard into its fields, in one pass. Each line is a
+   * name, perhaps followed by parameters after a semicolon, then a colon and the value. Lines
+   * with an empty value, and a last line with no line ending, are left out.</p>
+   *
+   * @param rawText the record
+   * @param names names of the fields to collect
+   * @return for each name, untrimmed values as for {@link #getFieldValues(Vector, boolean)}
+   */
+  static Vector[] parseVCardFields(String rawText, String[] names) {
+    Vector[] fields = new Vector[names.length];
+    int lineStart = 0;
+    int lineEnd;
+    // Really, lines end in \r\n
+    while ((lineEnd = rawText.indexOf((int) '\n', lineStart)) >= 0) {
+      int nameEnd = -1;
+      for (int i = lineStart; i < lineEnd; i++) {
+        char c = rawText.charAt(i);
+        if (c == ';' && nameEnd < 0) {
+          nameEnd = i;
+        } else if (c == ':') {
+          int field = findFieldName(names, rawText, lineStart, nameEnd < 0 ? i : nameEnd);
+          if (field >= 0 && i + 1 < lineEnd) {
+            addFieldValue(fields, field, rawText.substring(i + 1, lineEnd));
+          }
+          break;
         }
-        matches.addElement(element);
-        i++;
-      } else {
-        i++;
       }
+      lineStart = lineEnd + 1;
     }
-    if (matches == null || matches.isEmpty()) {
-      return null;
-    }
-    return toStringArray(matches);
-  }
-
-  static String matchSingleVCardPrefixedField(String prefix, String rawText, boolean trim) {
-    String[] values = matchVCardPrefixedField(prefix, rawText, trim);
-    return values == null ? null : values[0];
+    return fields;
   }
 
   private static String formatAddress(String address) {
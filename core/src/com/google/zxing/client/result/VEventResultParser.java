@@ -18,6 +18,8 @@ package com.google.zxing.client.result;
 
 import com.google.zxing.Result;
 
+import java.util.Vector;
+
 /**
  * Partially implements the iCalendar format's "VEVENT" format for specifying a
  * calendar event. See RFC 2445. This supports SUMMARY, DTSTART and DTEND fields.
@@ -26,6 +28,11 @@ import com.google.zxing.Result;
  */
 final class VEventResultParser extends ResultParser {
 
+  private static final String[] FIELD_NAMES = {"SUMMARY", "DTSTART", "DTEND"};
+  private static final int SUMMARY = 0;
+  private static final int DTSTART = 1;
+  private static final int DTEND = 2;
+
   private VEventResultParser() {
   }
 
@@ -43,9 +50,10 @@ final class VEventResultParser extends ResultParser {
       return null;
     }
 
-    String summary = VCardResultParser.matchSingleVCardPrefixedField("SUMMARY", rawText, true);
-    String start = VCardResultParser.matchSingleVCardPrefixedField("DTSTART", rawText, true);
-    String end = VCardResultParser.matchSingleVCardPrefixedField("DTEND", rawText, true);
+    Vector[] fields = VCardResultParser.parseVCardFields(rawText, FIELD_NAMES);
+    String summary = getSingleFieldValue(fields[SUMMARY], true);
+    String start = getSingleFieldValue(fields[DTSTART], true);
+    String end = getSingleFieldValue(fields[DTEND], true);
     try {
       return new CalendarParsedResult(summary, start, end, null, null, null);
     } catch (IllegalArgumentException iae) {
@@ -23,14 +23,16 @@ import java.util.Vector;
 /**
  * <p>Encapsulates the result of decoding a matrix of bits. This typically
  * applies to 2D barcode formats. For now it contains the raw bytes obtained,
- * as well as a String interpretation of those bytes, if applicable.</p>
+ * as well as a String interpretation of those bytes, if applicable. The String
+ * may be worked out only when it is first asked for.</p>
  *
  * @author Sean Owen
  */
 public final class DecoderResult {
 
   private final byte[] rawBytes;
-  private final String text;
+  private String text;
+  private final TextSegments textSegments;
   private final Vector byteSegments;
   private final ErrorCorrectionLevel ecLevel;
 
@@ -40,6 +42,25 @@ public final class DecoderResult {
     }
     this.rawBytes = rawBytes;
     this.text = text;
+    this.textSegments = null;
+    this.byteSegments = byteSegments;
+    this.ecLevel = ecLevel;
+  }
+
+  /**
+   * @param rawBytes bytes read from the barcode
+   * @param textSegments text encoded in those bytes, decoded into a String on the first call
+   *  to {@link #getText()}
+   * @param byteSegments byte mode segments, if any, else null
+   * @param ecLevel error correction level, if applicable
+   */
+  public DecoderResult(byte[] rawBytes, TextSegments textSegments, Vector byteSegments,
+                       ErrorCorrectionLevel ecLevel) {
+    if (rawBytes == null && textSegments == null) {
+      throw new IllegalArgumentException();
+    }
+    this.rawBytes = rawBytes;
+    this.textSegments = textSegments;
     this.byteSegments = byteSegments;
     this.ecLevel = ecLevel;
   }
@@ -48,7 +69,14 @@ public final class DecoderResult {
     return rawBytes;
   }
 
-  public String getText() {
+  /**
+   * @return the text, decoded from its segments on the first call. Results are passed between
+   *  threads, so this is synchronized.
+   */
+  public synchronized String getText() {
+    if (text == null && textSegments != null) {
+      text = textSegments.toString();
+    }
     return text;
   }
 
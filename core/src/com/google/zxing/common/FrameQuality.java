@@ -0,0 +1,129 @@
+/*
+ * Copyright 2010 ZXing authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.zxing.common;
+
+import com.google.zxing.LuminanceSource;
+
+/**
+ * <p>A cheap estimate of whether a frame is worth decoding, made from the same four sampled rows
+ * that {@link GlobalHistogramBinarizer} uses for its histogram. Continuous scanning sees many
+ * frames which are motion blurred or out of focus, and those can be skipped in far less time than
+ * a failed decode takes.</p>
+ *
+ * <p>Contrast is the distance between the black and white histogram peaks, found exactly as the
+ * binarizer finds them, so a frame rejected for contrast would have been rejected by the
+ * binarizer anyway. Sharpness compares the steepest luminance gradient in each sampled row to the
+ * range of luminance in that row: a clean edge goes from black to white within a pixel or two,
+ * while a blurred edge takes many.</p>
+ */
+public final class FrameQuality {
+
+  /**
+   * Frames at or below this contrast, in luminance levels, cannot be binarized.
+   */
+  public static final int MIN_CONTRAST =
+      GlobalHistogramBinarizer.MIN_PEAK_SEPARATION << GlobalHistogramBinarizer.LUMINANCE_SHIFT;
+
+  /**
+   * Frames below this sharpness are too blurred to decode. An ideal edge scores 100, and an edge
+   * spread over n pixels scores about 200 / n.
+   */
+  public static final int MIN_SHARPNESS = 15;
+
+  private final int contrast;
+  private final int sharpness;
+
+  private FrameQuality(int contrast, int sharpness) {
+    this.contrast = contrast;
+    this.sharpness = sharpness;
+  }
+
+  /**
+   * Samples four rows of the source. This reads a small fraction of the image and allocates one
+   * row buffer.
+   *
+   * @param source The frame to judge.
+   * @return The scores for this frame.
+   */
+  public static FrameQuality estimate(LuminanceSource source) {
+    int width = source.getWidth();
+    int height = source.getHeight();
+    int left = width / 5;
+    int right = (width << 2) / 5;
+    int[] buckets = new int[GlobalHistogramBinarizer.LUMINANCE_BUCKETS];
+    byte[] luminances = null;
+    int totalGradient = 0;
+    int totalRange = 0;
+    for (int y = 1; y < 5; y++) {
+      luminances = source.getRow(height * y / 5, luminances);
+      int min = 255;
+      int max = 0;
+      int maxGradient = 0;
+      int previous = luminances[left] & 0xff;
+      int current = previous;
+      for (int x = left; x < right; x++) {
+        int next = x + 1 < width ? luminances[x + 1] & 0xff : current;
+        buckets[current >> GlobalHistogramBinarizer.LUMINANCE_SHIFT]++;
+        if (current < min) {
+          min = current;
+        }
+        if (current > max) {
+          max = current;
+        }
+        int gradient = next > previous ? next - previous : previous - next;
+        if (gradient > maxGradient) {
+          maxGradient = gradient;
+        }
+        previous = current;
+        current = next;
+      }
+      totalGradient += maxGradient;
+      totalRange += max - min;
+    }
+
+    int contrast = GlobalHistogramBinarizer.getPeakSeparation(buckets) <<
+        GlobalHistogramBinarizer.LUMINANCE_SHIFT;
+    int sharpness = totalRange == 0 ? 0 : Math.min(100, 100 * totalGradient / totalRange);
+    return new FrameQuality(contrast, sharpness);
+  }
+
+  /**
+   * @return The distance between the dark and light histogram peaks, 0 to 255.
+   */
+  public int getContrast() {
+    return contrast;
+  }
+
+  /**
+   * @return How steep the edges in the frame are, 0 to 100.
+   */
+  public int getSharpness() {
+    return sharpness;
+  }
+
+  /**
+   * @return false if the frame is too flat or too blurred to be worth decoding.
+   */
+  public boolean isWorthDecoding() {
+    return contrast > MIN_CONTRAST && sharpness >= MIN_SHARPNESS;
+  }
+
+  public String toString() {
+    return "contrast " + contrast + ", sharpness " + sharpness;
+  }
+
+}
@@ -32,8 +32,10 @@ import com.google.zxing.ReaderException;
 public final class GlobalHistogramBinarizer extends Binarizer {
 
   private static final int LUMINANCE_BITS = 5;
-  private static final int LUMINANCE_SHIFT = 8 - LUMINANCE_BITS;
-  private static final int LUMINANCE_BUCKETS = 1 << LUMINANCE_BITS;
+  static final int LUMINANCE_SHIFT = 8 - LUMINANCE_BITS;
+  static final int LUMINANCE_BUCKETS = 1 << LUMINANCE_BITS;
+  // Peaks this close together, in buckets, are too little contrast to binarize.
+  static final int MIN_PEAK_SEPARATION = LUMINANCE_BUCKETS >> 4;
 
   private byte[] luminances = null;
   private int[] buckets = null;
@@ -133,33 +135,15 @@ public final class GlobalHistogramBinarizer extends Binarizer {
   }
 
   private static int estimateBlackPoint(int[] buckets) throws ReaderException {
-    // Find the tallest peak in the histogram.
     int numBuckets = buckets.length;
     int maxBucketCount = 0;
-    int firstPeak = 0;
-    int firstPeakSize = 0;
     for (int x = 0; x < numBuckets; x++) {
-      if (buckets[x] > firstPeakSize) {
-        firstPeak = x;
-        firstPeakSize = buckets[x];
-      }
       if (buckets[x] > maxBucketCount) {
         maxBucketCount = buckets[x];
       }
     }
-
-    // Find the second-tallest peak which is somewhat far from the tallest peak.
-    int secondPeak = 0;
-    int secondPeakScore = 0;
-    for (int x = 0; x < numBuckets; x++) {
-      int distanceToBiggest = x - firstPeak;
-      // Encourage more distant second peaks by multiplying by square of distance.
-      int score = buckets[x] * distanceToBiggest * distanceToBiggest;
-      if (score > secondPeakScore) {
-        secondPeak = x;
-        secondPeakScore = score;
-      }
-    }
+    int firstPeak = findTallestPeak(buckets);
+    int secondPeak = findSecondPeak(buckets, firstPeak);
 
     // Make sure firstPeak corresponds to the black peak.
     if (firstPeak > secondPeak) {
@@ -172,7 +156,7 @@ public final class GlobalHistogramBinarizer extends Binarizer {
     // than waste time trying to decode the image, and risk false positives.
     // TODO: It might be worth comparing the brightest and darkest pixels seen, rather than the
     // two peaks, to determine the contrast.
-    if (secondPeak - firstPeak <= numBuckets >> 4) {
+    if (secondPeak - firstPeak <= MIN_PEAK_SEPARATION) {
       throw ReaderException.getInstance();
     }
 
@@ -191,4 +175,49 @@ public final class GlobalHistogramBinarizer extends Binarizer {
     return bestValley << LUMINANCE_SHIFT;
   }
 
+  /**
+   * Measures contrast the same way the black point estimate does, so that a frame can be judged
+   * before it is binarized.
+   *
+   * @param buckets A histogram of LUMINANCE_BUCKETS buckets.
+   * @return The number of buckets between the black and white peaks.
+   */
+  static int getPeakSeparation(int[] buckets) {
+    int firstPeak = findTallestPeak(buckets);
+    int secondPeak = findSecondPeak(buckets, firstPeak);
+    if (buckets[secondPeak] == 0) {
+      // Every sample fell in one bucket, so there is no second peak at all.
+      return 0;
+    }
+    return firstPeak > secondPeak ? firstPeak - secondPeak : secondPeak - firstPeak;
+  }
+
+  private static int findTallestPeak(int[] buckets) {
+    int firstPeak = 0;
+    int firstPeakSize = 0;
+    for (int x = 0; x < buckets.length; x++) {
+      if (buckets[x] > firstPeakSize) {
+        firstPeak = x;
+        firstPeakSize = buckets[x];
+      }
+    }
+    return firstPeak;
+  }
+
+  // Finds the second-tallest peak which is somewhat far from the tallest peak.
+  private static int findSecondPeak(int[] buckets, int firstPeak) {
+    int secondPeak = 0;
+    int secondPeakScore = 0;
+    for (int x = 0; x < buckets.length; x++) {
+      int distanceToBiggest = x - firstPeak;
+      // Encourage more distant second peaks by multiplying by square of distance.
+      int score = buckets[x] * distanceToBiggest * distanceToBiggest;
+      if (score > secondPeakScore) {
+        secondPeak = x;
+        secondPeakScore = score;
+      }
+    }
+    return secondPeak;
+  }
+
 }
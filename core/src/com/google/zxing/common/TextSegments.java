@@ -0,0 +1,88 @@
+/*
+ * Copyright 2010 ZXing authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.zxing.common;
+
+import java.util.Vector;
+
+/**
+ * <p>Text read from a barcode, kept as the segments it was encoded in until it is first needed.
+ * Characters are kept as they are; bytes are kept with the name of their character encoding, so
+ * that working out the encoding and converting them costs nothing until {@link #toString()}.</p>
+ */
+public final class TextSegments {
+
+  private final Vector segments;
+  private int length;
+
+  public TextSegments() {
+    segments = new Vector(1);
+  }
+
+  /**
+   * @param characters text to add
+   */
+  public void append(String characters) {
+    if (characters.length() > 0) {
+      segments.addElement(characters);
+      length += characters.length();
+    }
+  }
+
+  /**
+   * @param bytes encoded text to add
+   * @param encoding name of the character encoding of the bytes, or null to guess it
+   */
+  public void append(byte[] bytes, String encoding) {
+    segments.addElement(new ByteSegment(bytes, encoding));
+    length += bytes.length;
+  }
+
+  /**
+   * @return the text of all segments, with bytes decoded as by
+   *  {@link StringUtils#decode(byte[], String)}
+   */
+  public String toString() {
+    int numSegments = segments.size();
+    if (numSegments == 1) {
+      return segmentText(segments.elementAt(0));
+    }
+    StringBuffer result = new StringBuffer(length);
+    for (int i = 0; i < numSegments; i++) {
+      result.append(segmentText(segments.elementAt(i)));
+    }
+    return result.toString();
+  }
+
+  private static String segmentText(Object segment) {
+    if (segment instanceof ByteSegment) {
+      ByteSegment byteSegment = (ByteSegment) segment;
+      return StringUtils.decode(byteSegment.bytes, byteSegment.encoding);
+    }
+    return (String) segment;
+  }
+
+  private static final class ByteSegment {
+    private final byte[] bytes;
+    private final String encoding;
+
+    ByteSegment(byte[] bytes, String encoding) {
+      this.bytes = bytes;
+      this.encoding = encoding;
+    }
+  }
+
+}
@@ -20,9 +20,6 @@ import com.google.zxing.ReaderException;
 import com.google.zxing.ResultPoint;
 import com.google.zxing.common.BitMatrix;
 
-import java.io.*;
-import java.util.*;
-
 /**
  * <p>A somewhat generic detector that looks for a barcode-like rectangular region within an image.
  * It looks within a mostly white region of an image for a region of black and white, but mostly
@@ -35,20 +32,13 @@ public final class MonochromeRectangleDetector {
   private static final int MAX_MODULES = 32;
 
   private final BitMatrix image;
-  FileWriter logFile;
-
+  // Where blackWhiteRange() last found a range
+  private int rangeStart;
+  private int rangeEnd;
 
   public MonochromeRectangleDetector(BitMatrix image) {
     this.image = image;
-	try{
-		String fileName = "logfile1";
-		logFile = new FileWriter(fileName);
-	}
-	catch(IOException e)
-	{
-			System.out.println("Cannot open destination file");
-	}
-}
+  }
 
   /**
    * <p>Detects a rectangular region of black and white -- mostly black -- with a region of mostly
@@ -61,23 +51,21 @@ public final class MonochromeRectangleDetector {
    * @throws ReaderException if no Data Matrix Code can be found
    */
   public ResultPoint[] detect() throws ReaderException {
-    
-	//Log.v("detect", "in MonochromeRectangleDetector");
-	try
-	{
-		logFile.write("inMonochromeRectangleDetector");
-	}
-	catch(IOException e)
-	{
-		System.out.println("Cannot write to file");
-	}
-	int height = image.getHeight();
+    int height = image.getHeight();
     int width = image.getWidth();
     int halfHeight = height >> 1;
     int halfWidth = width >> 1;
     int deltaY = Math.max(1, height / (MAX_MODULES << 3));
     int deltaX = Math.max(1, width / (MAX_MODULES << 3));
 
+    // The search below may scan most of the image before giving up. First make sure, cheaply,
+    // that the center row and column each cross a region which ends in white short of the edges
+    // of the image, as one surrounded by white must. Most images without a barcode fail here.
+    if (!isBounded(halfHeight, halfWidth >> 1, 0, width, true) ||
+        !isBounded(halfWidth, halfHeight >> 1, 0, height, false)) {
+      throw ReaderException.getInstance();
+    }
+
     int top = 0;
     int bottom = height;
     int left = 0;
@@ -99,7 +87,6 @@ public final class MonochromeRectangleDetector {
     pointA = findCornerFromCenter(halfWidth, 0, left, right,
         halfHeight, -deltaY, top, bottom, halfWidth >> 2);
 
-	//Log.v("detect", "pointA: " + pointA.getX() + ", " + pointA.getY() + " pointB: " + pointB.getX() + ", " + pointB.getY() + " pointC: " + pointC.getX() + ", " + pointC.getY() + " pointD: " + pointD.getX() + ", " + pointD.getY() );
     return new ResultPoint[] { pointA, pointB, pointC, pointD };
   }
 
@@ -123,51 +110,66 @@ public final class MonochromeRectangleDetector {
    */
   private ResultPoint findCornerFromCenter(int centerX, int deltaX, int left, int right,
       int centerY, int deltaY, int top, int bottom, int maxWhiteRun) throws ReaderException {
-    int[] lastRange = null;
+    boolean foundRange = false;
+    int lastStart = 0;
+    int lastEnd = 0;
     for (int y = centerY, x = centerX;
          y < bottom && y >= top && x < right && x >= left;
          y += deltaY, x += deltaX) {
-      int[] range;
+      boolean found;
       if (deltaX == 0) {
         // horizontal slices, up and down
-        range = blackWhiteRange(y, maxWhiteRun, left, right, true);
+        found = blackWhiteRange(y, maxWhiteRun, left, right, true);
       } else {
         // vertical slices, left and right
-        range = blackWhiteRange(x, maxWhiteRun, top, bottom, false);
+        found = blackWhiteRange(x, maxWhiteRun, top, bottom, false);
       }
-      if (range == null) {
-        if (lastRange == null) {
+      if (!found) {
+        if (!foundRange) {
           throw ReaderException.getInstance();
         }
         // lastRange was found
         if (deltaX == 0) {
           int lastY = y - deltaY;
-          if (lastRange[0] < centerX) {
-            if (lastRange[1] > centerX) {
+          if (lastStart < centerX) {
+            if (lastEnd > centerX) {
               // straddle, choose one or the other based on direction
-              return new ResultPoint(deltaY > 0 ? lastRange[0] : lastRange[1], lastY);
+              return new ResultPoint(deltaY > 0 ? lastStart : lastEnd, lastY);
             }
-            return new ResultPoint(lastRange[0], lastY);
+            return new ResultPoint(lastStart, lastY);
           } else {
-            return new ResultPoint(lastRange[1], lastY);
+            return new ResultPoint(lastEnd, lastY);
           }
         } else {
           int lastX = x - deltaX;
-          if (lastRange[0] < centerY) {
-            if (lastRange[1] > centerY) {
-              return new ResultPoint(lastX, deltaX < 0 ? lastRange[0] : lastRange[1]);
+          if (lastStart < centerY) {
+            if (lastEnd > centerY) {
+              return new ResultPoint(lastX, deltaX < 0 ? lastStart : lastEnd);
             }
-            return new ResultPoint(lastX, lastRange[0]);
+            return new ResultPoint(lastX, lastStart);
           } else {
-            return new ResultPoint(lastX, lastRange[1]);
+            return new ResultPoint(lastX, lastEnd);
           }
         }
       }
-      lastRange = range;
+      foundRange = true;
+      lastStart = rangeStart;
+      lastEnd = rangeEnd;
     }
     throw ReaderException.getInstance();
   }
 
+  /**
+   * @return true if the region of black and white pixels through the center of a row or column,
+   *  as found by {@link #blackWhiteRange(int, int, int, int, boolean)}, exists and does not reach
+   *  the edge of the image
+   */
+  private boolean isBounded(int fixedDimension, int maxWhiteRun, int minDim, int maxDim,
+      boolean horizontal) {
+    return blackWhiteRange(fixedDimension, maxWhiteRun, minDim, maxDim, horizontal) &&
+        rangeStart > minDim && rangeEnd < maxDim - 1;
+  }
+
   /**
    * Computes the start and end of a region of pixels, either horizontally or vertically, that could
    * be part of a Data Matrix barcode.
@@ -179,10 +181,10 @@ public final class MonochromeRectangleDetector {
    * @param minDim minimum pixel location, horizontally or vertically, to consider
    * @param maxDim maximum pixel location, horizontally or vertically, to consider
    * @param horizontal if true, we're scanning left-right, instead of up-down
-   * @return int[] with start and end of found range, or null if no such range is found
-   *  (e.g. only white was found)
+   * @return true if a range was found, in which case its start and end are left in rangeStart
+   *  and rangeEnd; false if not (e.g. only white was found)
    */
-  private int[] blackWhiteRange(int fixedDimension, int maxWhiteRun, int minDim, int maxDim,
+  private boolean blackWhiteRange(int fixedDimension, int maxWhiteRun, int minDim, int maxDim,
       boolean horizontal) {
 
     int center = (minDim + maxDim) >> 1;
@@ -227,7 +229,12 @@ public final class MonochromeRectangleDetector {
     }
     end--;
 
-    return end > start ? new int[]{start, end} : null;
+    if (end > start) {
+      rangeStart = start;
+      rangeEnd = end;
+      return true;
+    }
+    return false;
   }
 
 }
\ No newline at end of file
@@ -48,15 +48,9 @@ final class DataBlock {
     // Figure out the number and size of data blocks used by this version
     Version.ECBlocks ecBlocks = version.getECBlocks();
 
-    // First count the total number of data blocks
-    int totalBlocks = 0;
+    // Establish DataBlocks of the appropriate size and number of data codewords
     Version.ECB[] ecBlockArray = ecBlocks.getECBlocks();
-    for (int i = 0; i < ecBlockArray.length; i++) {
-      totalBlocks += ecBlockArray[i].getCount();
-    }
-
-    // Now establish DataBlocks of the appropriate size and number of data codewords
-    DataBlock[] result = new DataBlock[totalBlocks];
+    DataBlock[] result = new DataBlock[ecBlocks.getNumBlocks()];
     int numResultBlocks = 0;
     for (int j = 0; j < ecBlockArray.length; j++) {
       Version.ECB ecBlock = ecBlockArray[j];
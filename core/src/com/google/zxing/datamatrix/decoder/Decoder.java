@@ -46,10 +46,11 @@ public final class Decoder {
    * @throws ReaderException if the Data Matrix Code cannot be decoded
    */
   public DecoderResult decode(boolean[][] image) throws ReaderException {
-    int dimension = image.length;
-    BitMatrix bits = new BitMatrix(dimension);
-    for (int i = 0; i < dimension; i++) {
-      for (int j = 0; j < dimension; j++) {
+    int numRows = image.length;
+    int numColumns = numRows == 0 ? 0 : image[0].length;
+    BitMatrix bits = new BitMatrix(numColumns, numRows);
+    for (int i = 0; i < numRows; i++) {
+      for (int j = 0; j < numColumns; j++) {
         if (image[i][j]) {
           bits.set(j, i);
         }
@@ -77,12 +78,7 @@ public final class Decoder {
     // Separate into data blocks
     DataBlock[] dataBlocks = DataBlock.getDataBlocks(codewords, version);
 
-    // Count total number of data bytes
-    int totalBytes = 0;
-    for (int i = 0; i < dataBlocks.length; i++) {
-      totalBytes += dataBlocks[i].getNumDataCodewords();
-    }
-    byte[] resultBytes = new byte[totalBytes];
+    byte[] resultBytes = new byte[version.getECBlocks().getNumDataCodewords()];
     int resultOffset = 0;
 
     // Error-correct and copy data blocks together into a stream of bytes
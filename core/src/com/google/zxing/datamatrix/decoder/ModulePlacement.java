@@ -0,0 +1,219 @@
+/*
+ * Copyright 2010 ZXing authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.zxing.datamatrix.decoder;
+
+/**
+ * <p>Works out where each bit of each codeword lies in a Data Matrix symbol of a given
+ * {@link Version}, by running the ECC 200 placement algorithm once. Decoding then reads the
+ * codewords with one pass over the resulting table.</p>
+ *
+ * <p>Placement is defined over the mapping matrix: the symbol's data regions put side by side,
+ * without their finder and alignment patterns. The table instead gives positions in the whole
+ * symbol, so that the data regions need not be extracted first. Square and rectangular symbols
+ * are handled alike.</p>
+ *
+ * <p>See ISO 16022:2006, 5.8 and Annex F</p>
+ */
+final class ModulePlacement {
+
+  private final int numRows;
+  private final int numColumns;
+  private final int dataRegionSizeRows;
+  private final int dataRegionSizeColumns;
+  private final boolean[] placed;
+  private final int[] modules;
+  private int next;
+
+  private ModulePlacement(Version version) {
+    dataRegionSizeRows = version.getDataRegionSizeRows();
+    dataRegionSizeColumns = version.getDataRegionSizeColumns();
+    numRows = (version.getSymbolSizeRows() / dataRegionSizeRows) * dataRegionSizeRows;
+    numColumns = (version.getSymbolSizeColumns() / dataRegionSizeColumns) * dataRegionSizeColumns;
+    placed = new boolean[numRows * numColumns];
+    modules = new int[version.getTotalCodewords() << 3];
+  }
+
+  /**
+   * @param version symbol version to lay out
+   * @return for each bit of each codeword in turn, most significant bit first, the module of the
+   *  symbol which holds it: its row shifted left 16 bits, or'ed with its column
+   * @throws IllegalArgumentException if the version's codewords do not fill its mapping matrix
+   */
+  static int[] build(Version version) {
+    ModulePlacement placement = new ModulePlacement(version);
+    placement.placeCodewords();
+    if (placement.next != placement.modules.length) {
+      throw new IllegalArgumentException("Codewords do not fit version " + version);
+    }
+    return placement.modules;
+  }
+
+  private void placeCodewords() {
+    int row = 4;
+    int column = 0;
+
+    boolean corner1Placed = false;
+    boolean corner2Placed = false;
+    boolean corner3Placed = false;
+    boolean corner4Placed = false;
+
+    do {
+      // Check the four corner cases
+      if ((row == numRows) && (column == 0) && !corner1Placed) {
+        placeCorner1();
+        row -= 2;
+        column += 2;
+        corner1Placed = true;
+      } else if ((row == numRows - 2) && (column == 0) && ((numColumns & 0x03) != 0) &&
+          !corner2Placed) {
+        placeCorner2();
+        row -= 2;
+        column += 2;
+        corner2Placed = true;
+      } else if ((row == numRows + 4) && (column == 2) && ((numColumns & 0x07) == 0) &&
+          !corner3Placed) {
+        placeCorner3();
+        row -= 2;
+        column += 2;
+        corner3Placed = true;
+      } else if ((row == numRows - 2) && (column == 0) && ((numColumns & 0x07) == 4) &&
+          !corner4Placed) {
+        placeCorner4();
+        row -= 2;
+        column += 2;
+        corner4Placed = true;
+      } else {
+        // Sweep upward diagonally to the right
+        do {
+          if ((row < numRows) && (column >= 0) && !placed[row * numColumns + column]) {
+            placeUtah(row, column);
+          }
+          row -= 2;
+          column += 2;
+        } while ((row >= 0) && (column < numColumns));
+        row += 1;
+        column += 3;
+
+        // Sweep downward diagonally to the left
+        do {
+          if ((row >= 0) && (column < numColumns) && !placed[row * numColumns + column]) {
+            placeUtah(row, column);
+          }
+          row += 2;
+          column -= 2;
+        } while ((row < numRows) && (column >= 0));
+        row += 3;
+        column += 1;
+      }
+    } while ((row < numRows) || (column < numColumns));
+  }
+
+  /**
+   * <p>Records the next codeword bit as being at a position in the mapping matrix, accounting for
+   * boundary wrapping.</p>
+   */
+  private void placeModule(int row, int column) {
+    if (row < 0) {
+      row += numRows;
+      column += 4 - ((numRows + 4) & 0x07);
+    }
+    if (column < 0) {
+      column += numColumns;
+      row += 4 - ((numColumns + 4) & 0x07);
+    }
+    placed[row * numColumns + column] = true;
+    // Skip over the finder and alignment patterns around each data region
+    int symbolRow = (row / dataRegionSizeRows) * (dataRegionSizeRows + 2) + 1 +
+        row % dataRegionSizeRows;
+    int symbolColumn = (column / dataRegionSizeColumns) * (dataRegionSizeColumns + 2) + 1 +
+        column % dataRegionSizeColumns;
+    modules[next++] = (symbolRow << 16) | symbolColumn;
+  }
+
+  /**
+   * <p>Places the 8 bits of the standard Utah-shaped pattern, anchored at its last bit.</p>
+   *
+   * <p>See ISO 16022:2006, 5.8.1 Figure 6</p>
+   */
+  private void placeUtah(int row, int column) {
+    placeModule(row - 2, column - 2);
+    placeModule(row - 2, column - 1);
+    placeModule(row - 1, column - 2);
+    placeModule(row - 1, column - 1);
+    placeModule(row - 1, column);
+    placeModule(row, column - 2);
+    placeModule(row, column - 1);
+    placeModule(row, column);
+  }
+
+  /**
+   * <p>See ISO 16022:2006, Figure F.3</p>
+   */
+  private void placeCorner1() {
+    placeModule(numRows - 1, 0);
+    placeModule(numRows - 1, 1);
+    placeModule(numRows - 1, 2);
+    placeModule(0, numColumns - 2);
+    placeModule(0, numColumns - 1);
+    placeModule(1, numColumns - 1);
+    placeModule(2, numColumns - 1);
+    placeModule(3, numColumns - 1);
+  }
+
+  /**
+   * <p>See ISO 16022:2006, Figure F.4</p>
+   */
+  private void placeCorner2() {
+    placeModule(numRows - 3, 0);
+    placeModule(numRows - 2, 0);
+    placeModule(numRows - 1, 0);
+    placeModule(0, numColumns - 4);
+    placeModule(0, numColumns - 3);
+    placeModule(0, numColumns - 2);
+    placeModule(0, numColumns - 1);
+    placeModule(1, numColumns - 1);
+  }
+
+  /**
+   * <p>See ISO 16022:2006, Figure F.5</p>
+   */
+  private void placeCorner3() {
+    placeModule(numRows - 1, 0);
+    placeModule(numRows - 1, numColumns - 1);
+    placeModule(0, numColumns - 3);
+    placeModule(0, numColumns - 2);
+    placeModule(0, numColumns - 1);
+    placeModule(1, numColumns - 3);
+    placeModule(1, numColumns - 2);
+    placeModule(1, numColumns - 1);
+  }
+
+  /**
+   * <p>See ISO 16022:2006, Figure F.6</p>
+   */
+  private void placeCorner4() {
+    placeModule(numRows - 3, 0);
+    placeModule(numRows - 2, 0);
+    placeModule(numRows - 1, 0);
+    placeModule(0, numColumns - 2);
+    placeModule(0, numColumns - 1);
+    placeModule(1, numColumns - 1);
+    placeModule(2, numColumns - 1);
+    placeModule(3, numColumns - 1);
+  }
+
+}
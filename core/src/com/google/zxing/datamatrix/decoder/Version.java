@@ -27,6 +27,9 @@ import com.google.zxing.ReaderException;
 public final class Version {
 
   private static final Version[] VERSIONS = buildVersions();
+  private static final int MAX_DIMENSION = 144;
+  // VERSIONS by half their number of rows, then half their number of columns
+  private static final Version[][] VERSIONS_BY_DIMENSIONS = buildVersionsByDimensions();
 
   private final int versionNumber;
   private final int symbolSizeRows;
@@ -35,6 +38,7 @@ public final class Version {
   private final int dataRegionSizeColumns;
   private final ECBlocks ecBlocks;
   private final int totalCodewords;
+  private int[] modulePlacement;
 
   private Version(int versionNumber,
                   int symbolSizeRows,
@@ -49,15 +53,8 @@ public final class Version {
     this.dataRegionSizeColumns = dataRegionSizeColumns;
     this.ecBlocks = ecBlocks;
     
-    // Calculate the total number of codewords
-    int total = 0;
-    int ecCodewords = ecBlocks.getECCodewords();
-    ECB[] ecbArray = ecBlocks.getECBlocks();
-    for (int i = 0; i < ecbArray.length; i++) {
-      ECB ecBlock = ecbArray[i];
-      total += ecBlock.getCount() * (ecBlock.getDataCodewords() + ecCodewords);
-    }
-    this.totalCodewords = total;
+    this.totalCodewords = ecBlocks.getNumDataCodewords() +
+        ecBlocks.getNumBlocks() * ecBlocks.getECCodewords();
   }
 
   public int getVersionNumber() {
@@ -88,6 +85,17 @@ public final class Version {
     return ecBlocks;
   }
 
+  /**
+   * @return where each codeword bit lies in symbols of this version, as given by
+   *  {@link ModulePlacement#build(Version)}; built the first time it is needed
+   */
+  synchronized int[] getModulePlacement() {
+    if (modulePlacement == null) {
+      modulePlacement = ModulePlacement.build(this);
+    }
+    return modulePlacement;
+  }
+
   /**
    * <p>Deduces version information from Data Matrix dimensions.</p>
    *
@@ -97,22 +105,16 @@ public final class Version {
    * @throws ReaderException if dimensions do correspond to a valid Data Matrix size
    */
   public static Version getVersionForDimensions(int numRows, int numColumns) throws ReaderException {
-    if ((numRows & 0x01) != 0 || (numColumns & 0x01) != 0) {
+    if ((numRows & 0x01) != 0 || (numColumns & 0x01) != 0 || numRows < 0 || numColumns < 0 ||
+        numRows > MAX_DIMENSION || numColumns > MAX_DIMENSION) {
       throw ReaderException.getInstance();
     }
-    
-    // TODO(bbrown): This is doing a linear search through the array of versions.
-    // If we interleave the rectangular versions with the square versions we could
-    // do a binary search.
-    int numVersions = VERSIONS.length;
-    for (int i = 0; i < numVersions; ++i){
-      Version version = VERSIONS[i];
-      if (version.symbolSizeRows == numRows && version.symbolSizeColumns == numColumns) {
-        return version;
-      }
+    Version[] withRows = VERSIONS_BY_DIMENSIONS[numRows >> 1];
+    Version version = withRows == null ? null : withRows[numColumns >> 1];
+    if (version == null) {
+      throw ReaderException.getInstance();
     }
-    
-    throw ReaderException.getInstance();
+    return version;
   }
 
   /**
@@ -124,15 +126,28 @@ public final class Version {
   static final class ECBlocks {
     private final int ecCodewords;
     private final ECB[] ecBlocks;
+    private final int numBlocks;
+    private final int numDataCodewords;
 
     private ECBlocks(int ecCodewords, ECB ecBlocks) {
-      this.ecCodewords = ecCodewords;
-      this.ecBlocks = new ECB[] { ecBlocks };
+      this(ecCodewords, new ECB[] { ecBlocks });
     }
 
     private ECBlocks(int ecCodewords, ECB ecBlocks1, ECB ecBlocks2) {
+      this(ecCodewords, new ECB[] { ecBlocks1, ecBlocks2 });
+    }
+
+    private ECBlocks(int ecCodewords, ECB[] ecBlocks) {
       this.ecCodewords = ecCodewords;
-      this.ecBlocks = new ECB[] { ecBlocks1, ecBlocks2 };
+      this.ecBlocks = ecBlocks;
+      int blocks = 0;
+      int dataCodewords = 0;
+      for (int i = 0; i < ecBlocks.length; i++) {
+        blocks += ecBlocks[i].getCount();
+        dataCodewords += ecBlocks[i].getCount() * ecBlocks[i].getDataCodewords();
+      }
+      numBlocks = blocks;
+      numDataCodewords = dataCodewords;
     }
 
     int getECCodewords() {
@@ -142,6 +157,20 @@ public final class Version {
     ECB[] getECBlocks() {
       return ecBlocks;
     }
+
+    /**
+     * @return total number of blocks, over all of the ECBs
+     */
+    int getNumBlocks() {
+      return numBlocks;
+    }
+
+    /**
+     * @return total number of data codewords, over all of the blocks
+     */
+    int getNumDataCodewords() {
+      return numDataCodewords;
+    }
   }
 
   /**
@@ -171,6 +200,19 @@ public final class Version {
     return String.valueOf(versionNumber);
   }
 
+  private static Version[][] buildVersionsByDimensions() {
+    Version[][] versions = new Version[(MAX_DIMENSION >> 1) + 1][];
+    for (int i = 0; i < VERSIONS.length; i++) {
+      Version version = VERSIONS[i];
+      int rowsIndex = version.symbolSizeRows >> 1;
+      if (versions[rowsIndex] == null) {
+        versions[rowsIndex] = new Version[(MAX_DIMENSION >> 1) + 1];
+      }
+      versions[rowsIndex][version.symbolSizeColumns >> 1] = version;
+    }
+    return versions;
+  }
+
   /**
    * See ISO 16022:2006 5.5.1 Table 7
    */
@@ -232,7 +274,7 @@ public final class Version {
             new ECBlocks(14, new ECB(1, 16))),
         new Version(28, 12, 36, 10, 16,
             new ECBlocks(18, new ECB(1, 22))),
-        new Version(29, 16, 36, 10, 16,
+        new Version(29, 16, 36, 14, 16,
             new ECBlocks(24, new ECB(1, 32))),
         new Version(30, 16, 48, 14, 22,
             new ECBlocks(28, new ECB(1, 49)))
@@ -19,16 +19,10 @@ package com.google.zxing.datamatrix.detector;
 import com.google.zxing.ReaderException;
 import com.google.zxing.ResultPoint;
 import com.google.zxing.common.BitMatrix;
-import com.google.zxing.common.Collections;
-import com.google.zxing.common.Comparator;
 import com.google.zxing.common.DetectorResult;
 import com.google.zxing.common.GridSampler;
 import com.google.zxing.common.detector.MonochromeRectangleDetector;
 
-import java.util.Enumeration;
-import java.util.Hashtable;
-import java.util.Vector;
-
 /**
  * <p>Encapsulates logic that can detect a Data Matrix Code in an image, even if the Data Matrix Code
  * is rotated or skewed, or partially obscured.</p>
@@ -39,14 +33,18 @@ public final class Detector {
 
   //private static final int MAX_MODULES = 32;
 
-  // Trick to avoid creating new Integer objects below -- a sort of crude copy of
-  // the Integer.valueOf(int) optimization added in Java 5, not in J2ME
-  private static final Integer[] INTEGERS =
-      { new Integer(0), new Integer(1), new Integer(2), new Integer(3), new Integer(4) };
-  // No, can't use valueOf()
+  // The four sides of the rectangle found, as the indexes of the corners at either end.
+  // Corners 0 and 3 are across the diagonal from one another, as are 1 and 2.
+  private static final int[] SIDE_FROM = { 0, 0, 1, 2 };
+  private static final int[] SIDE_TO = { 1, 2, 3, 3 };
 
   private final BitMatrix image;
   private final MonochromeRectangleDetector rectangleDetector;
+  // Scratch state for detect(), indexed by side or corner rather than holding objects
+  private final int[] sideTransitions = new int[4];
+  private final int[] sides = new int[4];
+  private final int[] cornerCounts = new int[4];
+  private final ResultPoint[] lCorners = new ResultPoint[3];
 
   public Detector(BitMatrix image) {
     this.image = image;
@@ -62,50 +60,51 @@ public final class Detector {
   public DetectorResult detect() throws ReaderException {
 
     ResultPoint[] cornerPoints = rectangleDetector.detect();
-    ResultPoint pointA = cornerPoints[0];
-    ResultPoint pointB = cornerPoints[1];
-    ResultPoint pointC = cornerPoints[2];
-    ResultPoint pointD = cornerPoints[3];
-
-    // Point A and D are across the diagonal from one another,
-    // as are B and C. Figure out which are the solid black lines
-    // by counting transitions
-    Vector transitions = new Vector(4);
-    transitions.addElement(transitionsBetween(pointA, pointB));
-    transitions.addElement(transitionsBetween(pointA, pointC));
-    transitions.addElement(transitionsBetween(pointB, pointD));
-    transitions.addElement(transitionsBetween(pointC, pointD));
-    Collections.insertionSort(transitions, new ResultPointsAndTransitionsComparator());
 
-    // Sort by number of transitions. First two will be the two solid sides; last two
-    // will be the two alternating black/white sides
-    ResultPointsAndTransitions lSideOne = (ResultPointsAndTransitions) transitions.elementAt(0);
-    ResultPointsAndTransitions lSideTwo = (ResultPointsAndTransitions) transitions.elementAt(1);
+    // Figure out which sides are the solid black lines by counting transitions
+    for (int side = 0; side < 4; side++) {
+      sideTransitions[side] =
+          transitionsBetween(cornerPoints[SIDE_FROM[side]], cornerPoints[SIDE_TO[side]]);
+      // Insertion sort of the sides by number of transitions, keeping ties in order
+      int j = side - 1;
+      while (j >= 0 && sideTransitions[sides[j]] > sideTransitions[side]) {
+        sides[j + 1] = sides[j];
+        j--;
+      }
+      sides[j + 1] = side;
+    }
 
-    // Figure out which point is their intersection by tallying up the number of times we see the
-    // endpoints in the four endpoints. One will show up twice.
-    Hashtable pointCount = new Hashtable();
-    increment(pointCount, lSideOne.getFrom());
-    increment(pointCount, lSideOne.getTo());
-    increment(pointCount, lSideTwo.getFrom());
-    increment(pointCount, lSideTwo.getTo());
+    // Sorted by number of transitions, the first two will be the two solid sides; last two
+    // will be the two alternating black/white sides. Figure out which corner is their
+    // intersection by tallying up the number of times we see the endpoints in the four
+    // endpoints. One will show up twice.
+    for (int corner = 0; corner < 4; corner++) {
+      cornerCounts[corner] = 0;
+    }
+    for (int i = 0; i < 2; i++) {
+      cornerCounts[SIDE_FROM[sides[i]]]++;
+      cornerCounts[SIDE_TO[sides[i]]]++;
+    }
 
     ResultPoint maybeTopLeft = null;
     ResultPoint bottomLeft = null;
     ResultPoint maybeBottomRight = null;
-    Enumeration points = pointCount.keys();
-    while (points.hasMoreElements()) {
-      ResultPoint point = (ResultPoint) points.nextElement();
-      Integer value = (Integer) pointCount.get(point);
-      if (value.intValue() == 2) {
+    ResultPoint topRight = null;
+    for (int corner = 0; corner < 4; corner++) {
+      ResultPoint point = cornerPoints[corner];
+      int count = cornerCounts[corner];
+      if (count == 2) {
         bottomLeft = point; // this is definitely the bottom left, then -- end of two L sides
-      } else {
+      } else if (count == 1) {
         // Otherwise it's either top left or bottom right -- just assign the two arbitrarily now
         if (maybeTopLeft == null) {
           maybeTopLeft = point;
         } else {
           maybeBottomRight = point;
         }
+      } else if (topRight == null) {
+        // Which point didn't we find in relation to the "L" sides? that's the top right corner
+        topRight = point;
       }
     }
 
@@ -114,7 +113,10 @@ public final class Detector {
     }
 
     // Bottom left is correct but top left and bottom right might be switched
-    ResultPoint[] corners = { maybeTopLeft, bottomLeft, maybeBottomRight };
+    ResultPoint[] corners = lCorners;
+    corners[0] = maybeTopLeft;
+    corners[1] = bottomLeft;
+    corners[2] = maybeBottomRight;
     // Use the dot product trick to sort them out
     ResultPoint.orderBestPatterns(corners);
 
@@ -123,18 +125,6 @@ public final class Detector {
     bottomLeft = corners[1];
     ResultPoint topLeft = corners[2];
 
-    // Which point didn't we find in relation to the "L" sides? that's the top right corner
-    ResultPoint topRight;
-    if (!pointCount.containsKey(pointA)) {
-      topRight = pointA;
-    } else if (!pointCount.containsKey(pointB)) {
-      topRight = pointB;
-    } else if (!pointCount.containsKey(pointC)) {
-      topRight = pointC;
-    } else {
-      topRight = pointD;
-    }
-
     // Next determine the dimension by tracing along the top or right side and counting black/white
     // transitions. Since we start inside a black module, we should see a number of transitions
     // equal to 1 less than the code dimension. Well, actually 2 less, because we are going to
@@ -145,8 +135,8 @@ public final class Detector {
     // or bottom right should work here. The number of transitions could be higher than it should be
     // due to noise. So we try both and take the min.
 
-    int dimension = Math.min(transitionsBetween(topLeft, topRight).getTransitions(), 
-                             transitionsBetween(bottomRight, topRight).getTransitions());
+    int dimension = Math.min(transitionsBetween(topLeft, topRight),
+                             transitionsBetween(bottomRight, topRight));
     if ((dimension & 0x01) == 1) {
       // it can't be odd, so, round... up?
       dimension++;
@@ -154,15 +144,7 @@ public final class Detector {
     dimension += 2;
 
     BitMatrix bits = sampleGrid(image, topLeft, bottomLeft, bottomRight, dimension);
-    return new DetectorResult(bits, new ResultPoint[] {pointA, pointB, pointC, pointD});
-  }
-
-  /**
-   * Increments the Integer associated with a key by one.
-   */
-  private static void increment(Hashtable table, ResultPoint key) {
-    Integer value = (Integer) table.get(key);
-    table.put(key, value == null ? INTEGERS[1] : INTEGERS[value.intValue() + 1]);
+    return new DetectorResult(bits, cornerPoints);
   }
 
   private static BitMatrix sampleGrid(BitMatrix image,
@@ -204,8 +186,7 @@ public final class Detector {
   /**
    * Counts the number of black/white transitions between two points, using something like Bresenham's algorithm.
    */
-  private ResultPointsAndTransitions transitionsBetween(ResultPoint from, ResultPoint to)
-      throws ReaderException {
+  private int transitionsBetween(ResultPoint from, ResultPoint to) {
     // See QR Code Detector, sizeOfBlackWhiteBlackRun()
     int fromX = (int) from.getX();
     int fromY = (int) from.getY();
@@ -240,42 +221,7 @@ public final class Detector {
         error -= dx;
       }
     }
-    return new ResultPointsAndTransitions(from, to, transitions);
-  }
-
-  /**
-   * Simply encapsulates two points and a number of transitions between them.
-   */
-  private static class ResultPointsAndTransitions {
-    private final ResultPoint from;
-    private final ResultPoint to;
-    private final int transitions;
-    private ResultPointsAndTransitions(ResultPoint from, ResultPoint to, int transitions) {
-      this.from = from;
-      this.to = to;
-      this.transitions = transitions;
-    }
-    public ResultPoint getFrom() {
-      return from;
-    }
-    public ResultPoint getTo() {
-      return to;
-    }
-    public int getTransitions() {
-      return transitions;
-    }
-    public String toString() {
-      return from + "/" + to + '/' + transitions;
-    }
-  }
-
-  /**
-   * Orders ResultPointsAndTransitions by number of transitions, ascending.
-   */
-  private static class ResultPointsAndTransitionsComparator implements Comparator {
-    public int compare(Object o1, Object o2) {
-      return ((ResultPointsAndTransitions) o1).getTransitions() - ((ResultPointsAndTransitions) o2).getTransitions();
-    }
+    return transitions;
   }
 
 }
@@ -50,10 +50,9 @@ public final class QRCodeMultiReader extends QRCodeReader implements MultipleBar
     DetectorResult[] detectorResult = new MultiDetector(image.getBlackMatrix()).detectMulti(hints);
     for (int i = 0; i < detectorResult.length; i++) {
       try {
-        DecoderResult decoderResult = getDecoder().decode(detectorResult[i].getBits());
+        DecoderResult decoderResult = getDecoder().decode(detectorResult[i].getBits(), hints);
         ResultPoint[] points = detectorResult[i].getPoints();
-        Result result = new Result(decoderResult.getText(), decoderResult.getRawBytes(), points,
-            BarcodeFormat.QR_CODE);
+        Result result = new Result(decoderResult, points, BarcodeFormat.QR_CODE);
         if (decoderResult.getByteSegments() != null) {
           result.putMetadata(ResultMetadataType.BYTE_SEGMENTS, decoderResult.getByteSegments());
         }
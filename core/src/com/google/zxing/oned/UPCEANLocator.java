@@ -0,0 +1,210 @@
+/*
+ * Copyright 2010 ZXing authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.zxing.oned;
+
+import com.google.zxing.BarcodeFormat;
+import com.google.zxing.BarcodeLocation;
+import com.google.zxing.BinaryBitmap;
+import com.google.zxing.Locator;
+import com.google.zxing.ReaderException;
+import com.google.zxing.ResultPoint;
+import com.google.zxing.common.BitArray;
+
+import java.util.Hashtable;
+
+/**
+ * <p>Finds UPC-A, UPC-E, EAN-8 and EAN-13 barcodes by their guard patterns alone. A row is taken
+ * to cross a barcode where a start guard with a quiet zone before it is followed, at the distances
+ * the module width predicts, by a middle guard and then an end guard with a quiet zone after it
+ * (or by the UPC-E end guard, which begins like a middle guard). No digits are decoded.</p>
+ *
+ * <p>Rows are sampled from the middle out, as the readers do, and every row which crosses the
+ * barcode extends the reported outline. At least two rows must agree, since text and other
+ * barcodes easily produce guard-like runs in a single row. Upside down UPC-E barcodes are not
+ * found.</p>
+ */
+public final class UPCEANLocator implements Locator {
+
+  private static final int MAX_LINES = 15;
+  // Modules from the end of the start guard to the middle guard.
+  private static final int EAN13_LEFT_MODULES = 42;
+  private static final int EAN8_LEFT_MODULES = 28;
+  private static final int EAN13_MODULES = 95;
+  private static final int EAN8_MODULES = 67;
+  private static final int UPCE_MODULES = 51;
+  // How far, in modules, the middle guard may be from where it is expected.
+  private static final int TOLERANCE_MODULES = 3;
+  private static final int MIN_ROWS = 2;
+
+  public BarcodeLocation locate(BinaryBitmap image, Hashtable hints) throws ReaderException {
+    int width = image.getWidth();
+    int height = image.getHeight();
+    int middle = height >> 1;
+    int rowStep = Math.max(1, height >> 4);
+
+    BitArray row = new BitArray(width);
+    BarcodeFormat format = null;
+    float left = 0.0f;
+    float right = 0.0f;
+    int top = height;
+    int bottom = -1;
+    int rows = 0;
+    for (int x = 0; x < MAX_LINES; x++) {
+      int rowStepsAboveOrBelow = (x + 1) >> 1;
+      boolean isAbove = (x & 0x01) == 0;
+      int rowNumber = middle + rowStep * (isAbove ? rowStepsAboveOrBelow : -rowStepsAboveOrBelow);
+      if (rowNumber < 0 || rowNumber >= height) {
+        break;
+      }
+      try {
+        row = image.getBlackRow(rowNumber, row);
+      } catch (ReaderException re) {
+        continue;
+      }
+      float[] span = findSpan(row);
+      if (span == null) {
+        continue;
+      }
+      if (format == null) {
+        format = span[2] == EAN8_MODULES ? BarcodeFormat.EAN_8 :
+            span[2] == UPCE_MODULES ? BarcodeFormat.UPC_E : BarcodeFormat.EAN_13;
+        left = span[0];
+        right = span[1];
+      } else if (span[1] < left || span[0] > right) {
+        // Some other barcode, or a false positive; stay with the first one.
+        continue;
+      } else {
+        left = Math.min(left, span[0]);
+        right = Math.max(right, span[1]);
+      }
+      rows++;
+      top = Math.min(top, rowNumber);
+      bottom = Math.max(bottom, rowNumber);
+    }
+
+    if (rows < MIN_ROWS) {
+      throw ReaderException.getInstance();
+    }
+    return new BarcodeLocation(format, new ResultPoint[] {
+        new ResultPoint(left, top),
+        new ResultPoint(left, bottom),
+        new ResultPoint(right, top),
+        new ResultPoint(right, bottom)
+    });
+  }
+
+  /**
+   * @return the left and right edges of a barcode in this row, and its width in modules, or null
+   *         if there is none
+   */
+  private static float[] findSpan(BitArray row) {
+    int nextStart = 0;
+    while (true) {
+      int[] startRange;
+      try {
+        startRange = AbstractUPCEANReader.findGuardPattern(row, nextStart, false,
+            AbstractUPCEANReader.START_END_PATTERN);
+      } catch (ReaderException re) {
+        return null;
+      }
+      int start = startRange[0];
+      int end = startRange[1];
+      nextStart = end;
+      int quietStart = start - (end - start);
+      if (quietStart < 0 || !row.isRange(quietStart, start, false)) {
+        continue;
+      }
+      float moduleWidth = (end - start) / 3.0f;
+      // UPC-E ends where EAN-13 has its middle guard, so try it first.
+      int[] endRange = findGuard(row, end, moduleWidth, EAN13_LEFT_MODULES,
+          UPCEReader.MIDDLE_END_PATTERN);
+      if (endRange != null) {
+        return new float[] {start, endRange[1], UPCE_MODULES};
+      }
+      endRange = findEnd(row, end, moduleWidth, EAN13_LEFT_MODULES);
+      if (endRange != null) {
+        return new float[] {start, endRange[1], EAN13_MODULES};
+      }
+      endRange = findEnd(row, end, moduleWidth, EAN8_LEFT_MODULES);
+      if (endRange != null) {
+        return new float[] {start, endRange[1], EAN8_MODULES};
+      }
+    }
+  }
+
+  /**
+   * Looks for a middle guard and then an end guard, each the given number of modules after the
+   * guard before it.
+   */
+  private static int[] findEnd(BitArray row, int startGuardEnd, float moduleWidth,
+                               int halfModules) {
+    int[] middleRange = findGuard(row, startGuardEnd, moduleWidth, halfModules,
+        AbstractUPCEANReader.MIDDLE_PATTERN);
+    if (middleRange == null) {
+      return null;
+    }
+    return findGuard(row, middleRange[1], moduleWidth, halfModules,
+        AbstractUPCEANReader.START_END_PATTERN);
+  }
+
+  /**
+   * Looks for a guard pattern which starts about the given number of modules after an offset and
+   * is followed by a quiet zone at least as wide as itself. The digits before the guard may
+   * contain runs which match it too, so the search continues past those.
+   *
+   * @return the start and end of the guard, or null if it is not where it was expected
+   */
+  private static int[] findGuard(BitArray row, int offset, float moduleWidth, int modules,
+                                 int[] pattern) {
+    int width = row.getSize();
+    int expected = offset + (int) (modules * moduleWidth + 0.5f);
+    int tolerance = (int) (TOLERANCE_MODULES * moduleWidth + 0.5f);
+    int from = Math.max(offset, expected - tolerance);
+    // The start and end guard begin with a bar; the middle guards begin with a space.
+    boolean whiteFirst = pattern != AbstractUPCEANReader.START_END_PATTERN;
+    while (from < width) {
+      int[] range;
+      try {
+        range = AbstractUPCEANReader.findGuardPattern(row, from, whiteFirst, pattern);
+      } catch (ReaderException re) {
+        return null;
+      }
+      if (range[0] > expected + tolerance) {
+        return null;
+      }
+      if (range[0] >= expected - tolerance) {
+        if (pattern == AbstractUPCEANReader.MIDDLE_PATTERN) {
+          return range;
+        }
+        int quietEnd = range[1] + (range[1] - range[0]);
+        if (quietEnd < width && row.isRange(range[1], quietEnd, false)) {
+          return range;
+        }
+      }
+      // Skip to the next run of the colour the pattern begins with.
+      from = range[0];
+      while (from < width && row.get(from) == !whiteFirst) {
+        from++;
+      }
+      while (from < width && row.get(from) != !whiteFirst) {
+        from++;
+      }
+    }
+    return null;
+  }
+
+}
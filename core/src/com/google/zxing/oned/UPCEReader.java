@@ -34,7 +34,7 @@ public final class UPCEReader extends AbstractUPCEANReader {
    * The pattern that marks the middle, and end, of a UPC-E pattern.
    * There is no "second half" to a UPC-E barcode.
    */
-  private static final int[] MIDDLE_END_PATTERN = {1, 1, 1, 1, 1, 1};
+  static final int[] MIDDLE_END_PATTERN = {1, 1, 1, 1, 1, 1};
 
   /**
    * See {@link #L_AND_G_PATTERNS}; these values similarly represent patterns of
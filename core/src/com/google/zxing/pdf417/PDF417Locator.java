@@ -0,0 +1,38 @@
+/*
+ * Copyright 2010 ZXing authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.zxing.pdf417;
+
+import com.google.zxing.BarcodeFormat;
+import com.google.zxing.BarcodeLocation;
+import com.google.zxing.BinaryBitmap;
+import com.google.zxing.Locator;
+import com.google.zxing.ReaderException;
+import com.google.zxing.pdf417.detector.Detector;
+
+import java.util.Hashtable;
+
+/**
+ * Finds PDF417 Codes by their start and stop patterns, skipping the sampling, error correction
+ * and decoding that {@link PDF417Reader} goes on to do.
+ */
+public final class PDF417Locator implements Locator {
+
+  public BarcodeLocation locate(BinaryBitmap image, Hashtable hints) throws ReaderException {
+    return new BarcodeLocation(BarcodeFormat.PDF417, new Detector(image).findCorners());
+  }
+
+}
@@ -61,7 +61,7 @@ public final class PDF417Reader implements Reader {
       decoderResult = decoder.decode(bits);
       points = NO_POINTS;
     } else {
-      DetectorResult detectorResult = new Detector(image).detect();
+      DetectorResult detectorResult = new Detector(image).detect(hints);
       decoderResult = decoder.decode(detectorResult.getBits());
       points = detectorResult.getPoints();
     }
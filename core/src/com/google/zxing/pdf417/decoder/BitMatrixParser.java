@@ -35,6 +35,16 @@ final class BitMatrixParser {
   private static final int MAX_CW_CAPACITY = 929;
   private static final int MODULES_IN_SYMBOL = 17;
 
+  // Open addressing hash table from symbol to codeword, built from SYMBOL_TABLE and
+  // CODEWORD_TABLE. Each entry is the symbol shifted left by CODEWORD_BITS, or'ed with its
+  // codeword; 0, never a symbol, marks an empty slot. The table is about a third full, so a
+  // lookup, found or not, takes under two probes on average.
+  private static final int CODEWORD_BITS = 10;
+  private static final int CODEWORD_MASK = (1 << CODEWORD_BITS) - 1;
+  private static final int LOOKUP_BITS = 13;
+  private static final int LOOKUP_MASK = (1 << LOOKUP_BITS) - 1;
+  private static final int[] LOOKUP_TABLE = new int[1 << LOOKUP_BITS];
+
   private final BitMatrix bitMatrix;
   private int rows = 0;
   //private int columns = 0;
@@ -303,44 +313,30 @@ final class BitMatrixParser {
    * Translate the symbol into a codeword.
    *
    * @param symbol
-   * @return the codeword corresponding to the symbol.
+   * @return the codeword corresponding to the symbol, or -1 if it is not a valid symbol.
    */
   private static int getCodeword(long symbol) {
-    long sym = symbol;
-    sym &= 0x3ffff;
-    int i = findCodewordIndex(sym);
-    if (i == -1) {
+    int sym = (int) (symbol & 0x3ffff);
+    if (sym == 0) {
       return -1;
-    } else {
-      long cw = CODEWORD_TABLE[i] - 1;
-      cw %= 929;
-      return (int) cw;
+    }
+    for (int i = hash(sym); ; i = (i + 1) & LOOKUP_MASK) {
+      int entry = LOOKUP_TABLE[i];
+      if (entry == 0) {
+        return -1;
+      }
+      if (entry >>> CODEWORD_BITS == sym) {
+        return entry & CODEWORD_MASK;
+      }
     }
   }
 
   /**
-   * Use a binary search to find the index of the codeword corresponding to
-   * this symbol.
-   *
-   * @param symbol the symbol from the barcode.
-   * @return the index into the codeword table.
+   * @return the slot in LOOKUP_TABLE at which to start looking for the symbol
    */
-  private static int findCodewordIndex(long symbol) {
-    int first = 0;
-    int upto = SYMBOL_TABLE.length;
-    while (first < upto) {
-      int mid = (first + upto) >>> 1; // Compute mid point.
-      if (symbol < SYMBOL_TABLE[mid]) {
-        upto = mid; // repeat search in bottom half.
-      } else if (symbol > SYMBOL_TABLE[mid]) {
-        first = mid + 1; // Repeat search in top half.
-      } else {
-        return mid; // Found it. return position
-      }
-    }
-    return -1;
-    // if (debug) System.out.println("Failed to find codeword for Symbol=" +
-    // symbol);
+  private static int hash(int symbol) {
+    // Fibonacci hashing: the top bits of the product mix all of the symbol's bits
+    return (symbol * 0x9E3779B9) >>> (32 - LOOKUP_BITS);
   }
 
   /**
@@ -1154,4 +1150,16 @@ final class BitMatrixParser {
       1918, 1928, 937, 934, 931, 1879, 1876, 1873, 1870, 945, 1885, 1882,
       1323, 1273, 1270, 2105, 1202, 1199, 1196, 1211, 2061, 2057, 1576,
       1543, 1540, 1484, 1481, 1478, 1491, 1700};
+
+  static {
+    for (int i = 0; i < SYMBOL_TABLE.length; i++) {
+      int symbol = SYMBOL_TABLE[i];
+      int slot = hash(symbol);
+      while (LOOKUP_TABLE[slot] != 0) {
+        slot = (slot + 1) & LOOKUP_MASK;
+      }
+      LOOKUP_TABLE[slot] = (symbol << CODEWORD_BITS) | ((CODEWORD_TABLE[i] - 1) % 929);
+    }
+  }
+
 }
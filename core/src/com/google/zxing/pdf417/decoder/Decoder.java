@@ -19,7 +19,8 @@ package com.google.zxing.pdf417.decoder;
 import com.google.zxing.ReaderException;
 import com.google.zxing.common.BitMatrix;
 import com.google.zxing.common.DecoderResult;
-//import com.google.zxing.pdf417.reedsolomon.ReedSolomonDecoder;
+import com.google.zxing.common.reedsolomon.ReedSolomonException;
+import com.google.zxing.pdf417.reedsolomon.ReedSolomonDecoder;
 
 /**
  * <p>The main class which implements PDF417 Code decoding -- as
@@ -29,13 +30,11 @@ import com.google.zxing.common.DecoderResult;
  */
 public final class Decoder {
 
-  private static final int MAX_ERRORS = 3;
   private static final int MAX_EC_CODEWORDS = 512;
-  //private final ReedSolomonDecoder rsDecoder;
+  private final ReedSolomonDecoder rsDecoder;
 
   public Decoder() {
-    // TODO MGMG
-    //rsDecoder = new ReedSolomonDecoder();
+    rsDecoder = new ReedSolomonDecoder(MAX_EC_CODEWORDS);
   }
 
   /**
@@ -118,29 +117,25 @@ public final class Decoder {
 
   /**
    * <p>Given data and error-correction codewords received, possibly corrupted by errors, attempts to
-   * correct the errors in-place using Reed-Solomon error correction.</p>
+   * correct the errors in-place using Reed-Solomon error correction. Codewords which could not be
+   * read at all are corrected as erasures, which cost half as much as errors.</p>
    *
    * @param codewords   data and error correction codewords
+   * @param erasures    positions of codewords which could not be read, or null
    * @throws ReaderException if error correction fails
    */
-  private static int correctErrors(int[] codewords, int[] erasures, int numECCodewords) throws ReaderException {
-    if ((erasures != null && erasures.length > numECCodewords / 2 + MAX_ERRORS) ||
+  private int correctErrors(int[] codewords, int[] erasures, int numECCodewords)
+      throws ReaderException {
+    if ((erasures != null && erasures.length > numECCodewords) ||
         (numECCodewords < 0 || numECCodewords > MAX_EC_CODEWORDS)) {
       // Too many errors or EC Codewords is corrupted
       throw ReaderException.getInstance();
     }
-    // Try to correct the errors
-    int result = 0; // rsDecoder.correctErrors(codewords, numECCodewords);
-    if (erasures != null) {
-      int numErasures = erasures.length;
-      if (result > 0) {
-        numErasures -= result;
-      }
-      if (numErasures > MAX_ERRORS) {
-        // Still too many errors
-        throw ReaderException.getInstance();
-      }
+    try {
+      return rsDecoder.decode(codewords, numECCodewords, erasures);
+    } catch (ReedSolomonException rse) {
+      throw ReaderException.getInstance();
     }
-    return result;
-	}
+  }
+
 }
@@ -17,6 +17,7 @@
 package com.google.zxing.pdf417.detector;
 
 import com.google.zxing.BinaryBitmap;
+import com.google.zxing.DecodeHintType;
 import com.google.zxing.ReaderException;
 import com.google.zxing.ResultPoint;
 import com.google.zxing.common.BitMatrix;
@@ -37,6 +38,19 @@ public final class Detector {
   private static final int MAX_AVG_VARIANCE = (int) ((1 << 8) * 0.42f);
   private static final int MAX_INDIVIDUAL_VARIANCE = (int) ((1 << 8) * 0.8f);
   private static final int SKEW_THRESHOLD = 2;
+  // Without TRY_HARDER, scan about this many rows for guard patterns before following them
+  private static final int COARSE_ROWS = 64;
+  // Rows of a guard pattern which may be unreadable before it is taken to have ended
+  private static final int MIN_ROW_GAP = 5;
+
+  // Where findGuardColumns() records each guard pattern's topmost and bottommost rows
+  private static final int TOP_ROW = 0;
+  private static final int TOP_START = 1;
+  private static final int TOP_END = 2;
+  private static final int BOTTOM_ROW = 3;
+  private static final int BOTTOM_START = 4;
+  private static final int BOTTOM_END = 5;
+  private static final int RIGHT = 6;
 
   // B S B S B S B S Bar/Space pattern
   // 11111111 0 1 0 1 0 1 000
@@ -53,6 +67,10 @@ public final class Detector {
   private static final int[] STOP_PATTERN_REVERSE = {1, 2, 1, 1, 1, 3, 1, 1, 7};
 
   private final BinaryBitmap image;
+  // Scratch state for findGuardPattern(), which runs on every row the barcode covers
+  private final int[] counters = new int[STOP_PATTERN.length];
+  private int guardStart;
+  private int guardEnd;
 
   public Detector(BinaryBitmap image) {
     this.image = image;
@@ -78,12 +96,13 @@ public final class Detector {
   public DetectorResult detect(Hashtable hints) throws ReaderException {
     // Fetch the 1 bit matrix once up front.
     BitMatrix matrix = image.getBlackMatrix();
+    int rowStep = getRowStep(matrix, hints);
 
     // Try to find the vertices assuming the image is upright.
-    ResultPoint[] vertices = findVertices(matrix);
+    ResultPoint[] vertices = findVertices(matrix, rowStep);
     if (vertices == null) {
       // Maybe the image is rotated 180 degrees?
-      vertices = findVertices180(matrix);
+      vertices = findVertices180(matrix, rowStep);
       if (vertices != null) {
         correctCodeWordVertices(vertices, true);
       }
@@ -110,14 +129,32 @@ public final class Detector {
     }
   }
 
+  /**
+   * <p>Finds the outer corners of a PDF417 Code from its start and stop patterns, without
+   * sampling or decoding it. Only checks 0 and 180 degree rotations.</p>
+   *
+   * @return the corners: top left, bottom left, top right and bottom right, as seen upright
+   * @throws ReaderException if no PDF417 Code can be found
+   */
+  public ResultPoint[] findCorners() throws ReaderException {
+    BitMatrix matrix = image.getBlackMatrix();
+    int rowStep = getRowStep(matrix, null);
+    ResultPoint[] vertices = findVertices(matrix, rowStep);
+    if (vertices == null) {
+      vertices = findVertices180(matrix, rowStep);
+      if (vertices == null) {
+        throw ReaderException.getInstance();
+      }
+    }
+    return new ResultPoint[] {vertices[0], vertices[1], vertices[2], vertices[3]};
+  }
+
   /**
    * Locate the vertices and the codewords area of a black blob using the Start
-   * and Stop patterns as locators. Assumes that the barcode begins in the left half
-   * of the image, and ends in the right half.
-   * TODO: Fix this assumption, allowing the barcode to be anywhere in the image.
-   * TODO: Scanning every row is very expensive. We should only do this for TRY_HARDER.
+   * and Stop patterns as locators. The barcode may be anywhere in the image.
    *
    * @param matrix the scanned barcode image.
+   * @param rowStep the distance between the rows first scanned for guard patterns.
    * @return an array containing the vertices:
    *           vertices[0] x, y top left barcode
    *           vertices[1] x, y bottom left barcode
@@ -128,64 +165,23 @@ public final class Detector {
    *           vertices[6] x, y top right codeword area
    *           vertices[7] x, y bottom right codeword area
    */
-  private static ResultPoint[] findVertices(BitMatrix matrix) {
-    int height = matrix.getHeight();
-    int width = matrix.getWidth();
-    int halfWidth = width >> 1;
-
-    ResultPoint[] result = new ResultPoint[8];
-    boolean found = false;
-
-    // Top Left
-    for (int i = 0; i < height; i++) {
-      int[] loc = findGuardPattern(matrix, 0, i, halfWidth, false, START_PATTERN);
-      if (loc != null) {
-        result[0] = new ResultPoint(loc[0], i);
-        result[4] = new ResultPoint(loc[1], i);
-        found = true;
-        break;
-      }
-    }
-    // Bottom left
-    if (found) { // Found the Top Left vertex
-      found = false;
-      for (int i = height - 1; i > 0; i--) {
-        int[] loc = findGuardPattern(matrix, 0, i, halfWidth, false, START_PATTERN);
-        if (loc != null) {
-          result[1] = new ResultPoint(loc[0], i);
-          result[5] = new ResultPoint(loc[1], i);
-          found = true;
-          break;
-        }
-      }
-    }
-    // Top right
-    if (found) { // Found the Bottom Left vertex
-      found = false;
-      for (int i = 0; i < height; i++) {
-        int[] loc = findGuardPattern(matrix, halfWidth, i, halfWidth, false, STOP_PATTERN);
-        if (loc != null) {
-          result[2] = new ResultPoint(loc[1], i);
-          result[6] = new ResultPoint(loc[0], i);
-          found = true;
-          break;
-        }
-      }
-    }
-    // Bottom right
-    if (found) { // Found the Top right vertex
-      found = false;
-      for (int i = height - 1; i > 0; i--) {
-        int[] loc = findGuardPattern(matrix, halfWidth, i, halfWidth, false, STOP_PATTERN);
-        if (loc != null) {
-          result[3] = new ResultPoint(loc[1], i);
-          result[7] = new ResultPoint(loc[0], i);
-          found = true;
-          break;
-        }
-      }
+  private ResultPoint[] findVertices(BitMatrix matrix, int rowStep) {
+    int[] guards = findGuardColumns(matrix, rowStep, START_PATTERN, false, STOP_PATTERN, false);
+    if (guards == null) {
+      return null;
     }
-    return found ? result : null;
+    ResultPoint[] result = new ResultPoint[8];
+    // Top left and bottom left, from the start pattern
+    result[0] = new ResultPoint(guards[TOP_START], guards[TOP_ROW]);
+    result[4] = new ResultPoint(guards[TOP_END], guards[TOP_ROW]);
+    result[1] = new ResultPoint(guards[BOTTOM_START], guards[BOTTOM_ROW]);
+    result[5] = new ResultPoint(guards[BOTTOM_END], guards[BOTTOM_ROW]);
+    // Top right and bottom right, from the stop pattern
+    result[2] = new ResultPoint(guards[RIGHT + TOP_END], guards[RIGHT + TOP_ROW]);
+    result[6] = new ResultPoint(guards[RIGHT + TOP_START], guards[RIGHT + TOP_ROW]);
+    result[3] = new ResultPoint(guards[RIGHT + BOTTOM_END], guards[RIGHT + BOTTOM_ROW]);
+    result[7] = new ResultPoint(guards[RIGHT + BOTTOM_START], guards[RIGHT + BOTTOM_ROW]);
+    return result;
   }
 
   /**
@@ -193,10 +189,9 @@ public final class Detector {
    * and Stop patterns as locators. This assumes that the image is rotated 180
    * degrees and if it locates the start and stop patterns at it will re-map
    * the vertices for a 0 degree rotation.
-   * TODO: Change assumption about barcode location.
-   * TODO: Scanning every row is very expensive. We should only do this for TRY_HARDER.
    *
    * @param matrix the scanned barcode image.
+   * @param rowStep the distance between the rows first scanned for guard patterns.
    * @return an array containing the vertices:
    *           vertices[0] x, y top left barcode
    *           vertices[1] x, y bottom left barcode
@@ -207,64 +202,100 @@ public final class Detector {
    *           vertices[6] x, y top right codeword area
    *           vertices[7] x, y bottom right codeword area
    */
-  private static ResultPoint[] findVertices180(BitMatrix matrix) {
+  private ResultPoint[] findVertices180(BitMatrix matrix, int rowStep) {
+    int[] guards = findGuardColumns(matrix, rowStep, STOP_PATTERN_REVERSE, false,
+        START_PATTERN_REVERSE, true);
+    if (guards == null) {
+      return null;
+    }
+    ResultPoint[] result = new ResultPoint[8];
+    // Top left and bottom left, from the start pattern at the bottom right of the image
+    result[0] = new ResultPoint(guards[RIGHT + BOTTOM_END], guards[RIGHT + BOTTOM_ROW]);
+    result[4] = new ResultPoint(guards[RIGHT + BOTTOM_START], guards[RIGHT + BOTTOM_ROW]);
+    result[1] = new ResultPoint(guards[RIGHT + TOP_END], guards[RIGHT + TOP_ROW]);
+    result[5] = new ResultPoint(guards[RIGHT + TOP_START], guards[RIGHT + TOP_ROW]);
+    // Top right and bottom right, from the stop pattern at the left of the image
+    result[2] = new ResultPoint(guards[BOTTOM_START], guards[BOTTOM_ROW]);
+    result[6] = new ResultPoint(guards[BOTTOM_END], guards[BOTTOM_ROW]);
+    result[3] = new ResultPoint(guards[TOP_START], guards[TOP_ROW]);
+    result[7] = new ResultPoint(guards[TOP_END], guards[TOP_ROW]);
+    return result;
+  }
+
+  /**
+   * <p>Finds the two columns of guard patterns at the left and right of a barcode, as they
+   * appear in the image. Rather than scanning every row, it scans every rowStep rows until one
+   * has the left pattern with the right pattern after it, then follows each pattern up and down
+   * from there, searching only around where it was on the previous row. The cost is therefore
+   * a few rows of the whole image plus the height of the barcode.</p>
+   *
+   * @return for the left pattern then, at offset {@link #RIGHT}, the right pattern: the topmost
+   *         row it was found on and its start and end there, then the same for the bottommost
+   *         row; or null if the patterns were not found
+   */
+  private int[] findGuardColumns(BitMatrix matrix, int rowStep, int[] leftPattern,
+      boolean leftWhiteFirst, int[] rightPattern, boolean rightWhiteFirst) {
     int height = matrix.getHeight();
     int width = matrix.getWidth();
-    int halfWidth = width >> 1;
-
-    ResultPoint[] result = new ResultPoint[8];
-    boolean found = false;
-
-    // Top Left
-    for (int i = height - 1; i > 0; i--) {
-      int[] loc = findGuardPattern(matrix, halfWidth, i, halfWidth, true, START_PATTERN_REVERSE);
-      if (loc != null) {
-        result[0] = new ResultPoint(loc[1], i);
-        result[4] = new ResultPoint(loc[0], i);
-        found = true;
-        break;
+    for (int row = rowStep >> 1; row < height; row += rowStep) {
+      if (!findGuardPattern(matrix, 0, row, width, leftWhiteFirst, leftPattern)) {
+        continue;
       }
-    }
-    // Bottom Left
-    if (found) { // Found the Top Left vertex
-      found = false;
-      for (int i = 0; i < height; i++) {
-        int[] loc = findGuardPattern(matrix, halfWidth, i, halfWidth, true, START_PATTERN_REVERSE);
-        if (loc != null) {
-          result[1] = new ResultPoint(loc[1], i);
-          result[5] = new ResultPoint(loc[0], i);
-          found = true;
-          break;
-        }
+      int leftStart = guardStart;
+      int leftEnd = guardEnd;
+      // If the right pattern is not after the first left one, it is not after any later one
+      if (findGuardPattern(matrix, leftEnd, row, width - leftEnd, rightWhiteFirst,
+          rightPattern)) {
+        int[] guards = new int[2 * RIGHT];
+        followGuardPattern(matrix, row, guardStart, guardEnd, rightWhiteFirst, rightPattern,
+            rowStep, guards, RIGHT);
+        followGuardPattern(matrix, row, leftStart, leftEnd, leftWhiteFirst, leftPattern,
+            rowStep, guards, 0);
+        return guards;
       }
     }
-    // Top Right
-    if (found) { // Found the Bottom Left vertex
-      found = false;
-      for (int i = height - 1; i > 0; i--) {
-        int[] loc = findGuardPattern(matrix, 0, i, halfWidth, false, STOP_PATTERN_REVERSE);
-        if (loc != null) {
-          result[2] = new ResultPoint(loc[0], i);
-          result[6] = new ResultPoint(loc[1], i);
-          found = true;
-          break;
+    return null;
+  }
+
+  /**
+   * Follows a guard pattern found on one row up and down the image, as far as it goes, and
+   * records where it is on the topmost and bottommost rows found.
+   */
+  private void followGuardPattern(BitMatrix matrix, int row, int rowStart, int rowEnd,
+      boolean whiteFirst, int[] pattern, int rowStep, int[] guards, int offset) {
+    int maxGap = Math.max(MIN_ROW_GAP, rowStep << 1);
+    for (int direction = -1; direction <= 1; direction += 2) {
+      int lastRow = row;
+      int start = rowStart;
+      int end = rowEnd;
+      for (int y = row + direction; y >= 0 && y < matrix.getHeight() &&
+          (y - lastRow) * direction <= maxGap; y += direction) {
+        // Look a little either side, to allow for skew and blur
+        int margin = (end - start) >> 1;
+        int from = Math.max(0, start - margin);
+        int to = Math.min(matrix.getWidth(), end + margin);
+        if (findGuardPattern(matrix, from, y, to - from, whiteFirst, pattern)) {
+          lastRow = y;
+          start = guardStart;
+          end = guardEnd;
         }
       }
+      int index = offset + (direction < 0 ? TOP_ROW : BOTTOM_ROW);
+      guards[index] = lastRow;
+      guards[index + 1] = start;
+      guards[index + 2] = end;
     }
-    // Bottom Right
-    if (found) { // Found the Top Right vertex
-      found = false;
-      for (int i = 0; i < height; i++) {
-        int[] loc = findGuardPattern(matrix, 0, i, halfWidth, false, STOP_PATTERN_REVERSE);
-        if (loc != null) {
-          result[3] = new ResultPoint(loc[0], i);
-          result[7] = new ResultPoint(loc[1], i);
-          found = true;
-          break;
-        }
-      }
+  }
+
+  /**
+   * @return how far apart the rows first scanned for guard patterns are: every row when trying
+   *         harder, otherwise enough to scan about {@link #COARSE_ROWS} rows
+   */
+  private static int getRowStep(BitMatrix matrix, Hashtable hints) {
+    if (hints != null && hints.containsKey(DecodeHintType.TRY_HARDER)) {
+      return 1;
     }
-    return found ? result : null;
+    return Math.max(1, matrix.getHeight() / COARSE_ROWS);
   }
 
   /**
@@ -410,14 +441,15 @@ public final class Detector {
    * @param width the number of pixels to search on this row
    * @param pattern pattern of counts of number of black and white pixels that are
    *                 being searched for as a pattern
-   * @return start/end horizontal offset of guard pattern, as an array of two ints.
+   * @return true if the guard pattern was found, in which case its start and end horizontal
+   *         offsets are left in guardStart and guardEnd
    */
-  private static int[] findGuardPattern(BitMatrix matrix, int column, int row, int width,
+  private boolean findGuardPattern(BitMatrix matrix, int column, int row, int width,
       boolean whiteFirst, int[] pattern) {
     int patternLength = pattern.length;
-    // TODO: Find a way to cache this array, as this method is called hundreds of times
-    // per image, and we want to allocate as seldom as possible.
-    int[] counters = new int[patternLength];
+    for (int i = 0; i < patternLength; i++) {
+      counters[i] = 0;
+    }
     boolean isWhite = whiteFirst;
 
     int counterPosition = 0;
@@ -429,7 +461,9 @@ public final class Detector {
       } else {
         if (counterPosition == patternLength - 1) {
           if (patternMatchVariance(counters, pattern, MAX_INDIVIDUAL_VARIANCE) < MAX_AVG_VARIANCE) {
-            return new int[]{patternStart, x};
+            guardStart = patternStart;
+            guardEnd = x;
+            return true;
           }
           patternStart += counters[0] + counters[1];
           for (int y = 2; y < patternLength; y++) {
@@ -445,7 +479,7 @@ public final class Detector {
         isWhite = !isWhite;
       }
     }
-    return null;
+    return false;
   }
 
   /**
@@ -454,7 +488,7 @@ public final class Detector {
    * the total variance from the expected pattern proportions across all
    * pattern elements, to the length of the pattern.
    *
-   * @param counters observed counters
+   * @param counters observed counters, as many as there are in the pattern or more
    * @param pattern expected pattern
    * @param maxIndividualVariance The most any counter can differ before we give up
    * @return ratio of total variance between counters and pattern compared to
@@ -464,7 +498,7 @@ public final class Detector {
    *         higher values mean even more variance
    */
   private static int patternMatchVariance(int[] counters, int[] pattern, int maxIndividualVariance) {
-    int numCounters = counters.length;
+    int numCounters = pattern.length;
     int total = 0;
     int patternLength = 0;
     for (int i = 0; i < numCounters; i++) {
@@ -0,0 +1,245 @@
+/*
+ * Copyright 2010 ZXing authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.zxing.pdf417.reedsolomon;
+
+import com.google.zxing.common.reedsolomon.ReedSolomonException;
+
+/**
+ * <p>Implements Reed-Solomon error and erasure correction for PDF417, whose codewords are
+ * elements of the prime field GF(929) rather than of GF(256). Arithmetic is therefore plain
+ * arithmetic modulo 929, with 3 as the generator; the error correction codewords make the
+ * symbol, read as a polynomial whose first codeword is the highest power, a multiple of
+ * (x - 3)(x - 3^2)...(x - 3^k).</p>
+ *
+ * <p>Erasures, codewords known to be unreadable, cost one error correction codeword each where
+ * an error at an unknown position costs two, so a symbol with k error correction codewords can
+ * be corrected when twice the errors plus the erasures is at most k. The errata locator is found
+ * with the Berlekamp-Massey algorithm started from the erasure locator, its roots by trying
+ * every position, and the magnitudes with Forney's formula.</p>
+ *
+ * <p>All working storage is allocated up front, so decoding allocates nothing. An instance is
+ * therefore not thread-safe.</p>
+ */
+public final class ReedSolomonDecoder {
+
+  private static final int MODULUS = 929;
+  // The multiplicative group has order 928
+  private static final int ORDER = MODULUS - 1;
+  private static final int[] EXP = new int[ORDER];
+  private static final int[] LOG = new int[MODULUS];
+
+  static {
+    int x = 1;
+    for (int i = 0; i < ORDER; i++) {
+      EXP[i] = x;
+      LOG[x] = i;
+      x = (x * 3) % MODULUS;
+    }
+  }
+
+  private final int maxECCodewords;
+  private final int[] syndromes;
+  private final int[] locator;
+  private final int[] previous;
+  private final int[] scratch;
+  private final int[] evaluator;
+  private final int[] errorPositions;
+
+  /**
+   * @param maxECCodewords the most error correction codewords a symbol may have
+   */
+  public ReedSolomonDecoder(int maxECCodewords) {
+    this.maxECCodewords = maxECCodewords;
+    syndromes = new int[maxECCodewords];
+    locator = new int[maxECCodewords + 2];
+    previous = new int[maxECCodewords + 2];
+    scratch = new int[maxECCodewords + 2];
+    evaluator = new int[maxECCodewords];
+    errorPositions = new int[maxECCodewords];
+  }
+
+  /**
+   * <p>Corrects, in place, errors and erasures in received data and error correction
+   * codewords.</p>
+   *
+   * @param received data and error correction codewords, each from 0 to 928
+   * @param numECCodewords number of error correction codewords, at the end of received
+   * @param erasures indexes into received of codewords which could not be read, or null
+   * @return number of codewords corrected
+   * @throws ReedSolomonException if there are too many errors to correct
+   */
+  public int decode(int[] received, int numECCodewords, int[] erasures)
+      throws ReedSolomonException {
+    int n = received.length;
+    if (numECCodewords < 1 || numECCodewords > maxECCodewords || numECCodewords >= n ||
+        n > ORDER) {
+      throw new ReedSolomonException("Bad number of codewords");
+    }
+    for (int i = 0; i < n; i++) {
+      if (received[i] < 0 || received[i] >= MODULUS) {
+        throw new ReedSolomonException("Bad codeword");
+      }
+    }
+    if (computeSyndromes(received, numECCodewords)) {
+      return 0;
+    }
+
+    // Start from the erasure locator, the product of (1 - X x) over the erased positions
+    int numErasures = erasures == null ? 0 : erasures.length;
+    if (numErasures > numECCodewords) {
+      throw new ReedSolomonException("Too many erasures");
+    }
+    clear(locator);
+    locator[0] = 1;
+    for (int i = 0; i < numErasures; i++) {
+      int position = erasures[i];
+      if (position < 0 || position >= n) {
+        throw new ReedSolomonException("Bad erasure position");
+      }
+      int x = EXP[n - 1 - position];
+      for (int d = i + 1; d > 0; d--) {
+        locator[d] = (locator[d] + MODULUS - multiply(x, locator[d - 1])) % MODULUS;
+      }
+    }
+    System.arraycopy(locator, 0, previous, 0, locator.length);
+
+    // Berlekamp-Massey, over the syndromes the erasures leave unused
+    int length = numErasures;
+    for (int r = numErasures + 1; r <= numECCodewords; r++) {
+      int discrepancy = 0;
+      for (int j = 0; j < r; j++) {
+        discrepancy = (discrepancy + multiply(locator[j], syndromes[r - 1 - j])) % MODULUS;
+      }
+      // previous = x * previous
+      System.arraycopy(previous, 0, previous, 1, previous.length - 1);
+      previous[0] = 0;
+      if (discrepancy != 0) {
+        for (int j = 0; j < scratch.length; j++) {
+          scratch[j] =
+              (locator[j] + MODULUS - multiply(discrepancy, previous[j])) % MODULUS;
+        }
+        if (2 * length <= r + numErasures - 1) {
+          length = r + numErasures - length;
+          int inverse = inverse(discrepancy);
+          for (int j = 0; j < previous.length; j++) {
+            previous[j] = multiply(inverse, locator[j]);
+          }
+        }
+        System.arraycopy(scratch, 0, locator, 0, locator.length);
+      }
+    }
+    int degree = locator.length - 1;
+    while (degree > 0 && locator[degree] == 0) {
+      degree--;
+    }
+    if (degree == 0 || degree > numECCodewords || 2 * length - numErasures > numECCodewords) {
+      throw new ReedSolomonException("Too many errors");
+    }
+
+    // The errata evaluator, syndromes times locator mod x^numECCodewords
+    for (int i = 0; i < numECCodewords; i++) {
+      int sum = 0;
+      for (int j = 0; j <= i && j <= degree; j++) {
+        sum = (sum + multiply(locator[j], syndromes[i - j])) % MODULUS;
+      }
+      evaluator[i] = sum;
+    }
+
+    // Each root of the locator is the inverse of an errata position's locator
+    int numErrors = 0;
+    for (int position = 0; position < n; position++) {
+      int xInverse = EXP[(ORDER - (n - 1 - position)) % ORDER];
+      if (evaluate(locator, degree, xInverse) == 0) {
+        if (numErrors == degree) {
+          throw new ReedSolomonException("Too many errors");
+        }
+        errorPositions[numErrors++] = position;
+      }
+    }
+    if (numErrors != degree) {
+      throw new ReedSolomonException("Errata locator degree does not match number of roots");
+    }
+
+    // Forney: the error is -evaluator(1/X) / locator'(1/X), so subtract that
+    for (int i = 0; i < numErrors; i++) {
+      int position = errorPositions[i];
+      int xInverse = EXP[(ORDER - (n - 1 - position)) % ORDER];
+      int derivative = 0;
+      int power = 1;
+      for (int d = 1; d <= degree; d++) {
+        derivative = (derivative + multiply(multiply(d, locator[d]), power)) % MODULUS;
+        power = multiply(power, xInverse);
+      }
+      if (derivative == 0) {
+        throw new ReedSolomonException("Bad errata locator");
+      }
+      int correction =
+          multiply(evaluate(evaluator, numECCodewords - 1, xInverse), inverse(derivative));
+      received[position] = (received[position] + correction) % MODULUS;
+    }
+
+    if (!computeSyndromes(received, numECCodewords)) {
+      throw new ReedSolomonException("Could not correct errors");
+    }
+    return numErrors;
+  }
+
+  /**
+   * @return true if every syndrome is 0, meaning there is no detectable error
+   */
+  private boolean computeSyndromes(int[] received, int numECCodewords) {
+    boolean noError = true;
+    for (int i = 1; i <= numECCodewords; i++) {
+      int x = EXP[i];
+      int sum = 0;
+      for (int j = 0; j < received.length; j++) {
+        sum = (multiply(sum, x) + received[j]) % MODULUS;
+      }
+      syndromes[i - 1] = sum;
+      if (sum != 0) {
+        noError = false;
+      }
+    }
+    return noError;
+  }
+
+  /**
+   * @return the value at x of the polynomial with the given coefficients, lowest power first
+   */
+  private static int evaluate(int[] coefficients, int degree, int x) {
+    int result = 0;
+    for (int d = degree; d >= 0; d--) {
+      result = (multiply(result, x) + coefficients[d]) % MODULUS;
+    }
+    return result;
+  }
+
+  private static int multiply(int a, int b) {
+    return (a * b) % MODULUS;
+  }
+
+  private static int inverse(int a) {
+    return EXP[(ORDER - LOG[a]) % ORDER];
+  }
+
+  private static void clear(int[] array) {
+    for (int i = 0; i < array.length; i++) {
+      array[i] = 0;
+    }
+  }
+
+}
@@ -0,0 +1,69 @@
+/*
+ * Copyright 2010 ZXing authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.zxing.qrcode;
+
+import com.google.zxing.BarcodeFormat;
+import com.google.zxing.BarcodeLocation;
+import com.google.zxing.BinaryBitmap;
+import com.google.zxing.Locator;
+import com.google.zxing.ReaderException;
+import com.google.zxing.ResultPoint;
+import com.google.zxing.qrcode.detector.Detector;
+import com.google.zxing.qrcode.detector.FinderPattern;
+import com.google.zxing.qrcode.detector.FinderPatternInfo;
+
+import java.util.Hashtable;
+
+/**
+ * Finds QR Codes by their three finder patterns, skipping the alignment pattern search, sampling
+ * and decoding that {@link QRCodeReader} goes on to do. The outline reaches from the outer edges
+ * of the finder patterns, and the missing corner is completed as a parallelogram.
+ */
+public final class QRCodeLocator implements Locator {
+
+  public BarcodeLocation locate(BinaryBitmap image, Hashtable hints) throws ReaderException {
+    FinderPatternInfo info = new Detector(image.getBlackMatrix()).findFinderPatterns(hints);
+    FinderPattern topLeft = info.getTopLeft();
+    FinderPattern topRight = info.getTopRight();
+    FinderPattern bottomLeft = info.getBottomLeft();
+
+    // Finder pattern centers are 3.5 modules in from the edge of the symbol.
+    float moduleSize = (topLeft.getEstimatedModuleSize() + topRight.getEstimatedModuleSize() +
+        bottomLeft.getEstimatedModuleSize()) / 3.0f;
+    float margin = 3.5f * moduleSize;
+    float bottomRightX = topRight.getX() - topLeft.getX() + bottomLeft.getX();
+    float bottomRightY = topRight.getY() - topLeft.getY() + bottomLeft.getY();
+    float centerX = (topRight.getX() + bottomLeft.getX()) / 2.0f;
+    float centerY = (topRight.getY() + bottomLeft.getY()) / 2.0f;
+    return new BarcodeLocation(BarcodeFormat.QR_CODE, new ResultPoint[] {
+        outward(topLeft.getX(), topLeft.getY(), centerX, centerY, margin),
+        outward(bottomLeft.getX(), bottomLeft.getY(), centerX, centerY, margin),
+        outward(topRight.getX(), topRight.getY(), centerX, centerY, margin),
+        outward(bottomRightX, bottomRightY, centerX, centerY, margin)
+    });
+  }
+
+  /**
+   * Moves a point away from the center along both axes, which approximates moving a finder
+   * pattern center out to the symbol's corner.
+   */
+  private static ResultPoint outward(float x, float y, float centerX, float centerY, float margin) {
+    return new ResultPoint(x < centerX ? x - margin : x + margin,
+                           y < centerY ? y - margin : y + margin);
+  }
+
+}
@@ -16,17 +16,22 @@
 
 package com.google.zxing.qrcode.decoder;
 
+import com.google.zxing.DecodeHintType;
 import com.google.zxing.ReaderException;
 import com.google.zxing.common.BitSource;
 import com.google.zxing.common.CharacterSetECI;
 import com.google.zxing.common.DecoderResult;
+import com.google.zxing.common.StringUtils;
+import com.google.zxing.common.TextSegments;
 
 import java.io.UnsupportedEncodingException;
+import java.util.Hashtable;
 import java.util.Vector;
 
 /**
  * <p>QR Codes can encode text as bits in one of several modes, and can use multiple modes
- * in one QR Code. This class decodes the bits back into text.</p>
+ * in one QR Code. This class decodes the bits back into text. Byte mode segments are only
+ * converted to text, and their character encoding guessed, when the text is first asked for.</p>
  *
  * <p>See ISO 18004:2006, 6.4.3 - 6.4.7</p>
  *
@@ -43,22 +48,15 @@ final class DecodedBitStreamParser {
       'O', 'P', 'Q', 'R', 'S', 'T', 'U', 'V', 'W', 'X', 'Y', 'Z',
       ' ', '$', '%', '*', '+', '-', '.', '/', ':'
   };
-  private static final String SHIFT_JIS = "SJIS";
-  private static final String EUC_JP = "EUC_JP";
-  private static final boolean ASSUME_SHIFT_JIS;
-  private static final String UTF8 = "UTF8";
-  private static final String ISO88591 = "ISO8859_1";
-
-  static {
-    String platformDefault = System.getProperty("file.encoding");
-    ASSUME_SHIFT_JIS = SHIFT_JIS.equalsIgnoreCase(platformDefault) || EUC_JP.equalsIgnoreCase(platformDefault);
-  }
 
   private DecodedBitStreamParser() {
   }
 
-  static DecoderResult decode(byte[] bytes, Version version, ErrorCorrectionLevel ecLevel) throws ReaderException {
+  static DecoderResult decode(byte[] bytes, Version version, ErrorCorrectionLevel ecLevel, Hashtable hints)
+      throws ReaderException {
     BitSource bits = new BitSource(bytes);
+    TextSegments text = new TextSegments();
+    // Characters decoded since the last byte mode segment
     StringBuffer result = new StringBuffer();
     CharacterSetECI currentCharacterSetECI = null;
     boolean fc1InEffect = false;
@@ -99,7 +97,9 @@ final class DecodedBitStreamParser {
           } else if (mode.equals(Mode.ALPHANUMERIC)) {
             decodeAlphanumericSegment(bits, result, count, fc1InEffect);
           } else if (mode.equals(Mode.BYTE)) {
-            decodeByteSegment(bits, result, count, currentCharacterSetECI, byteSegments);
+            text.append(result.toString());
+            result.setLength(0);
+            decodeByteSegment(bits, text, count, currentCharacterSetECI, byteSegments, hints);
           } else if (mode.equals(Mode.KANJI)) {
             decodeKanjiSegment(bits, result, count);
           } else {
@@ -109,7 +109,8 @@ final class DecodedBitStreamParser {
       }
     } while (!mode.equals(Mode.TERMINATOR));
 
-    return new DecoderResult(bytes, result.toString(), byteSegments.isEmpty() ? null : byteSegments, ecLevel);
+    text.append(result.toString());
+    return new DecoderResult(bytes, text, byteSegments.isEmpty() ? null : byteSegments, ecLevel);
   }
 
   private static void decodeKanjiSegment(BitSource bits,
@@ -137,17 +138,18 @@ final class DecodedBitStreamParser {
     }
     // Shift_JIS may not be supported in some environments:
     try {
-      result.append(new String(buffer, SHIFT_JIS));
+      result.append(new String(buffer, StringUtils.SHIFT_JIS));
     } catch (UnsupportedEncodingException uee) {
       throw ReaderException.getInstance();
     }
   }
 
   private static void decodeByteSegment(BitSource bits,
-                                        StringBuffer result,
+                                        TextSegments text,
                                         int count,
                                         CharacterSetECI currentCharacterSetECI,
-                                        Vector byteSegments) throws ReaderException {
+                                        Vector byteSegments,
+                                        Hashtable hints) throws ReaderException {
     byte[] readBytes = new byte[count];
     if (count << 3 > bits.available()) {
       throw ReaderException.getInstance();
@@ -161,16 +163,13 @@ final class DecodedBitStreamParser {
     // section 6.4.5: t does not say which encoding to assuming
     // upon decoding. I have seen ISO-8859-1 used as well as
     // Shift_JIS -- without anything like an ECI designator to
-    // give a hint.
-      encoding = guessEncoding(readBytes);
+    // give a hint. Unless the caller says which, a null encoding
+    // means it is guessed when the text is needed.
+      encoding = hints == null ? null : (String) hints.get(DecodeHintType.CHARACTER_SET);
     } else {
       encoding = currentCharacterSetECI.getEncodingName();
     }
-    try {
-      result.append(new String(readBytes, encoding));
-    } catch (UnsupportedEncodingException uce) {
-      throw ReaderException.getInstance();
-    }
+    text.append(readBytes, encoding);
     byteSegments.addElement(readBytes);
   }
 
@@ -240,97 +239,6 @@ final class DecodedBitStreamParser {
     }
   }
 
-  private static String guessEncoding(byte[] bytes) {
-    if (ASSUME_SHIFT_JIS) {
-      return SHIFT_JIS;
-    }
-    // Does it start with the UTF-8 byte order mark? then guess it's UTF-8
-    if (bytes.length > 3 && bytes[0] == (byte) 0xEF && bytes[1] == (byte) 0xBB && bytes[2] == (byte) 0xBF) {
-      return UTF8;
-    }
-    // For now, merely tries to distinguish ISO-8859-1, UTF-8 and Shift_JIS,
-    // which should be by far the most common encodings. ISO-8859-1
-    // should not have bytes in the 0x80 - 0x9F range, while Shift_JIS
-    // uses this as a first byte of a two-byte character. If we see this
-    // followed by a valid second byte in Shift_JIS, assume it is Shift_JIS.
-    // If we see something else in that second byte, we'll make the risky guess
-    // that it's UTF-8.
-    int length = bytes.length;
-    boolean canBeISO88591 = true;
-    boolean canBeShiftJIS = true;
-    int maybeDoubleByteCount = 0;
-    int maybeSingleByteKatakanaCount = 0;
-    boolean sawLatin1Supplement = false;
-    boolean lastWasPossibleDoubleByteStart = false;
-    for (int i = 0; i < length && (canBeISO88591 || canBeShiftJIS); i++) {
-      int value = bytes[i] & 0xFF;
-      if ((value == 0xC2 || value == 0xC3) && i < length - 1) {
-        // This is really a poor hack. The slightly more exotic characters people might want to put in
-        // a QR Code, by which I mean the Latin-1 supplement characters (e.g. u-umlaut) have encodings
-        // that start with 0xC2 followed by [0xA0,0xBF], or start with 0xC3 followed by [0x80,0xBF].
-        int nextValue = bytes[i + 1] & 0xFF;
-        if (nextValue <= 0xBF && ((value == 0xC2 && nextValue >= 0xA0) || (value == 0xC3 && nextValue >= 0x80))) {
-          sawLatin1Supplement = true;
-        }
-      }
-      if (value >= 0x7F && value <= 0x9F) {
-        canBeISO88591 = false;
-      }
-      if (value >= 0xA1 && value <= 0xDF) {
-        // count the number of characters that might be a Shift_JIS single-byte Katakana character
-        if (!lastWasPossibleDoubleByteStart) {
-          maybeSingleByteKatakanaCount++;
-        }
-      }
-      if (!lastWasPossibleDoubleByteStart && ((value >= 0xF0 && value <= 0xFF) || value == 0x80 || value == 0xA0)) {
-        canBeShiftJIS = false;
-      }
-      if (((value >= 0x81 && value <= 0x9F) || (value >= 0xE0 && value <= 0xEF))) {
-        // These start double-byte characters in Shift_JIS. Let's see if it's followed by a valid
-        // second byte.
-        if (lastWasPossibleDoubleByteStart) {
-          // If we just checked this and the last byte for being a valid double-byte
-          // char, don't check starting on this byte. If this and the last byte
-          // formed a valid pair, then this shouldn't be checked to see if it starts
-          // a double byte pair of course.
-          lastWasPossibleDoubleByteStart = false;
-        } else {
-          // ... otherwise do check to see if this plus the next byte form a valid
-          // double byte pair encoding a character.
-          lastWasPossibleDoubleByteStart = true;
-          if (i >= bytes.length - 1) {
-            canBeShiftJIS = false;
-          } else {
-            int nextValue = bytes[i + 1] & 0xFF;
-            if (nextValue < 0x40 || nextValue > 0xFC) {
-              canBeShiftJIS = false;
-            } else {
-              maybeDoubleByteCount++;
-            }
-            // There is some conflicting information out there about which bytes can follow which in
-            // double-byte Shift_JIS characters. The rule above seems to be the one that matches practice.
-          }
-        }
-      } else {
-        lastWasPossibleDoubleByteStart = false;
-      }
-    }
-    // Distinguishing Shift_JIS and ISO-8859-1 can be a little tough. The crude heuristic is:
-    // - If we saw
-    //   - at least three byte that starts a double-byte value (bytes that are rare in ISO-8859-1), or
-    //   - over 5% of bytes that could be single-byte Katakana (also rare in ISO-8859-1),
-    // - and, saw no sequences that are invalid in Shift_JIS, then we conclude Shift_JIS
-    if (canBeShiftJIS && (maybeDoubleByteCount >= 3 || 20 * maybeSingleByteKatakanaCount > length)) {
-      return SHIFT_JIS;
-    }
-    // Otherwise, we default to ISO-8859-1 unless we know it can't be
-    if (!sawLatin1Supplement && canBeISO88591) {
-      return ISO88591;
-    }
-    // Otherwise, we take a wild guess with UTF-8
-    return UTF8;
-  }
-  
   private static int parseECIValue(BitSource bits) {
     int firstByte = bits.readBits(8);
     if ((firstByte & 0x80) == 0) {
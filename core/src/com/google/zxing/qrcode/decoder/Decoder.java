@@ -23,6 +23,8 @@ import com.google.zxing.common.reedsolomon.GF256;
 import com.google.zxing.common.reedsolomon.ReedSolomonDecoder;
 import com.google.zxing.common.reedsolomon.ReedSolomonException;
 
+import java.util.Hashtable;
+
 /**
  * <p>The main class which implements QR Code decoding -- as opposed to locating and extracting
  * the QR Code from an image.</p>
@@ -66,6 +68,19 @@ public final class Decoder {
    * @throws ReaderException if the QR Code cannot be decoded
    */
   public DecoderResult decode(BitMatrix bits) throws ReaderException {
+    return decode(bits, null);
+  }
+
+  /**
+   * <p>Decodes a QR Code represented as a {@link BitMatrix}. A 1 or "true" is taken to mean a black module.</p>
+   *
+   * @param bits booleans representing white/black QR Code modules
+   * @param hints decoding hints that should be used to interpret the contents, like
+   *  {@link com.google.zxing.DecodeHintType#CHARACTER_SET}; may be null
+   * @return text and bytes encoded within the QR Code
+   * @throws ReaderException if the QR Code cannot be decoded
+   */
+  public DecoderResult decode(BitMatrix bits, Hashtable hints) throws ReaderException {
 
     // Construct a parser and read version, error-correction level
     BitMatrixParser parser = new BitMatrixParser(bits);
@@ -97,7 +112,7 @@ public final class Decoder {
     }
 
     // Decode the contents of that stream of bytes
-    return DecodedBitStreamParser.decode(resultBytes, version, ecLevel);
+    return DecodedBitStreamParser.decode(resultBytes, version, ecLevel, hints);
   }
 
   /**
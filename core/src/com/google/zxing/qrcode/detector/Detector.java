@@ -61,11 +61,19 @@ public class Detector {
    * @throws ReaderException if no QR Code can be found
    */
   public DetectorResult detect(Hashtable hints) throws ReaderException {
+    return processFinderPatternInfo(findFinderPatterns(hints));
+  }
 
+  /**
+   * <p>Finds the three finder patterns of a QR Code, without sampling or decoding it.</p>
+   *
+   * @param hints optional hints to detector
+   * @return the finder patterns, in order
+   * @throws ReaderException if three finder patterns cannot be found
+   */
+  public FinderPatternInfo findFinderPatterns(Hashtable hints) throws ReaderException {
     FinderPatternFinder finder = new FinderPatternFinder(image);
-    FinderPatternInfo info = finder.find(hints);
-
-    return processFinderPatternInfo(info);
+    return finder.find(hints);
   }
 
   protected DetectorResult processFinderPatternInfo(FinderPatternInfo info) throws ReaderException {
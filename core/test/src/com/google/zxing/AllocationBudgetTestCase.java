@@ -0,0 +1,156 @@
+/*
+ * Copyright 2010 ZXing authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.zxing;
+
+import com.google.zxing.benchmark.BenchmarkImages;
+import com.google.zxing.common.GlobalHistogramBinarizer;
+import junit.framework.TestCase;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.Hashtable;
+import java.util.Vector;
+
+/**
+ * <p>Holds the bytes allocated by one {@link MultiFormatReader#decodeWithState(BinaryBitmap)} call
+ * to a budget, since continuous scanning on a phone is limited by garbage collection. Each frame is
+ * decoded as the Android client decodes a preview frame: a new GlobalHistogramBinarizer and
+ * BinaryBitmap around it, and a reader whose hints were set once.</p>
+ *
+ * <p>The budgets are about a quarter above what the decoder allocates today. When a change
+ * reduces allocation, lower the budget it affects so the gain is kept.</p>
+ *
+ * <p>This decodes each frame dozens of times, which is slow in the interpreter that test-unit
+ * uses, so it has its own ant target, test-allocation.</p>
+ */
+public final class AllocationBudgetTestCase extends TestCase {
+
+  private static final int WARMUP_CALLS = 20;
+  private static final int MEASURED_CALLS = 10;
+
+  /**
+   * The common case: a frame with no barcode in it, which every reader tries and fails on.
+   */
+  public void testFailurePath() throws IOException {
+    for (int i = 0; i < 4; i++) {
+      assertBudget("falsepositives", i, null, 60 * 1024);
+    }
+  }
+
+  public void testOneDSuccessPath() throws IOException {
+    assertBudget("upca-1", 1, BarcodeFormat.UPC_A, 3 * 1024);
+    assertBudget("upce-1", 0, BarcodeFormat.UPC_E, 2 * 1024);
+    assertBudget("ean13-1", 1, BarcodeFormat.EAN_13, 2 * 1024);
+    assertBudget("ean8-1", 0, BarcodeFormat.EAN_8, 2 * 1024);
+    assertBudget("code39-1", 2, BarcodeFormat.CODE_39, 2 * 1024);
+    assertBudget("code128-1", 1, BarcodeFormat.CODE_128, 2 * 1024);
+    assertBudget("itf-1", 0, BarcodeFormat.ITF, 2 * 1024);
+  }
+
+  public void testQRCodeSuccessPath() throws IOException {
+    assertBudget("qrcode-1", 0, BarcodeFormat.QR_CODE, 60 * 1024);
+  }
+
+  public void testDataMatrixSuccessPath() throws IOException {
+    assertBudget("datamatrix-1", 0, BarcodeFormat.DATAMATRIX, 34 * 1024);
+  }
+
+  public void testPDF417SuccessPath() throws IOException {
+    assertBudget("pdf417", 0, BarcodeFormat.PDF417, 28 * 1024);
+  }
+
+  /**
+   * @param expectedFormat the format the image must decode as, or null if it must not decode
+   */
+  private static void assertBudget(String directory, int index, BarcodeFormat expectedFormat,
+                                   long budget) throws IOException {
+    com.sun.management.ThreadMXBean allocationBean = getAllocationBean();
+    if (allocationBean == null) {
+      // Nothing to measure with on this JVM
+      return;
+    }
+    LuminanceSource source = BenchmarkImages.load(directory).get(index);
+    MultiFormatReader reader = createReader(expectedFormat);
+    String frame = directory + ' ' + index;
+
+    for (int i = 0; i < WARMUP_CALLS; i++) {
+      Result result = decode(reader, source);
+      if (expectedFormat == null) {
+        assertNull(frame + " should not decode", result);
+      } else {
+        assertNotNull(frame + " should decode", result);
+        assertEquals(frame, expectedFormat, result.getBarcodeFormat());
+      }
+    }
+
+    long thread = Thread.currentThread().getId();
+    long before = allocationBean.getThreadAllocatedBytes(thread);
+    for (int i = 0; i < MEASURED_CALLS; i++) {
+      decode(reader, source);
+    }
+    long perCall = (allocationBean.getThreadAllocatedBytes(thread) - before) / MEASURED_CALLS;
+    assertTrue(frame + " allocated " + perCall + " bytes per decode, over the budget of " +
+        budget, perCall <= budget);
+  }
+
+  private static Result decode(MultiFormatReader reader, LuminanceSource source) {
+    try {
+      return reader.decodeWithState(new BinaryBitmap(new GlobalHistogramBinarizer(source)));
+    } catch (ReaderException re) {
+      return null;
+    }
+  }
+
+  /**
+   * @return a reader with the formats the Android client enables, plus the one expected if the
+   *         client does not enable it
+   */
+  private static MultiFormatReader createReader(BarcodeFormat expectedFormat) {
+    Vector<BarcodeFormat> formats = new Vector<BarcodeFormat>(9);
+    formats.addElement(BarcodeFormat.UPC_A);
+    formats.addElement(BarcodeFormat.UPC_E);
+    formats.addElement(BarcodeFormat.EAN_13);
+    formats.addElement(BarcodeFormat.EAN_8);
+    formats.addElement(BarcodeFormat.CODE_39);
+    formats.addElement(BarcodeFormat.CODE_128);
+    formats.addElement(BarcodeFormat.ITF);
+    formats.addElement(BarcodeFormat.QR_CODE);
+    if (expectedFormat != null && !formats.contains(expectedFormat)) {
+      formats.addElement(expectedFormat);
+    }
+    Hashtable<DecodeHintType, Object> hints = new Hashtable<DecodeHintType, Object>(3);
+    hints.put(DecodeHintType.POSSIBLE_FORMATS, formats);
+    MultiFormatReader reader = new MultiFormatReader();
+    reader.setHints(hints);
+    return reader;
+  }
+
+  private static com.sun.management.ThreadMXBean getAllocationBean() {
+    ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+    if (!(bean instanceof com.sun.management.ThreadMXBean)) {
+      return null;
+    }
+    com.sun.management.ThreadMXBean allocationBean = (com.sun.management.ThreadMXBean) bean;
+    if (!allocationBean.isThreadAllocatedMemorySupported()) {
+      return null;
+    }
+    allocationBean.setThreadAllocatedMemoryEnabled(true);
+    return allocationBean;
+  }
+
+}
@@ -0,0 +1,126 @@
+/*
+ * Copyright 2010 ZXing authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.zxing;
+
+import com.google.zxing.common.ByteMatrix;
+import com.google.zxing.common.GlobalHistogramBinarizer;
+import junit.framework.TestCase;
+
+public final class MultiFormatLocatorTestCase extends TestCase {
+
+  private static final int WIDTH = 640;
+  private static final int HEIGHT = 480;
+
+  public void testLocateEAN13() throws Exception {
+    ByteMatrix code = new MultiFormatWriter().encode("5901234123457", BarcodeFormat.EAN_13, 300, 120);
+    BarcodeLocation location = new MultiFormatLocator().locate(draw(code, 100, 200), null);
+    assertEquals(BarcodeFormat.EAN_13, location.getFormat());
+    assertLocation(code, 100, 200, location);
+  }
+
+  public void testLocateEAN8() throws Exception {
+    ByteMatrix code = new MultiFormatWriter().encode("96385074", BarcodeFormat.EAN_8, 200, 120);
+    BarcodeLocation location = new MultiFormatLocator().locate(draw(code, 300, 180), null);
+    assertEquals(BarcodeFormat.EAN_8, location.getFormat());
+    assertLocation(code, 300, 180, location);
+  }
+
+  public void testLocateQRCode() throws Exception {
+    ByteMatrix code = new MultiFormatWriter().encode("http://zxing.org/", BarcodeFormat.QR_CODE, 200, 200);
+    BarcodeLocation location = new MultiFormatLocator().locate(draw(code, 50, 40), null);
+    assertEquals(BarcodeFormat.QR_CODE, location.getFormat());
+    assertLocation(code, 50, 40, location);
+    assertEquals(location.getWidth(), location.getHeight(), 4.0f);
+  }
+
+  public void testNothingToLocate() {
+    ByteMatrix blank = new ByteMatrix(10, 10);
+    blank.clear((byte) 255);
+    try {
+      new MultiFormatLocator().locate(draw(blank, 0, 0), null);
+      fail("Should not find a barcode");
+    } catch (ReaderException re) {
+      // good
+    }
+  }
+
+  /**
+   * Checks the location's horizontal extent and center against the black pixels drawn. 1D codes
+   * are only found on the rows sampled, so their height is not checked.
+   */
+  private static void assertLocation(ByteMatrix code, int left, int top, BarcodeLocation location) {
+    int minX = Integer.MAX_VALUE;
+    int maxX = -1;
+    int minY = Integer.MAX_VALUE;
+    int maxY = -1;
+    for (int y = 0; y < code.getHeight(); y++) {
+      for (int x = 0; x < code.getWidth(); x++) {
+        if (code.get(x, y) == 0) {
+          minX = Math.min(minX, x);
+          maxX = Math.max(maxX, x);
+          minY = Math.min(minY, y);
+          maxY = Math.max(maxY, y);
+        }
+      }
+    }
+    float width = maxX - minX + 1;
+    assertEquals(width, location.getWidth(), width / 20.0f);
+    assertEquals(left + width / 2.0f, location.getCenterX(), width / 20.0f);
+    assertTrue(location.getCenterY() > top + minY && location.getCenterY() < top + maxY);
+  }
+
+  /**
+   * Draws the writer's output on a white frame with its top left corner at (left, top). The
+   * writers center the code in the requested size, so the margin they add is trimmed first.
+   */
+  private static BinaryBitmap draw(ByteMatrix code, int left, int top) {
+    int minX = code.getWidth();
+    for (int y = 0; y < code.getHeight(); y++) {
+      for (int x = 0; x < code.getWidth(); x++) {
+        if (code.get(x, y) == 0 && x < minX) {
+          minX = x;
+        }
+      }
+    }
+    if (minX == code.getWidth()) {
+      minX = 0;
+    }
+    final byte[] pixels = new byte[WIDTH * HEIGHT];
+    for (int i = 0; i < pixels.length; i++) {
+      pixels[i] = (byte) 255;
+    }
+    for (int y = 0; y < code.getHeight() && top + y < HEIGHT; y++) {
+      for (int x = minX; x < code.getWidth() && left + x - minX < WIDTH; x++) {
+        pixels[(top + y) * WIDTH + left + x - minX] = code.get(x, y);
+      }
+    }
+    LuminanceSource source = new LuminanceSource(WIDTH, HEIGHT) {
+      public byte[] getRow(int y, byte[] row) {
+        if (row == null || row.length < WIDTH) {
+          row = new byte[WIDTH];
+        }
+        System.arraycopy(pixels, y * WIDTH, row, 0, WIDTH);
+        return row;
+      }
+      public byte[] getMatrix() {
+        return pixels;
+      }
+    };
+    return new BinaryBitmap(new GlobalHistogramBinarizer(source));
+  }
+
+}
@@ -0,0 +1,514 @@
+/*
+ * Copyright 2010 ZXing authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.zxing;
+
+import com.google.zxing.client.j2se.BufferedImageLuminanceSource;
+import com.google.zxing.common.AbstractBlackBoxTestCase;
+import com.google.zxing.common.GlobalHistogramBinarizer;
+
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import javax.imageio.ImageIO;
+
+/**
+ * <p>Runs the positive black box tests across all cores. Every combination of image, rotation and
+ * try harder hint is a separate unit of work for a fixed pool of threads. Each thread decodes with
+ * its own instance of each test case, since readers are not thread-safe, while an image is loaded
+ * and rotated once and shared by all the units which need it, then dropped when the last of them
+ * finishes.</p>
+ *
+ * <p>Alongside the pass counts of each test, it reports how long each image took to decode: the
+ * median, 90th percentile and maximum over that image's units. It can write the report as JSON,
+ * and the per-image timings as CSV.</p>
+ *
+ * <pre>
+ * java com.google.zxing.ParallelBlackBoxRunner [--threads n] [--filter substring] [--json file]
+ *     [--csv file]
+ * </pre>
+ *
+ * <p>By default there is one thread per processor. Run it from the core directory. The exit status
+ * is 1 if any test decoded fewer images than it requires.</p>
+ */
+public final class ParallelBlackBoxRunner {
+
+  private static final String CSV_HEADER =
+      "test,image,units,passed,median_ms,p90_ms,max_ms,total_ms";
+
+  private final int threads;
+
+  public ParallelBlackBoxRunner(int threads) {
+    this.threads = threads;
+  }
+
+  public List<TestReport> run(List<AbstractBlackBoxTestCase> tests)
+      throws IOException, InterruptedException {
+    List<TestReport> reports = new ArrayList<TestReport>(tests.size());
+    List<Unit> units = new ArrayList<Unit>();
+    ThreadLocal<Map<Class<?>, AbstractBlackBoxTestCase>> instances =
+        new ThreadLocal<Map<Class<?>, AbstractBlackBoxTestCase>>() {
+          protected Map<Class<?>, AbstractBlackBoxTestCase> initialValue() {
+            return new HashMap<Class<?>, AbstractBlackBoxTestCase>();
+          }
+        };
+    for (AbstractBlackBoxTestCase test : tests) {
+      File[] imageFiles = test.getImageFiles();
+      Arrays.sort(imageFiles);
+      TestReport report = new TestReport(test, imageFiles.length);
+      reports.add(report);
+      int testCount = test.getTestCount();
+      for (File imageFile : imageFiles) {
+        ImageReport image = new ImageReport(imageFile, test.readExpectedText(imageFile));
+        report.images.add(image);
+        SharedImage shared = new SharedImage(imageFile, test, testCount * 2);
+        for (int x = 0; x < testCount; x++) {
+          units.add(new Unit(report, image, shared, x, false, instances));
+          units.add(new Unit(report, image, shared, x, true, instances));
+        }
+      }
+    }
+
+    ExecutorService executor = Executors.newFixedThreadPool(threads);
+    try {
+      List<Future<Object>> futures = new ArrayList<Future<Object>>(units.size());
+      for (Unit unit : units) {
+        futures.add(executor.submit(unit));
+      }
+      for (Future<Object> future : futures) {
+        try {
+          future.get();
+        } catch (ExecutionException ee) {
+          Throwable cause = ee.getCause();
+          if (cause instanceof IOException) {
+            throw (IOException) cause;
+          }
+          throw new IllegalStateException(cause.toString());
+        }
+      }
+    } finally {
+      executor.shutdownNow();
+    }
+    return reports;
+  }
+
+  public static void main(String[] args) throws Exception {
+    int threads = Runtime.getRuntime().availableProcessors();
+    String filter = null;
+    String jsonFile = null;
+    String csvFile = null;
+    for (int i = 0; i < args.length; i++) {
+      String arg = args[i];
+      if (i + 1 == args.length) {
+        usage();
+      } else if ("--threads".equals(arg)) {
+        threads = Integer.parseInt(args[++i]);
+        if (threads <= 0) {
+          threads = Runtime.getRuntime().availableProcessors();
+        }
+      } else if ("--filter".equals(arg)) {
+        filter = args[++i];
+      } else if ("--json".equals(arg)) {
+        jsonFile = args[++i];
+      } else if ("--csv".equals(arg)) {
+        csvFile = args[++i];
+      } else {
+        usage();
+      }
+    }
+
+    List<AbstractBlackBoxTestCase> tests = new ArrayList<AbstractBlackBoxTestCase>();
+    for (AbstractBlackBoxTestCase test : AllPositiveBlackBoxTester.TESTS) {
+      if (filter == null || getName(test).indexOf(filter) >= 0) {
+        tests.add(test);
+      }
+    }
+
+    long start = System.nanoTime();
+    List<TestReport> reports = new ParallelBlackBoxRunner(threads).run(tests);
+    long elapsed = System.nanoTime() - start;
+
+    boolean passed = true;
+    int totalFound = 0;
+    int totalMustPass = 0;
+    int totalTests = 0;
+    for (TestReport report : reports) {
+      System.out.println(report);
+      passed &= report.isPassed();
+      totalFound += report.getFoundCount();
+      totalMustPass += report.getMustPassCount();
+      totalTests += report.getUnitCount();
+    }
+    System.out.println(new AbstractBlackBoxTestCase.SummaryResults(totalFound, totalMustPass,
+        totalTests) + "\n  Total time: " + toMillis(elapsed) + " ms on " + threads + " threads");
+
+    if (jsonFile != null) {
+      PrintWriter json = new PrintWriter(new FileWriter(jsonFile));
+      try {
+        json.println("{\"threads\":" + threads + ",\"elapsed_ms\":" + toMillis(elapsed) +
+            ",\"found\":" + totalFound + ",\"required\":" + totalMustPass + ",\"total\":" +
+            totalTests + ",\"tests\":[");
+        for (int i = 0; i < reports.size(); i++) {
+          json.println(reports.get(i).toJSON() + (i + 1 < reports.size() ? "," : ""));
+        }
+        json.println("]}");
+      } finally {
+        json.close();
+      }
+    }
+    if (csvFile != null) {
+      PrintWriter csv = new PrintWriter(new FileWriter(csvFile));
+      try {
+        csv.println(CSV_HEADER);
+        for (TestReport report : reports) {
+          for (ImageReport image : report.images) {
+            csv.println(report.name + ',' + image.toCSV());
+          }
+        }
+      } finally {
+        csv.close();
+      }
+    }
+    System.exit(passed ? 0 : 1);
+  }
+
+  private static void usage() {
+    System.err.println("Usage: ParallelBlackBoxRunner [--threads n] [--filter substring] " +
+        "[--json file] [--csv file]");
+    System.exit(2);
+  }
+
+  private static String getName(AbstractBlackBoxTestCase test) {
+    String name = test.getClass().getName();
+    return name.substring(name.lastIndexOf('.') + 1);
+  }
+
+  private static String toMillis(long nanos) {
+    long hundredths = (nanos + 5000L) / 10000L;
+    long fraction = hundredths % 100L;
+    return hundredths / 100L + (fraction < 10L ? ".0" : ".") + fraction;
+  }
+
+  private static String quote(String value) {
+    StringBuilder result = new StringBuilder(value.length() + 2);
+    result.append('"');
+    for (int i = 0; i < value.length(); i++) {
+      char c = value.charAt(i);
+      if (c == '"' || c == '\\') {
+        result.append('\\').append(c);
+      } else if (c < ' ') {
+        String hex = Integer.toHexString(c);
+        result.append("\\u00").append(hex.length() < 2 ? "0" : "").append(hex);
+      } else {
+        result.append(c);
+      }
+    }
+    return result.append('"').toString();
+  }
+
+  /**
+   * One image, rotated and decoded with or without the try harder hint.
+   */
+  private static final class Unit implements Callable<Object> {
+    private final TestReport report;
+    private final ImageReport image;
+    private final SharedImage shared;
+    private final int test;
+    private final boolean tryHarder;
+    private final ThreadLocal<Map<Class<?>, AbstractBlackBoxTestCase>> instances;
+
+    Unit(TestReport report, ImageReport image, SharedImage shared, int test, boolean tryHarder,
+         ThreadLocal<Map<Class<?>, AbstractBlackBoxTestCase>> instances) {
+      this.report = report;
+      this.image = image;
+      this.shared = shared;
+      this.test = test;
+      this.tryHarder = tryHarder;
+      this.instances = instances;
+    }
+
+    public Object call() throws Exception {
+      AbstractBlackBoxTestCase testCase = getInstance();
+      LuminanceSource source;
+      try {
+        source = shared.getSource(test);
+      } finally {
+        shared.release();
+      }
+      long start = System.nanoTime();
+      BinaryBitmap bitmap = new BinaryBitmap(new GlobalHistogramBinarizer(source));
+      boolean passed = testCase.decodeAndCompare(bitmap, image.expectedText, tryHarder) == null;
+      long latency = System.nanoTime() - start;
+      image.add(latency, passed);
+      if (passed) {
+        report.pass(test, tryHarder);
+      }
+      return null;
+    }
+
+    private AbstractBlackBoxTestCase getInstance() throws Exception {
+      Map<Class<?>, AbstractBlackBoxTestCase> map = instances.get();
+      Class<? extends AbstractBlackBoxTestCase> type = report.test.getClass();
+      AbstractBlackBoxTestCase instance = map.get(type);
+      if (instance == null) {
+        instance = type.newInstance();
+        map.put(type, instance);
+      }
+      return instance;
+    }
+  }
+
+  /**
+   * An image file, loaded when first needed and rotated once for each test, which is freed once
+   * every unit using it has taken what it needs.
+   */
+  private static final class SharedImage {
+    private final File file;
+    private final AbstractBlackBoxTestCase test;
+    private int remaining;
+    private BufferedImage image;
+    private LuminanceSource[] sources;
+
+    SharedImage(File file, AbstractBlackBoxTestCase test, int units) {
+      this.file = file;
+      this.test = test;
+      remaining = units;
+    }
+
+    synchronized LuminanceSource getSource(int index) throws IOException {
+      if (sources == null) {
+        image = ImageIO.read(file);
+        if (image == null) {
+          throw new IOException("Could not read " + file);
+        }
+        sources = new LuminanceSource[test.getTestCount()];
+      }
+      if (sources[index] == null) {
+        sources[index] = new BufferedImageLuminanceSource(
+            AbstractBlackBoxTestCase.rotateImage(image, test.getRotation(index)));
+      }
+      return sources[index];
+    }
+
+    synchronized void release() {
+      if (--remaining == 0) {
+        image = null;
+        sources = null;
+      }
+    }
+  }
+
+  /**
+   * The pass counts of one test case, for each rotation with and without trying harder.
+   */
+  public static final class TestReport {
+    private final AbstractBlackBoxTestCase test;
+    private final String name;
+    private final int imageCount;
+    private final int[] passedCounts;
+    private final int[] tryHarderCounts;
+    private final List<ImageReport> images;
+
+    TestReport(AbstractBlackBoxTestCase test, int imageCount) {
+      this.test = test;
+      name = ParallelBlackBoxRunner.getName(test);
+      this.imageCount = imageCount;
+      passedCounts = new int[test.getTestCount()];
+      tryHarderCounts = new int[test.getTestCount()];
+      images = new ArrayList<ImageReport>(imageCount);
+    }
+
+    synchronized void pass(int index, boolean tryHarder) {
+      if (tryHarder) {
+        tryHarderCounts[index]++;
+      } else {
+        passedCounts[index]++;
+      }
+    }
+
+    public String getName() {
+      return name;
+    }
+
+    public List<ImageReport> getImages() {
+      return images;
+    }
+
+    public synchronized int getFoundCount() {
+      int found = 0;
+      for (int x = 0; x < passedCounts.length; x++) {
+        found += passedCounts[x] + tryHarderCounts[x];
+      }
+      return found;
+    }
+
+    public int getMustPassCount() {
+      int mustPass = 0;
+      for (int x = 0; x < passedCounts.length; x++) {
+        mustPass += test.getMustPassCount(x) + test.getTryHarderCount(x);
+      }
+      return mustPass;
+    }
+
+    public int getUnitCount() {
+      return imageCount * passedCounts.length * 2;
+    }
+
+    public synchronized boolean isPassed() {
+      for (int x = 0; x < passedCounts.length; x++) {
+        if (passedCounts[x] < test.getMustPassCount(x) ||
+            tryHarderCounts[x] < test.getTryHarderCount(x)) {
+          return false;
+        }
+      }
+      return true;
+    }
+
+    public synchronized String toString() {
+      StringBuilder result = new StringBuilder(name);
+      result.append(":\n");
+      for (int x = 0; x < passedCounts.length; x++) {
+        result.append("  Rotation ").append(test.getRotation(x)).append(" degrees: ")
+            .append(passedCounts[x]).append(" of ").append(imageCount).append(" passed (")
+            .append(test.getMustPassCount(x)).append(" required), ").append(tryHarderCounts[x])
+            .append(" with try harder (").append(test.getTryHarderCount(x)).append(" required)")
+            .append('\n');
+      }
+      ImageReport slowest = null;
+      for (ImageReport image : images) {
+        if (slowest == null || image.getLatencyPercentile(100) >
+            slowest.getLatencyPercentile(100)) {
+          slowest = image;
+        }
+      }
+      if (slowest != null) {
+        result.append("  Slowest image ").append(slowest.file.getName()).append(": ")
+            .append(toMillis(slowest.getLatencyPercentile(100))).append(" ms\n");
+      }
+      if (!isPassed()) {
+        result.append("  *** Too many images failed\n");
+      }
+      return result.toString();
+    }
+
+    synchronized String toJSON() {
+      StringBuilder result = new StringBuilder(100 + images.size() * 120);
+      result.append("{\"name\":").append(quote(name)).append(",\"images\":").append(imageCount)
+          .append(",\"passed\":").append(isPassed()).append(",\"rotations\":[");
+      for (int x = 0; x < passedCounts.length; x++) {
+        if (x > 0) {
+          result.append(',');
+        }
+        result.append("{\"rotation\":").append(test.getRotation(x))
+            .append(",\"passed\":").append(passedCounts[x])
+            .append(",\"required\":").append(test.getMustPassCount(x))
+            .append(",\"try_harder_passed\":").append(tryHarderCounts[x])
+            .append(",\"try_harder_required\":").append(test.getTryHarderCount(x)).append('}');
+      }
+      result.append("],\"timings\":[");
+      for (int i = 0; i < images.size(); i++) {
+        if (i > 0) {
+          result.append(',');
+        }
+        result.append(images.get(i).toJSON());
+      }
+      return result.append("]}").toString();
+    }
+  }
+
+  /**
+   * How long each unit of one image took to decode, and how many decoded correctly.
+   */
+  public static final class ImageReport {
+    private final File file;
+    private final String expectedText;
+    private final List<Long> latencies;
+    private int passed;
+
+    ImageReport(File file, String expectedText) {
+      this.file = file;
+      this.expectedText = expectedText;
+      latencies = new ArrayList<Long>();
+    }
+
+    synchronized void add(long latency, boolean passed) {
+      latencies.add(latency);
+      if (passed) {
+        this.passed++;
+      }
+    }
+
+    public File getFile() {
+      return file;
+    }
+
+    public synchronized int getPassedCount() {
+      return passed;
+    }
+
+    /**
+     * @param percentile 0 to 100
+     * @return the decode latency, in nanoseconds, at that percentile
+     */
+    public synchronized long getLatencyPercentile(int percentile) {
+      if (latencies.isEmpty()) {
+        return 0L;
+      }
+      long[] sorted = new long[latencies.size()];
+      for (int i = 0; i < sorted.length; i++) {
+        sorted[i] = latencies.get(i);
+      }
+      Arrays.sort(sorted);
+      return sorted[Math.min(sorted.length - 1, sorted.length * percentile / 100)];
+    }
+
+    public synchronized long getTotalLatency() {
+      long total = 0L;
+      for (long latency : latencies) {
+        total += latency;
+      }
+      return total;
+    }
+
+    synchronized String toJSON() {
+      return "{\"image\":" + quote(file.getName()) + ",\"units\":" + latencies.size() +
+          ",\"passed\":" + passed + ",\"median_ms\":" + toMillis(getLatencyPercentile(50)) +
+          ",\"p90_ms\":" + toMillis(getLatencyPercentile(90)) + ",\"max_ms\":" +
+          toMillis(getLatencyPercentile(100)) + ",\"total_ms\":" + toMillis(getTotalLatency()) +
+          '}';
+    }
+
+    synchronized String toCSV() {
+      return file.getName() + ',' + latencies.size() + ',' + passed + ',' +
+          toMillis(getLatencyPercentile(50)) + ',' + toMillis(getLatencyPercentile(90)) + ',' +
+          toMillis(getLatencyPercentile(100)) + ',' + toMillis(getTotalLatency());
+    }
+  }
+
+}
@@ -0,0 +1,536 @@
+/*
+ * Copyright 2010 ZXing authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.zxing.batch;
+
+import com.google.zxing.BarcodeFormat;
+import com.google.zxing.BinaryBitmap;
+import com.google.zxing.DecodeHintType;
+import com.google.zxing.LuminanceSource;
+import com.google.zxing.MultiFormatReader;
+import com.google.zxing.ReaderException;
+import com.google.zxing.Result;
+import com.google.zxing.ResultPoint;
+import com.google.zxing.client.j2se.BufferedImageLuminanceSource;
+import com.google.zxing.common.GlobalHistogramBinarizer;
+import com.google.zxing.multi.GenericMultipleBarcodeReader;
+
+import java.awt.image.BufferedImage;
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.util.HashMap;
+import java.util.Hashtable;
+import java.util.Map;
+import java.util.StringTokenizer;
+import java.util.Vector;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+
+import javax.imageio.ImageIO;
+
+/**
+ * <p>Decodes large numbers of image files offline and streams the results as newline-delimited
+ * JSON, one line per image, in the order {@link ImageInputs} enumerates them:</p>
+ *
+ * <pre>
+ * {"input":0,"path":"a/1.jpg","width":640,"height":480,"load_ms":12.30,"decode_ms":4.51,
+ *  "results":[{"format":"QR_CODE","text":"...","points":[[10.5,20.0],...]}]}
+ * </pre>
+ *
+ * <p>(on one line), with an empty "results" if nothing decoded, or an "error" instead if the image
+ * could not be read. The work is a pipeline:</p>
+ *
+ * <ol>
+ * <li>the calling thread enumerates inputs and hands them to a pool of loader threads;</li>
+ * <li>loaders read each image and convert it to luminance, then drop the image itself. At most
+ *   {@code prefetch} images are held as luminance at once, so loaders wait when decoding falls
+ *   behind;</li>
+ * <li>a pool of decoder threads, by default one per processor, each with its own
+ *   MultiFormatReader, decodes them, optionally with GenericMultipleBarcodeReader to find several
+ *   barcodes per image;</li>
+ * <li>results are written in input order. At most {@code window} inputs are between enumeration
+ *   and being written, so enumeration waits if one slow image holds up the output.</li>
+ * </ol>
+ *
+ * <p>Memory therefore stays flat however many images there are. With a checkpoint file, the
+ * position is recorded every so many images (see {@link Checkpoint}), and a run given the same
+ * inputs, output and checkpoint resumes where the last one stopped.</p>
+ *
+ * <pre>
+ * java com.google.zxing.batch.BatchDecoder [--threads n] [--loaders n] [--prefetch n]
+ *     [--output file] [--checkpoint file] [--checkpoint-interval n] [--multiple] [--try-harder]
+ *     [--formats QR_CODE,EAN_13,...] [--manifest file]... [path]...
+ * </pre>
+ */
+public final class BatchDecoder {
+
+  private static final BarcodeFormat[] ALL_FORMATS = {
+      BarcodeFormat.UPC_A, BarcodeFormat.UPC_E, BarcodeFormat.EAN_13, BarcodeFormat.EAN_8,
+      BarcodeFormat.CODE_39, BarcodeFormat.CODE_128, BarcodeFormat.ITF, BarcodeFormat.QR_CODE,
+      BarcodeFormat.DATAMATRIX, BarcodeFormat.PDF417
+  };
+
+  private final int threads;
+  private final int loaders;
+  private final int prefetch;
+  private final int window;
+  private final Hashtable<DecodeHintType, Object> hints;
+  private final boolean multiple;
+  private int checkpointInterval;
+
+  /**
+   * @param threads decoder threads
+   * @param loaders threads reading images
+   * @param prefetch most images held as luminance at once, including those being decoded
+   * @param hints hints for every decode; must not be changed afterwards
+   * @param multiple whether to look for more than one barcode per image
+   */
+  public BatchDecoder(int threads, int loaders, int prefetch,
+                      Hashtable<DecodeHintType, Object> hints, boolean multiple) {
+    this.threads = threads;
+    this.loaders = loaders;
+    this.prefetch = prefetch;
+    this.hints = hints;
+    this.multiple = multiple;
+    window = 16 * (prefetch + threads);
+    checkpointInterval = 1000;
+  }
+
+  public void setCheckpointInterval(int checkpointInterval) {
+    this.checkpointInterval = checkpointInterval;
+  }
+
+  /**
+   * Decodes every input, writing to a file. With a checkpoint file which exists, carries on from
+   * where it says the last run stopped; otherwise starts a new output.
+   *
+   * @param checkpointFile where to record progress, or null for none
+   * @return the number of inputs decoded in this run
+   */
+  public long decode(ImageInputs inputs, File output, File checkpointFile)
+      throws IOException, InterruptedException {
+    Checkpoint checkpoint = checkpointFile == null ? null : Checkpoint.read(checkpointFile);
+    long skip = 0L;
+    long outputBytes = 0L;
+    if (checkpoint == null) {
+      new FileOutputStream(output).close();
+    } else {
+      skip = checkpoint.getInputs();
+      outputBytes = checkpoint.getOutputBytes();
+      RandomAccessFile file = new RandomAccessFile(output, "rw");
+      try {
+        if (file.length() < outputBytes) {
+          throw new IOException(output + " is shorter than " + checkpointFile + " says");
+        }
+        file.setLength(outputBytes);
+      } finally {
+        file.close();
+      }
+    }
+    OutputStream out = new BufferedOutputStream(new FileOutputStream(output, true), 65536);
+    try {
+      return decode(inputs, skip, out, outputBytes, checkpointFile);
+    } finally {
+      out.close();
+    }
+  }
+
+  /**
+   * Decodes every input after the first {@code skip}, writing to a stream.
+   *
+   * @param outputBytes the length of the output before this run, recorded in checkpoints
+   * @param checkpointFile where to record progress, or null for none
+   * @return the number of inputs decoded in this run
+   */
+  public long decode(ImageInputs inputs, long skip, OutputStream out, long outputBytes,
+                     File checkpointFile) throws IOException, InterruptedException {
+    for (long i = 0L; i < skip; i++) {
+      if (inputs.next() == null) {
+        throw new IOException("There are fewer inputs than the checkpoint has done");
+      }
+    }
+
+    Pipeline pipeline = new Pipeline(skip, out, outputBytes, checkpointFile);
+    ExecutorService loaderPool = Executors.newFixedThreadPool(loaders);
+    ExecutorService decoderPool = Executors.newFixedThreadPool(threads);
+    long count = 0L;
+    try {
+      File file;
+      while ((file = inputs.next()) != null) {
+        pipeline.inFlight.acquire();
+        loaderPool.execute(new Load(pipeline, decoderPool, skip + count, file));
+        count++;
+      }
+      // Every permit comes back once every result is written
+      pipeline.inFlight.acquire(window);
+      pipeline.inFlight.release(window);
+    } finally {
+      loaderPool.shutdownNow();
+      decoderPool.shutdownNow();
+      inputs.close();
+    }
+    pipeline.finish();
+    return count;
+  }
+
+  public static void main(String[] args) throws Exception {
+    int processors = Runtime.getRuntime().availableProcessors();
+    int threads = processors;
+    int loaders = Math.max(2, processors / 2);
+    int prefetch = -1;
+    File output = null;
+    File checkpointFile = null;
+    int checkpointInterval = 1000;
+    boolean multiple = false;
+    boolean tryHarder = false;
+    String formats = null;
+    ImageInputs inputs = new ImageInputs();
+    boolean haveInputs = false;
+    for (int i = 0; i < args.length; i++) {
+      String arg = args[i];
+      if ("--multiple".equals(arg)) {
+        multiple = true;
+      } else if ("--try-harder".equals(arg)) {
+        tryHarder = true;
+      } else if (!arg.startsWith("--")) {
+        inputs.addPath(new File(arg));
+        haveInputs = true;
+      } else if (i + 1 == args.length) {
+        usage();
+      } else if ("--threads".equals(arg)) {
+        threads = Integer.parseInt(args[++i]);
+      } else if ("--loaders".equals(arg)) {
+        loaders = Integer.parseInt(args[++i]);
+      } else if ("--prefetch".equals(arg)) {
+        prefetch = Integer.parseInt(args[++i]);
+      } else if ("--output".equals(arg)) {
+        output = new File(args[++i]);
+      } else if ("--checkpoint".equals(arg)) {
+        checkpointFile = new File(args[++i]);
+      } else if ("--checkpoint-interval".equals(arg)) {
+        checkpointInterval = Integer.parseInt(args[++i]);
+      } else if ("--formats".equals(arg)) {
+        formats = args[++i];
+      } else if ("--manifest".equals(arg)) {
+        inputs.addManifest(new File(args[++i]));
+        haveInputs = true;
+      } else {
+        usage();
+      }
+    }
+    if (!haveInputs || threads <= 0 || loaders <= 0 || (checkpointFile != null && output == null)) {
+      usage();
+    }
+
+    BatchDecoder decoder = new BatchDecoder(threads, loaders,
+        prefetch > 0 ? prefetch : 2 * threads, buildHints(formats, tryHarder), multiple);
+    decoder.setCheckpointInterval(checkpointInterval);
+    long start = System.currentTimeMillis();
+    long count;
+    if (output == null) {
+      count = decoder.decode(inputs, 0L, System.out, 0L, null);
+      System.out.flush();
+    } else {
+      count = decoder.decode(inputs, output, checkpointFile);
+    }
+    long elapsed = Math.max(1L, System.currentTimeMillis() - start);
+    System.err.println("Decoded " + count + " images in " + elapsed + " ms (" +
+        count * 1000L / elapsed + " images/s)");
+  }
+
+  /**
+   * @param formats comma-separated format names, or null for all of them
+   */
+  static Hashtable<DecodeHintType, Object> buildHints(String formats, boolean tryHarder) {
+    Vector<BarcodeFormat> vector = new Vector<BarcodeFormat>(ALL_FORMATS.length);
+    if (formats == null) {
+      for (BarcodeFormat format : ALL_FORMATS) {
+        vector.addElement(format);
+      }
+    } else {
+      StringTokenizer tokens = new StringTokenizer(formats, ",");
+      while (tokens.hasMoreTokens()) {
+        vector.addElement(BarcodeFormat.valueOf(tokens.nextToken().trim()));
+      }
+    }
+    Hashtable<DecodeHintType, Object> hints = new Hashtable<DecodeHintType, Object>(3);
+    hints.put(DecodeHintType.POSSIBLE_FORMATS, vector);
+    if (tryHarder) {
+      hints.put(DecodeHintType.TRY_HARDER, Boolean.TRUE);
+    }
+    return hints;
+  }
+
+  private static void usage() {
+    System.err.println("Usage: BatchDecoder [--threads n] [--loaders n] [--prefetch n] " +
+        "[--output file] [--checkpoint file] [--checkpoint-interval n] [--multiple] " +
+        "[--try-harder] [--formats QR_CODE,EAN_13,...] [--manifest file]... [path]...");
+    System.err.println("A checkpoint needs an output file.");
+    System.exit(2);
+  }
+
+  /**
+   * The state shared by the stages of one run: the limits on work in flight, each decoder
+   * thread's reader, and the output, which takes results in any order and writes them in input
+   * order.
+   */
+  private final class Pipeline {
+    private final Semaphore inFlight;
+    private final Semaphore prefetched;
+    private final ThreadLocal<MultiFormatReader> readers;
+    private final OutputStream out;
+    private final File checkpointFile;
+    private final Map<Long, byte[]> pending;
+    private long nextToWrite;
+    private long outputBytes;
+    private IOException failure;
+
+    Pipeline(long first, OutputStream out, long outputBytes, File checkpointFile) {
+      inFlight = new Semaphore(window);
+      prefetched = new Semaphore(prefetch);
+      readers = new ThreadLocal<MultiFormatReader>() {
+        protected MultiFormatReader initialValue() {
+          MultiFormatReader reader = new MultiFormatReader();
+          reader.setHints(hints);
+          return reader;
+        }
+      };
+      this.out = out;
+      this.checkpointFile = checkpointFile;
+      this.outputBytes = outputBytes;
+      pending = new HashMap<Long, byte[]>();
+      nextToWrite = first;
+    }
+
+    Result[] decode(LuminanceSource source) {
+      BinaryBitmap bitmap = new BinaryBitmap(new GlobalHistogramBinarizer(source));
+      MultiFormatReader reader = readers.get();
+      try {
+        if (multiple) {
+          return new GenericMultipleBarcodeReader(reader).decodeMultiple(bitmap, hints);
+        }
+        return new Result[] { reader.decodeWithState(bitmap) };
+      } catch (ReaderException re) {
+        return new Result[0];
+      }
+    }
+
+    synchronized void complete(long input, String line) {
+      try {
+        pending.put(input, (line + '\n').getBytes("UTF-8"));
+        byte[] bytes;
+        while ((bytes = pending.remove(nextToWrite)) != null) {
+          if (failure == null) {
+            out.write(bytes);
+          }
+          outputBytes += bytes.length;
+          nextToWrite++;
+          inFlight.release();
+          if (checkpointFile != null && nextToWrite % checkpointInterval == 0) {
+            checkpoint();
+          }
+        }
+      } catch (IOException ioe) {
+        // Keep releasing permits so the run can end, then report it
+        failure = ioe;
+      }
+    }
+
+    synchronized void finish() throws IOException {
+      if (failure != null) {
+        throw failure;
+      }
+      out.flush();
+      if (checkpointFile != null) {
+        checkpoint();
+      }
+    }
+
+    private void checkpoint() throws IOException {
+      if (failure == null) {
+        out.flush();
+        new Checkpoint(nextToWrite, outputBytes).write(checkpointFile);
+      }
+    }
+  }
+
+  /**
+   * Reads one image into luminance, then queues it to be decoded.
+   */
+  private static final class Load implements Runnable {
+    private final Pipeline pipeline;
+    private final ExecutorService decoderPool;
+    private final long input;
+    private final File file;
+
+    Load(Pipeline pipeline, ExecutorService decoderPool, long input, File file) {
+      this.pipeline = pipeline;
+      this.decoderPool = decoderPool;
+      this.input = input;
+      this.file = file;
+    }
+
+    public void run() {
+      try {
+        pipeline.prefetched.acquire();
+      } catch (InterruptedException ie) {
+        return;
+      }
+      long start = System.nanoTime();
+      LuminanceSource source;
+      try {
+        BufferedImage image = ImageIO.read(file);
+        if (image == null) {
+          throw new IOException("Not a readable image");
+        }
+        source = new BufferedImageLuminanceSource(image);
+        source = new ArrayLuminanceSource(source.getMatrix(), source.getWidth(),
+            source.getHeight());
+      } catch (Throwable t) {
+        pipeline.prefetched.release();
+        pipeline.complete(input, "{\"input\":" + input + ",\"path\":" + quote(file.getPath()) +
+            ",\"error\":" + quote(t.toString()) + '}');
+        return;
+      }
+      decoderPool.execute(new Decode(pipeline, input, file, source, System.nanoTime() - start));
+    }
+  }
+
+  /**
+   * Decodes one image and hands its result line to the output.
+   */
+  private static final class Decode implements Runnable {
+    private final Pipeline pipeline;
+    private final long input;
+    private final File file;
+    private final LuminanceSource source;
+    private final long loadNanos;
+
+    Decode(Pipeline pipeline, long input, File file, LuminanceSource source, long loadNanos) {
+      this.pipeline = pipeline;
+      this.input = input;
+      this.file = file;
+      this.source = source;
+      this.loadNanos = loadNanos;
+    }
+
+    public void run() {
+      StringBuilder line = new StringBuilder(256);
+      line.append("{\"input\":").append(input).append(",\"path\":").append(quote(file.getPath()))
+          .append(",\"width\":").append(source.getWidth()).append(",\"height\":")
+          .append(source.getHeight()).append(",\"load_ms\":").append(toMillis(loadNanos));
+      long start = System.nanoTime();
+      Result[] results;
+      try {
+        results = pipeline.decode(source);
+      } catch (Throwable t) {
+        // Decoders can fail in unexpected ways on odd images; one image must not stop the run
+        line.append(",\"error\":").append(quote(t.toString())).append('}');
+        pipeline.complete(input, line.toString());
+        return;
+      } finally {
+        pipeline.prefetched.release();
+      }
+      line.append(",\"decode_ms\":").append(toMillis(System.nanoTime() - start))
+          .append(",\"results\":[");
+      for (int i = 0; i < results.length; i++) {
+        if (i > 0) {
+          line.append(',');
+        }
+        appendResult(line, results[i]);
+      }
+      line.append("]}");
+      pipeline.complete(input, line.toString());
+    }
+
+    private static void appendResult(StringBuilder line, Result result) {
+      line.append("{\"format\":").append(quote(result.getBarcodeFormat().getName()))
+          .append(",\"text\":").append(quote(result.getText())).append(",\"points\":[");
+      ResultPoint[] points = result.getResultPoints();
+      if (points != null) {
+        for (int i = 0; i < points.length; i++) {
+          if (i > 0) {
+            line.append(',');
+          }
+          line.append('[').append(toTenths(points[i].getX())).append(',')
+              .append(toTenths(points[i].getY())).append(']');
+        }
+      }
+      line.append("]}");
+    }
+  }
+
+  static String quote(String value) {
+    StringBuilder result = new StringBuilder(value.length() + 2);
+    result.append('"');
+    for (int i = 0; i < value.length(); i++) {
+      char c = value.charAt(i);
+      if (c == '"' || c == '\\') {
+        result.append('\\').append(c);
+      } else if (c < ' ') {
+        String hex = Integer.toHexString(c);
+        result.append("\\u00").append(hex.length() < 2 ? "0" : "").append(hex);
+      } else {
+        result.append(c);
+      }
+    }
+    return result.append('"').toString();
+  }
+
+  private static String toMillis(long nanos) {
+    long hundredths = (nanos + 5000L) / 10000L;
+    long fraction = hundredths % 100L;
+    return hundredths / 100L + (fraction < 10L ? ".0" : ".") + fraction;
+  }
+
+  private static String toTenths(float value) {
+    long tenths = Math.round(value * 10.0);
+    String sign = tenths < 0L ? "-" : "";
+    tenths = Math.abs(tenths);
+    return sign + tenths / 10L + '.' + tenths % 10L;
+  }
+
+  /**
+   * Luminance held as one byte per pixel, so that the decoded image itself can be dropped.
+   */
+  private static final class ArrayLuminanceSource extends LuminanceSource {
+    private final byte[] luminances;
+
+    ArrayLuminanceSource(byte[] luminances, int width, int height) {
+      super(width, height);
+      this.luminances = luminances;
+    }
+
+    public byte[] getRow(int y, byte[] row) {
+      int width = getWidth();
+      if (row == null || row.length < width) {
+        row = new byte[width];
+      }
+      System.arraycopy(luminances, y * width, row, 0, width);
+      return row;
+    }
+
+    public byte[] getMatrix() {
+      return luminances;
+    }
+  }
+
+}
@@ -0,0 +1,165 @@
+/*
+ * Copyright 2010 ZXing authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.zxing.batch;
+
+import junit.framework.TestCase;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.List;
+
+public final class BatchDecoderTestCase extends TestCase {
+
+  private File directory;
+
+  @Override
+  protected void setUp() throws IOException {
+    directory = File.createTempFile("batch", "");
+    assertTrue(directory.delete() && directory.mkdir());
+    File images = new File(directory, "images");
+    File nested = new File(images, "nested");
+    assertTrue(nested.mkdirs());
+    copy("qrcode-1/1.jpg", new File(images, "a.jpg"));
+    copy("ean13-1/1.JPG", new File(nested, "b.JPG"));
+    OutputStream out = new FileOutputStream(new File(images, "c.png"));
+    out.write(new byte[] { 1, 2, 3 });
+    out.close();
+    assertTrue(new File(images, "notes.txt").createNewFile());
+  }
+
+  @Override
+  protected void tearDown() {
+    delete(directory);
+  }
+
+  public void testDecodeDirectory() throws Exception {
+    List<String> lines = decode(null);
+    assertEquals(3, lines.size());
+    assertTrue(lines.get(0), lines.get(0).startsWith("{\"input\":0,"));
+    assertTrue(lines.get(0), lines.get(0).contains("a.jpg"));
+    assertTrue(lines.get(0), lines.get(0).contains("\"format\":\"QR_CODE\""));
+    // Entries are walked in name order, so the nested directory comes last
+    assertTrue(lines.get(1), lines.get(1).startsWith("{\"input\":1,"));
+    assertTrue(lines.get(1), lines.get(1).contains("\"error\":"));
+    assertTrue(lines.get(2), lines.get(2).contains("b.JPG"));
+    assertTrue(lines.get(2), lines.get(2).contains(
+        "\"format\":\"EAN_13\",\"text\":\"8413000065504\""));
+  }
+
+  public void testResumeFromCheckpoint() throws Exception {
+    File checkpointFile = new File(directory, "checkpoint");
+    List<String> complete = decode(checkpointFile);
+    assertEquals(3L, Checkpoint.read(checkpointFile).getInputs());
+
+    // Pretend the run died after writing one result and part of the next
+    File output = new File(directory, "results.json");
+    new Checkpoint(1L, complete.get(0).length() + 1L).write(checkpointFile);
+    OutputStream out = new FileOutputStream(output, true);
+    out.write("{\"input\":1,\"pa".getBytes("UTF-8"));
+    out.close();
+
+    List<String> resumed = decode(checkpointFile);
+    assertEquals(withoutTimings(complete), withoutTimings(resumed));
+    assertEquals(3L, Checkpoint.read(checkpointFile).getInputs());
+    assertEquals(output.length(), Checkpoint.read(checkpointFile).getOutputBytes());
+  }
+
+  public void testManifest() throws IOException {
+    File manifest = new File(directory, "manifest.txt");
+    PrintWriter writer = new PrintWriter(manifest, "UTF-8");
+    writer.println("# inputs");
+    writer.println("images/nested/b.JPG");
+    writer.println();
+    writer.println(new File(directory, "images/a.jpg").getAbsolutePath());
+    writer.close();
+    ImageInputs inputs = new ImageInputs();
+    inputs.addManifest(manifest);
+    inputs.addPath(new File(directory, "images/nested"));
+    assertEquals("b.JPG", inputs.next().getName());
+    assertEquals("a.jpg", inputs.next().getName());
+    assertEquals("b.JPG", inputs.next().getName());
+    assertNull(inputs.next());
+  }
+
+  private List<String> decode(File checkpointFile) throws Exception {
+    ImageInputs inputs = new ImageInputs();
+    inputs.addPath(new File(directory, "images"));
+    BatchDecoder decoder =
+        new BatchDecoder(2, 1, 2, BatchDecoder.buildHints(null, false), false);
+    decoder.setCheckpointInterval(1);
+    File output = new File(directory, "results.json");
+    decoder.decode(inputs, output, checkpointFile);
+    List<String> lines = new ArrayList<String>();
+    BufferedReader reader = new BufferedReader(new FileReader(output));
+    try {
+      String line;
+      while ((line = reader.readLine()) != null) {
+        lines.add(line);
+      }
+    } finally {
+      reader.close();
+    }
+    return lines;
+  }
+
+  private static List<String> withoutTimings(List<String> lines) {
+    List<String> result = new ArrayList<String>(lines.size());
+    for (String line : lines) {
+      result.add(line.replaceAll("\"(load|decode)_ms\":[0-9.]+", ""));
+    }
+    return result;
+  }
+
+  private static void copy(String image, File to) throws IOException {
+    File from = new File("test/data/blackbox/" + image);
+    if (!from.exists()) {
+      // try starting with 'core' since the test base is often given as the project root
+      from = new File("core/test/data/blackbox/" + image);
+    }
+    InputStream in = new FileInputStream(from);
+    OutputStream out = new FileOutputStream(to);
+    try {
+      byte[] buffer = new byte[4096];
+      int read;
+      while ((read = in.read(buffer)) > 0) {
+        out.write(buffer, 0, read);
+      }
+    } finally {
+      in.close();
+      out.close();
+    }
+  }
+
+  private static void delete(File file) {
+    File[] files = file.listFiles();
+    if (files != null) {
+      for (File child : files) {
+        delete(child);
+      }
+    }
+    file.delete();
+  }
+
+}
@@ -0,0 +1,99 @@
+/*
+ * Copyright 2010 ZXing authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.zxing.batch;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Properties;
+
+/**
+ * <p>How far a batch run got: how many inputs, in enumeration order, have had their results
+ * written, and how long the output was at that point. Results are written in input order, so a
+ * resumed run truncates the output to that length, skips that many inputs and carries on; no
+ * result is lost or written twice.</p>
+ *
+ * <p>A checkpoint is written to a temporary file which then replaces the old one, so that a crash
+ * while writing it leaves the previous checkpoint intact.</p>
+ */
+public final class Checkpoint {
+
+  private static final String INPUTS = "inputs";
+  private static final String OUTPUT_BYTES = "outputBytes";
+
+  private final long inputs;
+  private final long outputBytes;
+
+  public Checkpoint(long inputs, long outputBytes) {
+    this.inputs = inputs;
+    this.outputBytes = outputBytes;
+  }
+
+  public long getInputs() {
+    return inputs;
+  }
+
+  public long getOutputBytes() {
+    return outputBytes;
+  }
+
+  /**
+   * @return the checkpoint in the file, or null if there is no such file
+   */
+  public static Checkpoint read(File file) throws IOException {
+    if (!file.exists()) {
+      return null;
+    }
+    Properties properties = new Properties();
+    InputStream in = new FileInputStream(file);
+    try {
+      properties.load(in);
+    } finally {
+      in.close();
+    }
+    String inputs = properties.getProperty(INPUTS);
+    String outputBytes = properties.getProperty(OUTPUT_BYTES);
+    if (inputs == null || outputBytes == null) {
+      throw new IOException("Not a checkpoint: " + file);
+    }
+    return new Checkpoint(Long.parseLong(inputs), Long.parseLong(outputBytes));
+  }
+
+  public void write(File file) throws IOException {
+    Properties properties = new Properties();
+    properties.setProperty(INPUTS, String.valueOf(inputs));
+    properties.setProperty(OUTPUT_BYTES, String.valueOf(outputBytes));
+    File temporary = new File(file.getPath() + ".tmp");
+    OutputStream out = new FileOutputStream(temporary);
+    try {
+      properties.store(out, null);
+    } finally {
+      out.close();
+    }
+    if (!temporary.renameTo(file) && !(file.delete() && temporary.renameTo(file))) {
+      throw new IOException("Could not replace " + file);
+    }
+  }
+
+  public String toString() {
+    return inputs + " inputs, " + outputBytes + " bytes of output";
+  }
+
+}
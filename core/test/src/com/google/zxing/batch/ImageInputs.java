@@ -0,0 +1,168 @@
+/*
+ * Copyright 2010 ZXing authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.zxing.batch;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedList;
+import java.util.List;
+
+/**
+ * <p>Enumerates the image files to decode, in an order which is the same from one run to the next
+ * so that a checkpoint can say how far a run got. Each source is one of:</p>
+ *
+ * <ul>
+ * <li>an image file;</li>
+ * <li>a directory, walked depth first with each directory's entries in name order, yielding its
+ *   image files;</li>
+ * <li>a manifest: a text file of image paths, one per line, relative to the manifest's own
+ *   directory unless absolute. Blank lines and lines starting with # are ignored.</li>
+ * </ul>
+ *
+ * <p>Only one directory listing per level of the walk, and one line of a manifest, is held at a
+ * time, so that enumerating millions of files takes little memory.</p>
+ */
+public final class ImageInputs {
+
+  private final List<Object> sources;
+  private int nextSource;
+  // Directory listings still being walked, innermost last, each paired with its next index
+  private final LinkedList<File[]> listings;
+  private final LinkedList<int[]> positions;
+  private BufferedReader manifest;
+  private File manifestDirectory;
+
+  public ImageInputs() {
+    sources = new ArrayList<Object>();
+    listings = new LinkedList<File[]>();
+    positions = new LinkedList<int[]>();
+  }
+
+  public void addPath(File path) {
+    sources.add(path);
+  }
+
+  public void addManifest(File manifest) {
+    sources.add(new Manifest(manifest));
+  }
+
+  public static boolean isImage(String name) {
+    String lowerCase = name.toLowerCase();
+    return lowerCase.endsWith(".jpg") || lowerCase.endsWith(".jpeg") ||
+        lowerCase.endsWith(".gif") || lowerCase.endsWith(".png") || lowerCase.endsWith(".bmp");
+  }
+
+  /**
+   * @return the next image file, or null when there are no more
+   */
+  public File next() throws IOException {
+    while (true) {
+      File file = nextFromListings();
+      if (file != null) {
+        return file;
+      }
+      if (manifest != null) {
+        String line;
+        while ((line = manifest.readLine()) != null) {
+          line = line.trim();
+          if (line.length() > 0 && line.charAt(0) != '#') {
+            File path = new File(line);
+            return path.isAbsolute() ? path : new File(manifestDirectory, line);
+          }
+        }
+        manifest.close();
+        manifest = null;
+      }
+      if (nextSource == sources.size()) {
+        return null;
+      }
+      Object source = sources.get(nextSource++);
+      if (source instanceof Manifest) {
+        File manifestFile = ((Manifest) source).file;
+        manifest = new BufferedReader(new InputStreamReader(new FileInputStream(manifestFile),
+            Charset.forName("UTF-8")));
+        manifestDirectory = manifestFile.getAbsoluteFile().getParentFile();
+      } else {
+        File path = (File) source;
+        if (path.isDirectory()) {
+          push(path);
+        } else if (path.exists()) {
+          return path;
+        } else {
+          throw new IOException("No such file or directory: " + path);
+        }
+      }
+    }
+  }
+
+  /**
+   * Stops enumerating, closing any manifest being read.
+   */
+  public void close() throws IOException {
+    if (manifest != null) {
+      manifest.close();
+      manifest = null;
+    }
+    nextSource = sources.size();
+    listings.clear();
+    positions.clear();
+  }
+
+  private File nextFromListings() throws IOException {
+    while (!listings.isEmpty()) {
+      File[] listing = listings.getLast();
+      int[] position = positions.getLast();
+      if (position[0] == listing.length) {
+        listings.removeLast();
+        positions.removeLast();
+        continue;
+      }
+      File file = listing[position[0]++];
+      if (file.isDirectory()) {
+        push(file);
+      } else if (isImage(file.getName())) {
+        return file;
+      }
+    }
+    return null;
+  }
+
+  private void push(File directory) throws IOException {
+    File[] listing = directory.listFiles();
+    if (listing == null) {
+      throw new IOException("Could not list " + directory);
+    }
+    Arrays.sort(listing);
+    listings.add(listing);
+    positions.add(new int[1]);
+  }
+
+  private static final class Manifest {
+    private final File file;
+
+    Manifest(File file) {
+      this.file = file;
+    }
+  }
+
+}
@@ -0,0 +1,43 @@
+/*
+ * Copyright 2010 ZXing authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.zxing.benchmark;
+
+/**
+ * One operation to be timed by {@link BenchmarkRunner}. Everything the operation needs should be
+ * prepared in the constructor, so that run() measures only the code under test.
+ */
+public abstract class Benchmark {
+
+  private final String name;
+
+  protected Benchmark(String name) {
+    this.name = name;
+  }
+
+  public final String getName() {
+    return name;
+  }
+
+  /**
+   * Performs the operation once.
+   *
+   * @return the operation's result, which the runner consumes so that the work cannot be
+   *         optimized away
+   */
+  public abstract Object run() throws Exception;
+
+}
@@ -0,0 +1,93 @@
+/*
+ * Copyright 2010 ZXing authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.zxing.benchmark;
+
+import com.google.zxing.LuminanceSource;
+import com.google.zxing.client.j2se.BufferedImageLuminanceSource;
+
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import javax.imageio.ImageIO;
+
+/**
+ * Loads the black box test images for benchmarks. Each image is converted to luminance once, up
+ * front, so that benchmarks do not also time the conversion from RGB.
+ */
+public final class BenchmarkImages {
+
+  private BenchmarkImages() {
+  }
+
+  /**
+   * @param directory A directory under test/data/blackbox, such as "qrcode-1".
+   * @return The images in it, in file name order.
+   */
+  public static List<LuminanceSource> load(String directory) throws IOException {
+    File base = new File("test/data/blackbox");
+    if (!base.exists()) {
+      // try starting with 'core' since the test base is often given as the project root
+      base = new File("core/test/data/blackbox");
+    }
+    File[] files = new File(base, directory).listFiles();
+    if (files == null) {
+      throw new IOException("No such test image directory: " + directory);
+    }
+    Arrays.sort(files);
+    List<LuminanceSource> sources = new ArrayList<LuminanceSource>();
+    for (File file : files) {
+      String name = file.getName().toLowerCase();
+      if (name.endsWith(".jpg") || name.endsWith(".jpeg") || name.endsWith(".gif") ||
+          name.endsWith(".png")) {
+        BufferedImage image = ImageIO.read(file);
+        if (image != null) {
+          LuminanceSource source = new BufferedImageLuminanceSource(image);
+          sources.add(new ArrayLuminanceSource(source.getMatrix(), source.getWidth(),
+              source.getHeight()));
+        }
+      }
+    }
+    return sources;
+  }
+
+  private static final class ArrayLuminanceSource extends LuminanceSource {
+    private final byte[] luminances;
+
+    ArrayLuminanceSource(byte[] luminances, int width, int height) {
+      super(width, height);
+      this.luminances = luminances;
+    }
+
+    public byte[] getRow(int y, byte[] row) {
+      int width = getWidth();
+      if (row == null || row.length < width) {
+        row = new byte[width];
+      }
+      System.arraycopy(luminances, y * width, row, 0, width);
+      return row;
+    }
+
+    public byte[] getMatrix() {
+      return luminances;
+    }
+  }
+
+}
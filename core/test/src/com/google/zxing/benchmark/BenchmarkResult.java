@@ -0,0 +1,105 @@
+/*
+ * Copyright 2010 ZXing authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.zxing.benchmark;
+
+/**
+ * The measurements {@link BenchmarkRunner} made of one benchmark.
+ */
+public final class BenchmarkResult {
+
+  private static final int NAME_WIDTH = 60;
+
+  static final String HEADER = pad("Benchmark", NAME_WIDTH) + pad("ns/op", 14) + pad("+-", 10) +
+      pad("B/op", 12) + pad("MB/s", 10) + "GCs";
+  static final String CSV_HEADER =
+      "benchmark,ns_per_op,ns_per_op_stddev,ops,bytes_per_op,alloc_mb_per_s,gc_count";
+
+  private final String name;
+  private final double nanosPerOp;
+  private final double stdDev;
+  private final long ops;
+  private final long nanos;
+  private final long allocatedBytes;
+  private final long collections;
+
+  BenchmarkResult(String name, double[] roundNanosPerOp, long ops, long nanos,
+                  long allocatedBytes, long collections) {
+    this.name = name;
+    this.ops = ops;
+    this.nanos = nanos;
+    this.allocatedBytes = allocatedBytes;
+    this.collections = collections;
+    nanosPerOp = (double) nanos / ops;
+    double sumOfSquares = 0.0;
+    for (double round : roundNanosPerOp) {
+      sumOfSquares += (round - nanosPerOp) * (round - nanosPerOp);
+    }
+    stdDev = roundNanosPerOp.length < 2 ? 0.0 :
+        Math.sqrt(sumOfSquares / (roundNanosPerOp.length - 1));
+  }
+
+  public String getName() {
+    return name;
+  }
+
+  public double getNanosPerOp() {
+    return nanosPerOp;
+  }
+
+  /**
+   * @return bytes allocated per operation, or -1 if the JVM cannot count them
+   */
+  public long getBytesPerOp() {
+    return allocatedBytes < 0L ? -1L : allocatedBytes / ops;
+  }
+
+  /**
+   * @return megabytes allocated per second of measurement, or -1 if the JVM cannot count them
+   */
+  public double getAllocationRate() {
+    return allocatedBytes < 0L ? -1.0 : allocatedBytes * 1000.0 / nanos;
+  }
+
+  public long getCollections() {
+    return collections;
+  }
+
+  public String toString() {
+    return pad(name, NAME_WIDTH) + pad(format(nanosPerOp), 14) + pad(format(stdDev), 10) +
+        pad(allocatedBytes < 0L ? "-" : String.valueOf(getBytesPerOp()), 12) +
+        pad(allocatedBytes < 0L ? "-" : format(getAllocationRate()), 10) + collections;
+  }
+
+  String toCSV() {
+    return name + ',' + format(nanosPerOp) + ',' + format(stdDev) + ',' + ops + ',' +
+        getBytesPerOp() + ',' + format(getAllocationRate()) + ',' + collections;
+  }
+
+  private static String format(double value) {
+    long tenths = Math.round(value * 10.0);
+    return tenths < 0L ? "-1" : String.valueOf(tenths / 10L) + '.' + tenths % 10L;
+  }
+
+  private static String pad(String value, int width) {
+    StringBuilder result = new StringBuilder(value);
+    do {
+      result.append(' ');
+    } while (result.length() < width);
+    return result.toString();
+  }
+
+}
@@ -0,0 +1,207 @@
+/*
+ * Copyright 2010 ZXing authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.zxing.benchmark;
+
+import com.google.zxing.common.BinarizerBenchmarks;
+import com.google.zxing.common.GridSamplerBenchmarks;
+import com.google.zxing.common.reedsolomon.ReedSolomonBenchmarks;
+import com.google.zxing.oned.OneDReaderBenchmarks;
+import com.google.zxing.pdf417.decoder.BitMatrixParserBenchmarks;
+import com.google.zxing.pdf417.detector.DetectorBenchmarks;
+import com.google.zxing.qrcode.decoder.DecodedBitStreamParserBenchmarks;
+import com.google.zxing.qrcode.detector.FinderPatternFinderBenchmarks;
+import com.google.zxing.qrcode.encoder.EncoderBenchmarks;
+
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * <p>Runs microbenchmarks of the core decode and encode hot paths, in the manner of JMH: each
+ * benchmark is warmed up, then timed over several rounds of fixed duration on the current thread.
+ * For each it reports the mean time per operation and its spread across rounds, and, where the JVM
+ * can count per-thread allocation, the bytes allocated per operation, the allocation rate and the
+ * number of garbage collections during measurement.</p>
+ *
+ * <pre>
+ * java com.google.zxing.benchmark.BenchmarkRunner [--filter substring] [--warmup-ms ms]
+ *     [--measure-ms ms] [--rounds n] [--csv file] [--list]
+ * </pre>
+ *
+ * <p>Run it from the core directory so that the black box test images can be found.</p>
+ */
+public final class BenchmarkRunner {
+
+  private static volatile int sink;
+
+  private final long warmupNanos;
+  private final long roundNanos;
+  private final int rounds;
+  private final com.sun.management.ThreadMXBean allocationBean;
+
+  public BenchmarkRunner(long warmupMillis, long roundMillis, int rounds) {
+    warmupNanos = warmupMillis * 1000000L;
+    roundNanos = roundMillis * 1000000L;
+    this.rounds = rounds;
+    allocationBean = getAllocationBean();
+  }
+
+  public static List<Benchmark> createAll() throws Exception {
+    List<Benchmark> benchmarks = new ArrayList<Benchmark>();
+    benchmarks.addAll(BinarizerBenchmarks.create());
+    benchmarks.addAll(OneDReaderBenchmarks.create());
+    benchmarks.addAll(FinderPatternFinderBenchmarks.create());
+    benchmarks.addAll(GridSamplerBenchmarks.create());
+    benchmarks.addAll(ReedSolomonBenchmarks.create());
+    benchmarks.addAll(DecodedBitStreamParserBenchmarks.create());
+    benchmarks.addAll(EncoderBenchmarks.create());
+    benchmarks.addAll(DetectorBenchmarks.create());
+    benchmarks.addAll(BitMatrixParserBenchmarks.create());
+    return benchmarks;
+  }
+
+  public BenchmarkResult run(Benchmark benchmark) throws Exception {
+    long end = System.nanoTime() + warmupNanos;
+    while (System.nanoTime() < end) {
+      consume(benchmark.run());
+    }
+
+    double[] nanosPerOp = new double[rounds];
+    long totalOps = 0L;
+    long totalNanos = 0L;
+    long allocatedBefore = getAllocatedBytes();
+    long collectionsBefore = getCollectionCount();
+    for (int round = 0; round < rounds; round++) {
+      long ops = 0L;
+      long start = System.nanoTime();
+      long now;
+      do {
+        consume(benchmark.run());
+        ops++;
+        now = System.nanoTime();
+      } while (now - start < roundNanos);
+      nanosPerOp[round] = (double) (now - start) / ops;
+      totalOps += ops;
+      totalNanos += now - start;
+    }
+    long allocated = allocationBean == null ? -1L : getAllocatedBytes() - allocatedBefore;
+    long collections = getCollectionCount() - collectionsBefore;
+    return new BenchmarkResult(benchmark.getName(), nanosPerOp, totalOps, totalNanos, allocated,
+        collections);
+  }
+
+  public static void main(String[] args) throws Exception {
+    String filter = null;
+    long warmupMillis = 1000L;
+    long measureMillis = 1000L;
+    int rounds = 5;
+    String csvFile = null;
+    boolean list = false;
+    for (int i = 0; i < args.length; i++) {
+      String arg = args[i];
+      if ("--list".equals(arg)) {
+        list = true;
+      } else if (i + 1 == args.length) {
+        usage();
+      } else if ("--filter".equals(arg)) {
+        filter = args[++i];
+      } else if ("--warmup-ms".equals(arg)) {
+        warmupMillis = Long.parseLong(args[++i]);
+      } else if ("--measure-ms".equals(arg)) {
+        measureMillis = Long.parseLong(args[++i]);
+      } else if ("--rounds".equals(arg)) {
+        rounds = Integer.parseInt(args[++i]);
+      } else if ("--csv".equals(arg)) {
+        csvFile = args[++i];
+      } else {
+        usage();
+      }
+    }
+
+    BenchmarkRunner runner = new BenchmarkRunner(warmupMillis, measureMillis, rounds);
+    if (runner.allocationBean == null) {
+      System.out.println("This JVM cannot count allocations per thread; they are not reported.");
+    }
+    PrintWriter csv = csvFile == null ? null : new PrintWriter(new FileWriter(csvFile));
+    if (csv != null) {
+      csv.println(BenchmarkResult.CSV_HEADER);
+    }
+    try {
+      System.out.println(BenchmarkResult.HEADER);
+      for (Benchmark benchmark : createAll()) {
+        if (filter != null && benchmark.getName().indexOf(filter) < 0) {
+          continue;
+        }
+        if (list) {
+          System.out.println(benchmark.getName());
+          continue;
+        }
+        BenchmarkResult result = runner.run(benchmark);
+        System.out.println(result);
+        if (csv != null) {
+          csv.println(result.toCSV());
+        }
+      }
+    } finally {
+      if (csv != null) {
+        csv.close();
+      }
+    }
+  }
+
+  private static void usage() {
+    System.err.println("Usage: BenchmarkRunner [--filter substring] [--warmup-ms ms] " +
+        "[--measure-ms ms] [--rounds n] [--csv file] [--list]");
+    System.exit(2);
+  }
+
+  private static void consume(Object result) {
+    sink ^= System.identityHashCode(result);
+  }
+
+  private long getAllocatedBytes() {
+    return allocationBean == null ? 0L :
+        allocationBean.getThreadAllocatedBytes(Thread.currentThread().getId());
+  }
+
+  private static long getCollectionCount() {
+    long count = 0L;
+    for (GarbageCollectorMXBean bean : ManagementFactory.getGarbageCollectorMXBeans()) {
+      count += Math.max(0L, bean.getCollectionCount());
+    }
+    return count;
+  }
+
+  private static com.sun.management.ThreadMXBean getAllocationBean() {
+    ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+    if (!(bean instanceof com.sun.management.ThreadMXBean)) {
+      return null;
+    }
+    com.sun.management.ThreadMXBean allocationBean = (com.sun.management.ThreadMXBean) bean;
+    if (!allocationBean.isThreadAllocatedMemorySupported()) {
+      return null;
+    }
+    allocationBean.setThreadAllocatedMemoryEnabled(true);
+    return allocationBean;
+  }
+
+}
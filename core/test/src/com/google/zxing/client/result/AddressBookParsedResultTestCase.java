@@ -34,6 +34,10 @@ public final class AddressBookParsedResultTestCase extends TestCase {
     doTest("MECARD:NOTE:ZXing Team;N:Sean Owen;URL:google.com;EMAIL:srowen@example.org;;",
         null, new String[] {"Sean Owen"}, null, null, new String[] {"srowen@example.org"}, null, null,
         "google.com", null, "ZXing Team");
+    // Escaped semicolons, several values of a field, and field names inside other values
+    doTest("MECARD:N:Sean Owen;NOTE:Call TEL:1\\;not 2;TEL:+12125551212; TEL:+12125551213;;",
+        null, new String[] {"Sean Owen"}, null, null, null,
+        new String[] {"+12125551212", "+12125551213"}, null, null, null, "Call TEL:1;not 2");
   }
 
   public void testAddressBookAU() {
@@ -44,6 +48,10 @@ public final class AddressBookParsedResultTestCase extends TestCase {
   public void testVCard() {
     doTest("BEGIN:VCARD\r\nADR;HOME:123 Main St\r\nVERSION:2.1\r\nN:Owen;Sean\r\nEND:VCARD",
            null, new String[] {"Sean Owen"}, null, "123 Main St", null, null, null, null, null, null);
+    doTest("BEGIN:VCARD\nFN;CHARSET=UTF-8:Sean Owen\nTEL;CELL:+12125551212\nTEL:+12125551213\n" +
+           "NOTE:ADR:none\nEND:VCARD",
+           null, new String[] {"Sean Owen"}, null, null, null,
+           new String[] {"+12125551212", "+12125551213"}, null, null, null, "ADR:none");
   }
 
   public void testBizcard() {
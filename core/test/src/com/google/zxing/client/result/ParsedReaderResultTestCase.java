@@ -105,6 +105,14 @@ public final class ParsedReaderResultTestCase extends TestCase {
     doTestResult("TEL1:+12125551212\r\nMEMORY:\r\n", "+12125551212", ParsedResultType.ADDRESSBOOK);
   }
 
+  public void testFallThrough() {
+    // Prefixed like one format, but only accepted by a later parser
+    doTestResult("MATMSG:TO:foo;;", "matmsg:TO:foo;;", ParsedResultType.URI);
+    doTestResult("MECARD:TEL:1;;", "mecard:TEL:1;;", ParsedResultType.URI);
+    doTestResult("Note:\r\nMEMORY:foo\r\nNAME1:Sean\r\n", "Sean\nfoo", ParsedResultType.ADDRESSBOOK);
+    doTestResult("Meet at geo:1,2", "Meet at geo:1,2", ParsedResultType.TEXT);
+  }
+
   public void testBizcard() {
     doTestResult("BIZCARD:N:Sean;X:Owen;C:Google;A:123 Main St;M:+12225551212;E:srowen@example.org;",
         "Sean Owen\nGoogle\n123 Main St\n+12225551212\nsrowen@example.org", ParsedResultType.ADDRESSBOOK);
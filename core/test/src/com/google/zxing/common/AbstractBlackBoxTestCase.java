@@ -144,7 +144,23 @@ public abstract class AbstractBlackBoxTestCase extends TestCase {
     testResults.add(new TestResult(mustPassCount, tryHarderCount, rotation));
   }
 
-  protected File[] getImageFiles() {
+  public int getTestCount() {
+    return testResults.size();
+  }
+
+  public float getRotation(int test) {
+    return testResults.get(test).getRotation();
+  }
+
+  public int getMustPassCount(int test) {
+    return testResults.get(test).getMustPassCount();
+  }
+
+  public int getTryHarderCount(int test) {
+    return testResults.get(test).getTryHarderCount();
+  }
+
+  public File[] getImageFiles() {
     assertTrue("Please run from the 'core' directory", testBase.exists());
     return testBase.listFiles(IMAGE_NAME_FILTER);
   }
@@ -175,10 +191,7 @@ public abstract class AbstractBlackBoxTestCase extends TestCase {
 
       BufferedImage image = ImageIO.read(testImage);
 
-      String testImageFileName = testImage.getName();
-      File expectedTextFile = new File(testBase,
-          testImageFileName.substring(0, testImageFileName.indexOf('.')) + ".txt");
-      String expectedText = readFileAsString(expectedTextFile);
+      String expectedText = readExpectedText(testImage);
 
       for (int x = 0; x < testCount; x++) {
         float rotation = testResults.get(x).getRotation();
@@ -235,9 +248,24 @@ public abstract class AbstractBlackBoxTestCase extends TestCase {
 
   private boolean decode(BinaryBitmap source, float rotation, String expectedText,
                          boolean tryHarder) {
-    Result result;
-    String suffix = " (" + (tryHarder ? "try harder, " : "") + "rotation: " + rotation + ')';
+    String failure = decodeAndCompare(source, expectedText, tryHarder);
+    if (failure != null) {
+      System.out.println(failure + " (" + (tryHarder ? "try harder, " : "") + "rotation: " +
+          rotation + ')');
+      return false;
+    }
+    return true;
+  }
 
+  /**
+   * Decodes one image and checks the result against what was expected. Instances are not
+   * thread-safe, so concurrent callers should each use their own.
+   *
+   * @return null if the expected text and format were decoded, or else a description of what
+   *         went wrong
+   */
+  public String decodeAndCompare(BinaryBitmap source, String expectedText, boolean tryHarder) {
+    Result result;
     try {
       Hashtable<DecodeHintType, Object> hints = getHints();
       if (tryHarder) {
@@ -249,23 +277,28 @@ public abstract class AbstractBlackBoxTestCase extends TestCase {
       }
       result = barcodeReader.decode(source, hints);
     } catch (ReaderException re) {
-      System.out.println(re + suffix);
-      return false;
+      return re.toString();
     }
 
     if (!expectedFormat.equals(result.getBarcodeFormat())) {
-      System.out.println("Format mismatch: expected '" + expectedFormat + "' but got '" +
-          result.getBarcodeFormat() + '\'' + suffix);
-      return false;
+      return "Format mismatch: expected '" + expectedFormat + "' but got '" +
+          result.getBarcodeFormat() + '\'';
     }
 
     String resultText = result.getText();
     if (!expectedText.equals(resultText)) {
-      System.out.println("Mismatch: expected '" + expectedText + "' but got '" + resultText +
-          '\'' +  suffix);
-      return false;
+      return "Mismatch: expected '" + expectedText + "' but got '" + resultText + '\'';
     }
-    return true;
+    return null;
+  }
+
+  /**
+   * @return the contents of the text file next to an image, which it should decode to
+   */
+  public String readExpectedText(File testImage) throws IOException {
+    String testImageFileName = testImage.getName();
+    return readFileAsString(new File(testBase,
+        testImageFileName.substring(0, testImageFileName.indexOf('.')) + ".txt"));
   }
 
   private static String readFileAsString(File file) throws IOException {
@@ -283,7 +316,7 @@ public abstract class AbstractBlackBoxTestCase extends TestCase {
     return result.toString();
   }
 
-  protected static BufferedImage rotateImage(BufferedImage original, float degrees) {
+  public static BufferedImage rotateImage(BufferedImage original, float degrees) {
     if (degrees == 0.0f) {
       return original;
     } else {
@@ -0,0 +1,98 @@
+/*
+ * Copyright 2010 ZXing authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.zxing.common;
+
+import com.google.zxing.Binarizer;
+import com.google.zxing.LuminanceSource;
+import com.google.zxing.ReaderException;
+import com.google.zxing.benchmark.Benchmark;
+import com.google.zxing.benchmark.BenchmarkImages;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Times both binarizers on a 1D and a 2D image set: a whole matrix, as the 2D readers ask for,
+ * and the rows the 1D readers sample without trying harder. A new binarizer is made for each
+ * operation, as a new one is made for each camera frame.
+ */
+public final class BinarizerBenchmarks {
+
+  private static final String[] IMAGE_SETS = {"ean13-1", "qrcode-2"};
+  private static final int ROWS_SAMPLED = 15;
+
+  private BinarizerBenchmarks() {
+  }
+
+  public static List<Benchmark> create() throws IOException {
+    List<Benchmark> benchmarks = new ArrayList<Benchmark>();
+    for (String imageSet : IMAGE_SETS) {
+      List<LuminanceSource> sources = BenchmarkImages.load(imageSet);
+      for (int type = 0; type < 2; type++) {
+        final boolean global = type == 0;
+        String name = "binarizer." + (global ? "global" : "localblock");
+        List<LuminanceSource> usable = new ArrayList<LuminanceSource>();
+        for (LuminanceSource source : sources) {
+          try {
+            createBinarizer(source, global).getBlackMatrix();
+            usable.add(source);
+          } catch (ReaderException re) {
+            // too little contrast to binarize
+          }
+        }
+        final LuminanceSource[] images = usable.toArray(new LuminanceSource[usable.size()]);
+        benchmarks.add(new Benchmark(name + ".matrix[" + imageSet + ']') {
+          private int next;
+          public Object run() throws Exception {
+            LuminanceSource source = images[next++ % images.length];
+            return createBinarizer(source, global).getBlackMatrix();
+          }
+        });
+        benchmarks.add(new Benchmark(name + ".rows[" + imageSet + ']') {
+          private int next;
+          private BitArray row;
+          public Object run() throws Exception {
+            LuminanceSource source = images[next++ % images.length];
+            Binarizer binarizer = createBinarizer(source, global);
+            int height = source.getHeight();
+            int rowStep = Math.max(1, height >> 4);
+            for (int i = 0; i < ROWS_SAMPLED; i++) {
+              int rowNumber = (height >> 1) + rowStep * ((i & 0x01) == 0 ? (i + 1) >> 1 :
+                  -((i + 1) >> 1));
+              if (rowNumber >= 0 && rowNumber < height) {
+                try {
+                  row = binarizer.getBlackRow(rowNumber, row);
+                } catch (ReaderException re) {
+                  // the readers skip such rows too
+                }
+              }
+            }
+            return row;
+          }
+        });
+      }
+    }
+    return benchmarks;
+  }
+
+  private static Binarizer createBinarizer(LuminanceSource source, boolean global) {
+    return global ? (Binarizer) new GlobalHistogramBinarizer(source) :
+        new LocalBlockBinarizer(source);
+  }
+
+}
@@ -0,0 +1,94 @@
+/*
+ * Copyright 2010 ZXing authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.zxing.common;
+
+import com.google.zxing.LuminanceSource;
+import junit.framework.TestCase;
+
+public final class FrameQualityTestCase extends TestCase {
+
+  private static final int WIDTH = 200;
+  private static final int HEIGHT = 100;
+
+  public void testSharpBars() {
+    FrameQuality quality = FrameQuality.estimate(bars(1));
+    assertTrue(quality.isWorthDecoding());
+    assertEquals(100, quality.getSharpness());
+    assertTrue(quality.getContrast() > 150);
+  }
+
+  public void testBlurredBars() {
+    FrameQuality quality = FrameQuality.estimate(bars(20));
+    assertFalse(quality.isWorthDecoding());
+    assertTrue(quality.getSharpness() < FrameQuality.MIN_SHARPNESS);
+    assertTrue(quality.getContrast() > FrameQuality.MIN_CONTRAST);
+  }
+
+  public void testFlat() {
+    byte[] pixels = new byte[WIDTH * HEIGHT];
+    for (int i = 0; i < pixels.length; i++) {
+      pixels[i] = (byte) (120 + (i % 3));
+    }
+    FrameQuality quality = FrameQuality.estimate(new TestLuminanceSource(pixels));
+    assertFalse(quality.isWorthDecoding());
+    assertTrue(quality.getContrast() <= FrameQuality.MIN_CONTRAST);
+  }
+
+  /**
+   * Vertical black and white bars 24 pixels wide, with each edge ramped over the given number of
+   * pixels.
+   */
+  private static LuminanceSource bars(int edgeWidth) {
+    byte[] pixels = new byte[WIDTH * HEIGHT];
+    for (int x = 0; x < WIDTH; x++) {
+      int phase = x % 48;
+      int value;
+      if (phase < 24) {
+        value = phase < edgeWidth ? 220 - 200 * phase / edgeWidth : 20;
+      } else {
+        phase -= 24;
+        value = phase < edgeWidth ? 20 + 200 * phase / edgeWidth : 220;
+      }
+      for (int y = 0; y < HEIGHT; y++) {
+        pixels[y * WIDTH + x] = (byte) value;
+      }
+    }
+    return new TestLuminanceSource(pixels);
+  }
+
+  private static final class TestLuminanceSource extends LuminanceSource {
+    private final byte[] pixels;
+
+    TestLuminanceSource(byte[] pixels) {
+      super(WIDTH, HEIGHT);
+      this.pixels = pixels;
+    }
+
+    public byte[] getRow(int y, byte[] row) {
+      if (row == null || row.length < WIDTH) {
+        row = new byte[WIDTH];
+      }
+      System.arraycopy(pixels, y * WIDTH, row, 0, WIDTH);
+      return row;
+    }
+
+    public byte[] getMatrix() {
+      return pixels;
+    }
+  }
+
+}
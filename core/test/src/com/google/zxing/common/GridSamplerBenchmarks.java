@@ -0,0 +1,107 @@
+/*
+ * Copyright 2010 ZXing authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.zxing.common;
+
+import com.google.zxing.LuminanceSource;
+import com.google.zxing.ReaderException;
+import com.google.zxing.ResultPoint;
+import com.google.zxing.benchmark.Benchmark;
+import com.google.zxing.benchmark.BenchmarkImages;
+import com.google.zxing.qrcode.detector.Detector;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Times DefaultGridSampler.sampleGrid() on QR Code black box images, using the points the QR
+ * Code detector found in each and the same module coordinates it maps them to.
+ */
+public final class GridSamplerBenchmarks {
+
+  private static final String[] IMAGE_SETS = {"qrcode-2", "qrcode-3"};
+
+  private GridSamplerBenchmarks() {
+  }
+
+  public static List<Benchmark> create() throws IOException {
+    List<Benchmark> benchmarks = new ArrayList<Benchmark>();
+    for (String imageSet : IMAGE_SETS) {
+      final List<Grid> grids = new ArrayList<Grid>();
+      for (LuminanceSource source : BenchmarkImages.load(imageSet)) {
+        try {
+          BitMatrix matrix = new GlobalHistogramBinarizer(source).getBlackMatrix();
+          DetectorResult result = new Detector(matrix).detect();
+          grids.add(new Grid(matrix, result.getPoints(), result.getBits().getDimension()));
+        } catch (ReaderException re) {
+          // not one for this benchmark
+        }
+      }
+      benchmarks.add(new Benchmark("common.DefaultGridSampler.sampleGrid[" + imageSet + ']') {
+        private final GridSampler sampler = new DefaultGridSampler();
+        private int next;
+        public Object run() throws Exception {
+          return grids.get(next++ % grids.size()).sample(sampler);
+        }
+      });
+    }
+    return benchmarks;
+  }
+
+  /**
+   * The arguments the QR Code detector passes to the sampler for one image.
+   */
+  private static final class Grid {
+    private final BitMatrix image;
+    private final int dimension;
+    private final float[] to;
+    private final float[] from;
+
+    Grid(BitMatrix image, ResultPoint[] points, int dimension) {
+      this.image = image;
+      this.dimension = dimension;
+      // The detector reports bottom left, top left, top right and, if found, the alignment
+      // pattern.
+      ResultPoint bottomLeft = points[0];
+      ResultPoint topLeft = points[1];
+      ResultPoint topRight = points[2];
+      float dimMinusThree = (float) dimension - 3.5f;
+      float bottomRightX;
+      float bottomRightY;
+      float sourceBottomRight;
+      if (points.length > 3) {
+        bottomRightX = points[3].getX();
+        bottomRightY = points[3].getY();
+        sourceBottomRight = dimMinusThree - 3.0f;
+      } else {
+        bottomRightX = (topRight.getX() - topLeft.getX()) + bottomLeft.getX();
+        bottomRightY = (topRight.getY() - topLeft.getY()) + bottomLeft.getY();
+        sourceBottomRight = dimMinusThree;
+      }
+      to = new float[] {3.5f, 3.5f, dimMinusThree, 3.5f, sourceBottomRight, sourceBottomRight,
+          3.5f, dimMinusThree};
+      from = new float[] {topLeft.getX(), topLeft.getY(), topRight.getX(), topRight.getY(),
+          bottomRightX, bottomRightY, bottomLeft.getX(), bottomLeft.getY()};
+    }
+
+    BitMatrix sample(GridSampler sampler) throws ReaderException {
+      return sampler.sampleGrid(image, dimension, to[0], to[1], to[2], to[3], to[4], to[5], to[6],
+          to[7], from[0], from[1], from[2], from[3], from[4], from[5], from[6], from[7]);
+    }
+  }
+
+}
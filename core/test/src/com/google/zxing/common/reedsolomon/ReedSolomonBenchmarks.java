@@ -0,0 +1,85 @@
+/*
+ * Copyright 2010 ZXing authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.zxing.common.reedsolomon;
+
+import com.google.zxing.benchmark.Benchmark;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Times ReedSolomonDecoder.decode() on a QR Code sized block of 100 codewords, 30 of them for
+ * error correction, with from no errors up to the 15 it can correct. Each benchmark cycles through
+ * several blocks corrupted in different places, copying one into a work array per operation as
+ * the decoder corrects in place.
+ */
+public final class ReedSolomonBenchmarks {
+
+  private static final int CODEWORDS = 100;
+  private static final int EC_CODEWORDS = 30;
+  private static final int[] ERROR_COUNTS = {0, 1, 5, 10, 15};
+  private static final int VARIANTS = 16;
+
+  private ReedSolomonBenchmarks() {
+  }
+
+  public static List<Benchmark> create() {
+    Random random = new Random(0xDEADBEEF);
+    int[] encoded = new int[CODEWORDS];
+    for (int i = 0; i < CODEWORDS - EC_CODEWORDS; i++) {
+      encoded[i] = random.nextInt(256);
+    }
+    new ReedSolomonEncoder(GF256.QR_CODE_FIELD).encode(encoded, EC_CODEWORDS);
+
+    List<Benchmark> benchmarks = new ArrayList<Benchmark>();
+    for (int errors : ERROR_COUNTS) {
+      final int[][] received = new int[VARIANTS][];
+      for (int i = 0; i < VARIANTS; i++) {
+        received[i] = encoded.clone();
+        corrupt(received[i], errors, random);
+      }
+      benchmarks.add(new Benchmark("reedsolomon.decode[" + errors + " errors]") {
+        private final ReedSolomonDecoder decoder = new ReedSolomonDecoder(GF256.QR_CODE_FIELD);
+        private final int[] work = new int[CODEWORDS];
+        private int next;
+        public Object run() throws Exception {
+          System.arraycopy(received[next++ % VARIANTS], 0, work, 0, CODEWORDS);
+          decoder.decode(work, EC_CODEWORDS);
+          return work;
+        }
+      });
+    }
+    return benchmarks;
+  }
+
+  // As in AbstractReedSolomonTestCase, which cannot be used here without JUnit.
+  private static void corrupt(int[] received, int howMany, Random random) {
+    BitSet corrupted = new BitSet(received.length);
+    for (int j = 0; j < howMany; j++) {
+      int location = random.nextInt(received.length);
+      if (corrupted.get(location)) {
+        j--;
+      } else {
+        corrupted.set(location);
+        received[location] = (received[location] + 1 + random.nextInt(255)) & 0xFF;
+      }
+    }
+  }
+
+}
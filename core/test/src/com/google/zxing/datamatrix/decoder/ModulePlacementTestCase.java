@@ -0,0 +1,137 @@
+/*
+ * Copyright 2010 ZXing authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.zxing.datamatrix.decoder;
+
+import com.google.zxing.ReaderException;
+import com.google.zxing.common.BitMatrix;
+import junit.framework.TestCase;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public final class ModulePlacementTestCase extends TestCase {
+
+  public void testEveryVersionFillsItsDataRegions() {
+    List<Version> versions = allVersions();
+    assertEquals(30, versions.size());
+    for (Version version : versions) {
+      int regionRows = version.getDataRegionSizeRows();
+      int regionColumns = version.getDataRegionSizeColumns();
+      int symbolRows = version.getSymbolSizeRows();
+      int symbolColumns = version.getSymbolSizeColumns();
+      int[] placement = version.getModulePlacement();
+      assertEquals(version.getTotalCodewords() * 8, placement.length);
+      boolean[] used = new boolean[symbolRows * symbolColumns];
+      for (int module : placement) {
+        int row = module >>> 16;
+        int column = module & 0xFFFF;
+        assertTrue(row < symbolRows && column < symbolColumns);
+        // Never on the finder or alignment patterns around a data region
+        int rowInRegion = row % (regionRows + 2);
+        int columnInRegion = column % (regionColumns + 2);
+        assertTrue(rowInRegion != 0 && rowInRegion != regionRows + 1);
+        assertTrue(columnInRegion != 0 && columnInRegion != regionColumns + 1);
+        assertFalse("Version " + version + " reuses a module", used[row * symbolColumns + column]);
+        used[row * symbolColumns + column] = true;
+      }
+      // All of the mapping matrix is used, except perhaps a fixed 2x2 pattern in one corner
+      int mappingModules = (symbolRows / regionRows) * regionRows *
+          (symbolColumns / regionColumns) * regionColumns;
+      int unused = mappingModules - placement.length;
+      assertTrue("Version " + version + " leaves " + unused, unused == 0 || unused == 4);
+    }
+  }
+
+  public void testRectangularSymbol() throws ReaderException {
+    Version version = Version.getVersionForDimensions(8, 18);
+    String text = "ABCDE";
+    int[] codewords = new int[version.getTotalCodewords()];
+    for (int i = 0; i < text.length(); i++) {
+      // ASCII characters are encoded as the value + 1
+      codewords[i] = text.charAt(i) + 1;
+    }
+    appendErrorCorrection(codewords, text.length());
+
+    BitMatrix bits = new BitMatrix(version.getSymbolSizeColumns(), version.getSymbolSizeRows());
+    int[] placement = version.getModulePlacement();
+    for (int i = 0; i < placement.length; i++) {
+      if ((codewords[i >> 3] & (0x80 >> (i & 0x07))) != 0) {
+        bits.set(placement[i] & 0xFFFF, placement[i] >>> 16);
+      }
+    }
+    assertEquals(text, new Decoder().decode(bits).getText());
+
+    // And with a codeword damaged
+    bits.flip(placement[0] & 0xFFFF, placement[0] >>> 16);
+    assertEquals(text, new Decoder().decode(bits).getText());
+  }
+
+  /**
+   * Fills in the error correction codewords after the data codewords: the remainder of
+   * data(x) x^k divided by (x - a)(x - a^2)...(x - a^k) in GF(256), as for Data Matrix.
+   */
+  private static void appendErrorCorrection(int[] codewords, int numDataCodewords) {
+    int[] exp = new int[255];
+    int[] log = new int[256];
+    int x = 1;
+    for (int i = 0; i < 255; i++) {
+      exp[i] = x;
+      log[x] = i;
+      x <<= 1;
+      if (x >= 0x100) {
+        x ^= 0x12D;
+      }
+    }
+    int numECCodewords = codewords.length - numDataCodewords;
+    // Generator coefficients, highest power first
+    int[] generator = new int[numECCodewords + 1];
+    generator[0] = 1;
+    for (int i = 1; i <= numECCodewords; i++) {
+      for (int j = i; j > 0; j--) {
+        generator[j] ^= multiply(generator[j - 1], exp[i], exp, log);
+      }
+    }
+    int[] remainder = new int[numECCodewords];
+    for (int i = 0; i < numDataCodewords; i++) {
+      int factor = codewords[i] ^ remainder[0];
+      for (int j = 0; j < numECCodewords; j++) {
+        int next = j + 1 < numECCodewords ? remainder[j + 1] : 0;
+        remainder[j] = next ^ multiply(factor, generator[j + 1], exp, log);
+      }
+    }
+    System.arraycopy(remainder, 0, codewords, numDataCodewords, numECCodewords);
+  }
+
+  private static int multiply(int a, int b, int[] exp, int[] log) {
+    return a == 0 || b == 0 ? 0 : exp[(log[a] + log[b]) % 255];
+  }
+
+  private static List<Version> allVersions() {
+    List<Version> versions = new ArrayList<Version>();
+    for (int rows = 8; rows <= 144; rows += 2) {
+      for (int columns = 8; columns <= 144; columns += 2) {
+        try {
+          versions.add(Version.getVersionForDimensions(rows, columns));
+        } catch (ReaderException re) {
+          // not a Data Matrix size
+        }
+      }
+    }
+    return versions;
+  }
+
+}
@@ -0,0 +1,69 @@
+/*
+ * Copyright 2010 ZXing authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.zxing.datamatrix.decoder;
+
+import com.google.zxing.ReaderException;
+import junit.framework.TestCase;
+
+public final class VersionTestCase extends TestCase {
+
+  public void testVersionForDimensions() throws ReaderException {
+    // Square symbols, ISO 16022:2006 Table 7
+    int[] squareSizes = { 10, 12, 14, 16, 18, 20, 22, 24, 26, 32, 36, 40, 44, 48, 52, 64, 72, 80,
+        88, 96, 104, 120, 132, 144 };
+    for (int i = 0; i < squareSizes.length; i++) {
+      checkVersion(i + 1, squareSizes[i], squareSizes[i]);
+    }
+    // Rectangular symbols
+    checkVersion(25, 8, 18);
+    checkVersion(26, 8, 32);
+    checkVersion(27, 12, 26);
+    checkVersion(28, 12, 36);
+    checkVersion(29, 16, 36);
+    checkVersion(30, 16, 48);
+  }
+
+  public void testBadDimensions() {
+    int[][] badDimensions = { {0, 0}, {11, 11}, {28, 28}, {18, 8}, {146, 146}, {-2, -2},
+        {1000, 10}, {10, 1000} };
+    for (int i = 0; i < badDimensions.length; i++) {
+      try {
+        Version.getVersionForDimensions(badDimensions[i][0], badDimensions[i][1]);
+        fail("Should not have found a version for " + badDimensions[i][0] + 'x' +
+            badDimensions[i][1]);
+      } catch (ReaderException re) {
+        // good
+      }
+    }
+  }
+
+  public void testTotalCodewords() throws ReaderException {
+    // 144x144 is the one version with blocks of two sizes
+    Version version = Version.getVersionForDimensions(144, 144);
+    assertEquals(10, version.getECBlocks().getNumBlocks());
+    assertEquals(8 * 156 + 2 * 155, version.getECBlocks().getNumDataCodewords());
+    assertEquals(8 * 156 + 2 * 155 + 10 * 62, version.getTotalCodewords());
+  }
+
+  private static void checkVersion(int number, int rows, int columns) throws ReaderException {
+    Version version = Version.getVersionForDimensions(rows, columns);
+    assertEquals(number, version.getVersionNumber());
+    assertEquals(rows, version.getSymbolSizeRows());
+    assertEquals(columns, version.getSymbolSizeColumns());
+  }
+
+}
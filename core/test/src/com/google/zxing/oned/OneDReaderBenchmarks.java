@@ -0,0 +1,77 @@
+/*
+ * Copyright 2010 ZXing authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.zxing.oned;
+
+import com.google.zxing.BinaryBitmap;
+import com.google.zxing.LuminanceSource;
+import com.google.zxing.ReaderException;
+import com.google.zxing.benchmark.Benchmark;
+import com.google.zxing.benchmark.BenchmarkImages;
+import com.google.zxing.common.GlobalHistogramBinarizer;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Times each 1D format's reader on the black box images it can read without trying harder, so
+ * that each operation is a single pass of AbstractOneDReader.doDecode() over the sampled rows.
+ * The binarizer is included, as it computes each row on demand.
+ */
+public final class OneDReaderBenchmarks {
+
+  private OneDReaderBenchmarks() {
+  }
+
+  public static List<Benchmark> create() throws IOException {
+    List<Benchmark> benchmarks = new ArrayList<Benchmark>();
+    add(benchmarks, "ean13-1", new EAN13Reader());
+    add(benchmarks, "ean8-1", new EAN8Reader());
+    add(benchmarks, "upca-1", new UPCAReader());
+    add(benchmarks, "upce-1", new UPCEReader());
+    add(benchmarks, "code39-1", new Code39Reader());
+    add(benchmarks, "code128-1", new Code128Reader());
+    add(benchmarks, "itf-1", new ITFReader());
+    return benchmarks;
+  }
+
+  private static void add(List<Benchmark> benchmarks, String imageSet, final OneDReader reader)
+      throws IOException {
+    List<LuminanceSource> readable = new ArrayList<LuminanceSource>();
+    for (LuminanceSource source : BenchmarkImages.load(imageSet)) {
+      try {
+        reader.decode(new BinaryBitmap(new GlobalHistogramBinarizer(source)));
+        readable.add(source);
+      } catch (ReaderException re) {
+        // not one for this benchmark
+      }
+    }
+    final LuminanceSource[] images = readable.toArray(new LuminanceSource[readable.size()]);
+    if (images.length == 0) {
+      return;
+    }
+    String format = imageSet.substring(0, imageSet.indexOf('-'));
+    benchmarks.add(new Benchmark("oned.doDecode." + format + '[' + imageSet + ']') {
+      private int next;
+      public Object run() throws Exception {
+        LuminanceSource source = images[next++ % images.length];
+        return reader.decode(new BinaryBitmap(new GlobalHistogramBinarizer(source)));
+      }
+    });
+  }
+
+}
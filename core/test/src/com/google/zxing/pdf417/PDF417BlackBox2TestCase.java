@@ -33,7 +33,7 @@ public final class PDF417BlackBox2TestCase extends AbstractBlackBoxTestCase {
 
   public PDF417BlackBox2TestCase() {
     super("test/data/blackbox/pdf417-2", new MultiFormatReader(), BarcodeFormat.PDF417);
-    addTest(11, 11, 0.0f);
+    addTest(12, 12, 0.0f);
     addTest(12, 12, 180.0f);
   }
 
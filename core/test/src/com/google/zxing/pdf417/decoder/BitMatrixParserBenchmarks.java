@@ -0,0 +1,63 @@
+/*
+ * Copyright 2010 ZXing authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.zxing.pdf417.decoder;
+
+import com.google.zxing.BinaryBitmap;
+import com.google.zxing.benchmark.Benchmark;
+import com.google.zxing.common.BitMatrix;
+import com.google.zxing.pdf417.detector.Detector;
+import com.google.zxing.pdf417.detector.DetectorBenchmarks;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Times BitMatrixParser.readCodewords() on the grids sampled from PDF417 black box images, which
+ * is mostly translating symbols into codewords.
+ */
+public final class BitMatrixParserBenchmarks {
+
+  private static final String[] IMAGE_SETS = {"pdf417", "pdf417-2"};
+
+  private BitMatrixParserBenchmarks() {
+  }
+
+  public static List<Benchmark> create() throws Exception {
+    List<Benchmark> benchmarks = new ArrayList<Benchmark>();
+    for (String imageSet : IMAGE_SETS) {
+      final BitMatrix[] grids = sample(imageSet);
+      benchmarks.add(new Benchmark("pdf417.BitMatrixParser.readCodewords[" + imageSet + ']') {
+        private int next;
+        public Object run() {
+          return new BitMatrixParser(grids[next++ % grids.length]).readCodewords();
+        }
+      });
+    }
+    return benchmarks;
+  }
+
+  private static BitMatrix[] sample(String imageSet) throws Exception {
+    BinaryBitmap[] images = DetectorBenchmarks.load(imageSet);
+    BitMatrix[] grids = new BitMatrix[images.length];
+    for (int i = 0; i < images.length; i++) {
+      grids[i] = new Detector(images[i]).detect().getBits();
+    }
+    return grids;
+  }
+
+}
@@ -0,0 +1,73 @@
+/*
+ * Copyright 2010 ZXing authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.zxing.pdf417.detector;
+
+import com.google.zxing.BinaryBitmap;
+import com.google.zxing.LuminanceSource;
+import com.google.zxing.ReaderException;
+import com.google.zxing.benchmark.Benchmark;
+import com.google.zxing.benchmark.BenchmarkImages;
+import com.google.zxing.common.GlobalHistogramBinarizer;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Times Detector.detect() on PDF417 black box images, binarized beforehand, in which it finds a
+ * barcode. This covers the search for guard patterns and sampling the grid.
+ */
+public final class DetectorBenchmarks {
+
+  private static final String[] IMAGE_SETS = {"pdf417", "pdf417-2"};
+
+  private DetectorBenchmarks() {
+  }
+
+  public static List<Benchmark> create() throws IOException {
+    List<Benchmark> benchmarks = new ArrayList<Benchmark>();
+    for (String imageSet : IMAGE_SETS) {
+      final BinaryBitmap[] images = load(imageSet);
+      benchmarks.add(new Benchmark("pdf417.Detector.detect[" + imageSet + ']') {
+        private int next;
+        public Object run() throws Exception {
+          return new Detector(images[next++ % images.length]).detect();
+        }
+      });
+    }
+    return benchmarks;
+  }
+
+  /**
+   * @return the images in the set in which a barcode is detected, with their black matrix
+   *         already computed and cached
+   */
+  public static BinaryBitmap[] load(String imageSet) throws IOException {
+    List<BinaryBitmap> found = new ArrayList<BinaryBitmap>();
+    for (LuminanceSource source : BenchmarkImages.load(imageSet)) {
+      BinaryBitmap image = new BinaryBitmap(new GlobalHistogramBinarizer(source));
+      try {
+        new Detector(image).detect();
+        found.add(image);
+      } catch (ReaderException re) {
+        // not one for this benchmark
+      }
+    }
+    return found.toArray(new BinaryBitmap[found.size()]);
+  }
+
+}
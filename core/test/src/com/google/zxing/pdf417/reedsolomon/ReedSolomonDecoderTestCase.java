@@ -0,0 +1,173 @@
+/*
+ * Copyright 2010 ZXing authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.zxing.pdf417.reedsolomon;
+
+import com.google.zxing.common.reedsolomon.ReedSolomonException;
+import junit.framework.TestCase;
+
+import java.util.Random;
+
+public final class ReedSolomonDecoderTestCase extends TestCase {
+
+  // The example symbol "PDF417" at error correction level 1, from the PDF417 specification
+  private static final int[] SPEC_DATA = { 5, 453, 178, 121, 239 };
+  private static final int[] SPEC_EC = { 452, 327, 657, 619 };
+
+  public void testEncoderMatchesSpecification() {
+    int[] codewords = encode(SPEC_DATA, SPEC_EC.length);
+    for (int i = 0; i < SPEC_EC.length; i++) {
+      assertEquals(SPEC_EC[i], codewords[SPEC_DATA.length + i]);
+    }
+  }
+
+  public void testNoErrors() throws ReedSolomonException {
+    int[] codewords = encode(SPEC_DATA, SPEC_EC.length);
+    assertEquals(0, new ReedSolomonDecoder(512).decode(codewords, SPEC_EC.length, null));
+  }
+
+  public void testErrors() throws ReedSolomonException {
+    Random random = new Random(0xDEADBEEF);
+    ReedSolomonDecoder decoder = new ReedSolomonDecoder(512);
+    for (int level = 0; level <= 8; level++) {
+      int numECCodewords = 2 << level;
+      int[] original = encode(randomData(random, 60), numECCodewords);
+      for (int errors = 1; errors <= numECCodewords / 2; errors = errors * 2 + 1) {
+        int[] received = original.clone();
+        corrupt(received, positions(random, received.length, errors));
+        assertEquals(errors, decoder.decode(received, numECCodewords, null));
+        assertArrayEquals(original, received);
+      }
+    }
+  }
+
+  public void testErasures() throws ReedSolomonException {
+    Random random = new Random(0xDEADBEEF);
+    ReedSolomonDecoder decoder = new ReedSolomonDecoder(512);
+    int[] original = encode(randomData(random, 40), 16);
+    int[] received = original.clone();
+    // Unreadable codewords are read as 0, which may happen to be right
+    int[] erasures = positions(random, received.length, 16);
+    for (int erasure : erasures) {
+      received[erasure] = 0;
+    }
+    decoder.decode(received, 16, erasures);
+    assertArrayEquals(original, received);
+  }
+
+  public void testErrorsAndErasures() throws ReedSolomonException {
+    Random random = new Random(0xDEADBEEF);
+    ReedSolomonDecoder decoder = new ReedSolomonDecoder(512);
+    int[] original = encode(randomData(random, 100), 32);
+    for (int errors = 0; errors <= 16; errors += 4) {
+      int numErasures = 32 - 2 * errors;
+      int[] positions = positions(random, original.length, errors + numErasures);
+      int[] erasures = new int[numErasures];
+      System.arraycopy(positions, 0, erasures, 0, numErasures);
+      int[] received = original.clone();
+      for (int erasure : erasures) {
+        received[erasure] = 0;
+      }
+      for (int i = numErasures; i < positions.length; i++) {
+        received[positions[i]] = (received[positions[i]] + 1 + random.nextInt(928)) % 929;
+      }
+      decoder.decode(received, 32, erasures);
+      assertArrayEquals(original, received);
+    }
+  }
+
+  public void testTooManyErrors() {
+    Random random = new Random(0xDEADBEEF);
+    int[] received = encode(randomData(random, 100), 32);
+    corrupt(received, positions(random, received.length, 20));
+    try {
+      new ReedSolomonDecoder(512).decode(received, 32, null);
+      fail("Should not have corrected 20 errors with 32 error correction codewords");
+    } catch (ReedSolomonException rse) {
+      // good
+    }
+  }
+
+  /**
+   * @return data followed by error correction codewords: the complement of the remainder of
+   *         data(x) x^k divided by (x - 3)(x - 3^2)...(x - 3^k)
+   */
+  private static int[] encode(int[] data, int numECCodewords) {
+    int[] generator = new int[numECCodewords + 1];
+    generator[0] = 1;
+    int power = 1;
+    for (int i = 1; i <= numECCodewords; i++) {
+      power = power * 3 % 929;
+      for (int j = i; j > 0; j--) {
+        generator[j] = (generator[j] + 929 - power * generator[j - 1] % 929) % 929;
+      }
+    }
+    int[] remainder = new int[numECCodewords];
+    for (int value : data) {
+      int factor = (value + remainder[0]) % 929;
+      for (int j = 0; j < numECCodewords; j++) {
+        int next = j + 1 < numECCodewords ? remainder[j + 1] : 0;
+        remainder[j] = (next + 929 - factor * generator[j + 1] % 929) % 929;
+      }
+    }
+    int[] codewords = new int[data.length + numECCodewords];
+    System.arraycopy(data, 0, codewords, 0, data.length);
+    for (int i = 0; i < numECCodewords; i++) {
+      codewords[data.length + i] = (929 - remainder[i]) % 929;
+    }
+    return codewords;
+  }
+
+  private static int[] randomData(Random random, int length) {
+    int[] data = new int[length];
+    for (int i = 0; i < length; i++) {
+      data[i] = random.nextInt(929);
+    }
+    return data;
+  }
+
+  /**
+   * @return that many distinct positions
+   */
+  private static int[] positions(Random random, int length, int howMany) {
+    boolean[] used = new boolean[length];
+    int[] positions = new int[howMany];
+    for (int i = 0; i < howMany; i++) {
+      int position;
+      do {
+        position = random.nextInt(length);
+      } while (used[position]);
+      used[position] = true;
+      positions[i] = position;
+    }
+    return positions;
+  }
+
+  private static void corrupt(int[] received, int[] positions) {
+    Random random = new Random(positions.length);
+    for (int position : positions) {
+      received[position] = (received[position] + 1 + random.nextInt(928)) % 929;
+    }
+  }
+
+  private static void assertArrayEquals(int[] expected, int[] actual) {
+    assertEquals(expected.length, actual.length);
+    for (int i = 0; i < expected.length; i++) {
+      assertEquals("codeword " + i, expected[i], actual[i]);
+    }
+  }
+
+}
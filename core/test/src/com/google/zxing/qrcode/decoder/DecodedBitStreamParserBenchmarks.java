@@ -0,0 +1,108 @@
+/*
+ * Copyright 2010 ZXing authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.zxing.qrcode.decoder;
+
+import com.google.zxing.DecodeHintType;
+import com.google.zxing.benchmark.Benchmark;
+import com.google.zxing.common.BitMatrix;
+import com.google.zxing.common.ByteMatrix;
+import com.google.zxing.common.DecoderResult;
+import com.google.zxing.qrcode.encoder.Encoder;
+import com.google.zxing.qrcode.encoder.QRCode;
+
+import java.util.ArrayList;
+import java.util.Hashtable;
+import java.util.List;
+
+/**
+ * Times DecodedBitStreamParser.decode() on the data codewords of QR Codes holding each kind of
+ * content, and getting the text from its result. The codes are made by the encoder and read back
+ * exactly as Decoder does, short of error correction, which has nothing to correct.
+ */
+public final class DecodedBitStreamParserBenchmarks {
+
+  private DecodedBitStreamParserBenchmarks() {
+  }
+
+  public static List<Benchmark> create() throws Exception {
+    StringBuilder digits = new StringBuilder();
+    StringBuilder alphanumeric = new StringBuilder();
+    StringBuilder latin1 = new StringBuilder();
+    for (int i = 0; i < 200; i++) {
+      digits.append((char) ('0' + i % 10));
+      alphanumeric.append("0123456789ABCDEFGHIJKLMNOPQRSTUVWXYZ $%*+-./:".charAt(i % 45));
+      latin1.append(i % 10 == 0 ? '\u00e9' : (char) ('a' + i % 26));
+    }
+    List<Benchmark> benchmarks = new ArrayList<Benchmark>();
+    add(benchmarks, "numeric", digits.toString());
+    add(benchmarks, "alphanumeric", alphanumeric.toString());
+    add(benchmarks, "byte", latin1.toString().replace('\u00e9', 'e'));
+    add(benchmarks, "byte-guessed-charset", latin1.toString());
+    Hashtable<DecodeHintType, Object> hints = new Hashtable<DecodeHintType, Object>();
+    hints.put(DecodeHintType.CHARACTER_SET, "ISO8859_1");
+    add(benchmarks, "byte-charset-hint", latin1.toString(), hints, true);
+    add(benchmarks, "byte-raw-bytes-only", latin1.toString(), null, false);
+    add(benchmarks, "url", "http://www.upcdatabase.com/item/0012345678905?source=zxing&lang=en");
+    return benchmarks;
+  }
+
+  private static void add(List<Benchmark> benchmarks, String name, String content)
+      throws Exception {
+    add(benchmarks, name, content, null, true);
+  }
+
+  private static void add(List<Benchmark> benchmarks, String name, String content,
+                          final Hashtable<DecodeHintType, Object> hints, final boolean getText)
+      throws Exception {
+    QRCode qrCode = new QRCode();
+    Encoder.encode(content, ErrorCorrectionLevel.M, qrCode);
+    ByteMatrix modules = qrCode.getMatrix();
+    BitMatrix bits = new BitMatrix(modules.getWidth());
+    for (int y = 0; y < modules.getHeight(); y++) {
+      for (int x = 0; x < modules.getWidth(); x++) {
+        if (modules.get(x, y) == 1) {
+          bits.set(x, y);
+        }
+      }
+    }
+
+    BitMatrixParser parser = new BitMatrixParser(bits);
+    final Version version = parser.readVersion();
+    final ErrorCorrectionLevel ecLevel = parser.readFormatInformation().getErrorCorrectionLevel();
+    DataBlock[] dataBlocks = DataBlock.getDataBlocks(parser.readCodewords(), version, ecLevel);
+    int totalBytes = 0;
+    for (DataBlock dataBlock : dataBlocks) {
+      totalBytes += dataBlock.getNumDataCodewords();
+    }
+    final byte[] data = new byte[totalBytes];
+    int offset = 0;
+    for (DataBlock dataBlock : dataBlocks) {
+      System.arraycopy(dataBlock.getCodewords(), 0, data, offset, dataBlock.getNumDataCodewords());
+      offset += dataBlock.getNumDataCodewords();
+    }
+    // Fails here, rather than in the middle of a run, if the content cannot be parsed.
+    DecodedBitStreamParser.decode(data, version, ecLevel, hints).getText();
+
+    benchmarks.add(new Benchmark("qrcode.DecodedBitStreamParser.decode[" + name + ']') {
+      public Object run() throws Exception {
+        DecoderResult result = DecodedBitStreamParser.decode(data, version, ecLevel, hints);
+        return getText ? result.getText() : result.getRawBytes();
+      }
+    });
+  }
+
+}
@@ -16,10 +16,14 @@
 
 package com.google.zxing.qrcode.decoder;
 
+import com.google.zxing.DecodeHintType;
 import com.google.zxing.ReaderException;
 import com.google.zxing.common.BitSourceBuilder;
+import com.google.zxing.common.DecoderResult;
 import junit.framework.TestCase;
 
+import java.util.Hashtable;
+
 /**
  * Tests {@link com.google.zxing.qrcode.decoder.DecodedBitStreamParser}.
  *
@@ -35,7 +39,7 @@ public final class DecodedBitStreamParserTestCase extends TestCase {
     builder.write(0xF2, 8);
     builder.write(0xF3, 8);
     String result = DecodedBitStreamParser.decode(builder.toByteArray(),
-        Version.getVersionForNumber(1), null).getText();
+        Version.getVersionForNumber(1), null, null).getText();
     assertEquals("\u00f1\u00f2\u00f3", result);
   }
 
@@ -47,7 +51,7 @@ public final class DecodedBitStreamParserTestCase extends TestCase {
     builder.write(0xA2, 8);
     builder.write(0xA3, 8);
     String result = DecodedBitStreamParser.decode(builder.toByteArray(),
-        Version.getVersionForNumber(1), null).getText();
+        Version.getVersionForNumber(1), null, null).getText();
     assertEquals("\uff61\uff62\uff63", result);
   }
 
@@ -61,10 +65,45 @@ public final class DecodedBitStreamParserTestCase extends TestCase {
     builder.write(0xA2, 8);
     builder.write(0xA3, 8);
     String result = DecodedBitStreamParser.decode(builder.toByteArray(),
-        Version.getVersionForNumber(1), null).getText();
+        Version.getVersionForNumber(1), null, null).getText();
     assertEquals("\u00ed\u00f3\u00fa", result);
   }
 
+  public void testCharacterSetHint() throws ReaderException {
+    BitSourceBuilder builder = new BitSourceBuilder();
+    builder.write(0x04, 4); // Byte mode
+    builder.write(0x03, 8); // 3 bytes
+    builder.write(0xA1, 8);
+    builder.write(0xA2, 8);
+    builder.write(0xA3, 8);
+    // Would be guessed to be Shift_JIS, as above
+    Hashtable<DecodeHintType, Object> hints = new Hashtable<DecodeHintType, Object>();
+    hints.put(DecodeHintType.CHARACTER_SET, "ISO8859_1");
+    String result = DecodedBitStreamParser.decode(builder.toByteArray(),
+        Version.getVersionForNumber(1), null, hints).getText();
+    assertEquals("\u00a1\u00a2\u00a3", result);
+  }
+
+  public void testMixedSegments() throws ReaderException {
+    BitSourceBuilder builder = new BitSourceBuilder();
+    builder.write(0x02, 4); // Alphanumeric mode
+    builder.write(0x02, 9); // 2 characters
+    builder.write(10 * 45 + 11, 11); // "AB"
+    builder.write(0x04, 4); // Byte mode
+    builder.write(0x02, 8); // 2 bytes
+    builder.write(0xF1, 8);
+    builder.write(0xF2, 8);
+    builder.write(0x01, 4); // Numeric mode
+    builder.write(0x03, 10); // 3 digits
+    builder.write(123, 10);
+    byte[] bytes = builder.toByteArray();
+    DecoderResult decoderResult = DecodedBitStreamParser.decode(bytes, Version.getVersionForNumber(1), null, null);
+    assertSame(bytes, decoderResult.getRawBytes());
+    assertEquals(1, decoderResult.getByteSegments().size());
+    assertEquals("AB\u00f1\u00f2123", decoderResult.getText());
+    assertSame(decoderResult.getText(), decoderResult.getText());
+  }
+
   // TODO definitely need more tests here
 
 }
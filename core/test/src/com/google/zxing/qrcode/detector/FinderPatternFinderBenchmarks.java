@@ -0,0 +1,65 @@
+/*
+ * Copyright 2010 ZXing authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.zxing.qrcode.detector;
+
+import com.google.zxing.LuminanceSource;
+import com.google.zxing.ReaderException;
+import com.google.zxing.benchmark.Benchmark;
+import com.google.zxing.benchmark.BenchmarkImages;
+import com.google.zxing.common.BitMatrix;
+import com.google.zxing.common.GlobalHistogramBinarizer;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Times FinderPatternFinder.find() on QR Code black box images, binarized beforehand, in which
+ * it finds all three finder patterns.
+ */
+public final class FinderPatternFinderBenchmarks {
+
+  private static final String[] IMAGE_SETS = {"qrcode-2", "qrcode-3"};
+
+  private FinderPatternFinderBenchmarks() {
+  }
+
+  public static List<Benchmark> create() throws IOException {
+    List<Benchmark> benchmarks = new ArrayList<Benchmark>();
+    for (String imageSet : IMAGE_SETS) {
+      List<BitMatrix> found = new ArrayList<BitMatrix>();
+      for (LuminanceSource source : BenchmarkImages.load(imageSet)) {
+        try {
+          BitMatrix matrix = new GlobalHistogramBinarizer(source).getBlackMatrix();
+          new FinderPatternFinder(matrix).find(null);
+          found.add(matrix);
+        } catch (ReaderException re) {
+          // not one for this benchmark
+        }
+      }
+      final BitMatrix[] images = found.toArray(new BitMatrix[found.size()]);
+      benchmarks.add(new Benchmark("qrcode.FinderPatternFinder.find[" + imageSet + ']') {
+        private int next;
+        public Object run() throws Exception {
+          return new FinderPatternFinder(images[next++ % images.length]).find(null);
+        }
+      });
+    }
+    return benchmarks;
+  }
+
+}
@@ -0,0 +1,86 @@
+/*
+ * Copyright 2010 ZXing authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.zxing.qrcode.encoder;
+
+import com.google.zxing.WriterException;
+import com.google.zxing.benchmark.Benchmark;
+import com.google.zxing.qrcode.decoder.ErrorCorrectionLevel;
+import com.google.zxing.qrcode.decoder.Version;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Times Encoder.encode() for a range of versions at each error correction level. Each content is
+ * 8-bit text as long as the version holds, so the encoder picks exactly that version.
+ */
+public final class EncoderBenchmarks {
+
+  private static final int[] VERSIONS = {1, 5, 10, 20, 40};
+  private static final ErrorCorrectionLevel[] EC_LEVELS = {
+      ErrorCorrectionLevel.L, ErrorCorrectionLevel.M, ErrorCorrectionLevel.Q, ErrorCorrectionLevel.H
+  };
+
+  private EncoderBenchmarks() {
+  }
+
+  public static List<Benchmark> create() throws Exception {
+    List<Benchmark> benchmarks = new ArrayList<Benchmark>();
+    for (int versionNumber : VERSIONS) {
+      for (final ErrorCorrectionLevel ecLevel : EC_LEVELS) {
+        final String content = fill(versionNumber, ecLevel);
+        benchmarks.add(new Benchmark("qrcode.Encoder.encode[v" + versionNumber + ' ' + ecLevel +
+            ']') {
+          public Object run() throws Exception {
+            QRCode qrCode = new QRCode();
+            Encoder.encode(content, ecLevel, qrCode);
+            return qrCode;
+          }
+        });
+      }
+    }
+    return benchmarks;
+  }
+
+  /**
+   * @return lower case text which the encoder fits into the version, and only just
+   */
+  private static String fill(int versionNumber, ErrorCorrectionLevel ecLevel) throws Exception {
+    Version version = Version.getVersionForNumber(versionNumber);
+    int dataBytes = version.getTotalCodewords() -
+        version.getECBlocksForLevel(ecLevel).getTotalECCodewords();
+    StringBuilder content = new StringBuilder(dataBytes);
+    for (int i = 0; i < dataBytes; i++) {
+      content.append((char) ('a' + i % 26));
+    }
+    // Headers take a few bytes; shorten the text until the encoder picks this version.
+    while (true) {
+      content.setLength(content.length() - 1);
+      QRCode qrCode = new QRCode();
+      try {
+        Encoder.encode(content.toString(), ecLevel, qrCode);
+      } catch (WriterException we) {
+        // too long for any version
+        continue;
+      }
+      if (qrCode.getVersion() <= versionNumber) {
+        return content.toString();
+      }
+    }
+  }
+
+}
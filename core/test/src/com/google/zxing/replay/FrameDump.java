@@ -0,0 +1,259 @@
+/*
+ * Copyright 2010 ZXing authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.zxing.replay;
+
+import com.google.zxing.LuminanceSource;
+
+import java.awt.image.BufferedImage;
+import java.io.DataInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Properties;
+
+/**
+ * <p>One preview frame as the camera driver delivered it. A recorded frame is stored as two
+ * files: the raw buffer passed to onPreviewFrame() in {@code name.yuv}, and its metadata in
+ * {@code name.properties}:</p>
+ *
+ * <pre>
+ * width=480
+ * height=320
+ * format=yuv420sp
+ * # Optional: the framing rectangle, which defaults to the whole frame as on the device.
+ * left=0
+ * top=0
+ * cropWidth=480
+ * cropHeight=320
+ * </pre>
+ *
+ * <p>The format is one of {@link #YUV420SP}, {@link #YUV422SP} or {@link #YUV422I}, the formats
+ * CameraManager.buildLuminanceSource() accepts. Ordinary images can also be converted into
+ * frames, so that existing test images can be replayed.</p>
+ */
+public final class FrameDump {
+
+  public static final String YUV420SP = "yuv420sp";
+  public static final String YUV422SP = "yuv422sp";
+  public static final String YUV422I = "yuv422i-yuyv";
+
+  public static final String DATA_SUFFIX = ".yuv";
+  public static final String METADATA_SUFFIX = ".properties";
+
+  private final String name;
+  private final byte[] data;
+  private final int width;
+  private final int height;
+  private final String format;
+  private final int left;
+  private final int top;
+  private final int cropWidth;
+  private final int cropHeight;
+
+  public FrameDump(String name, byte[] data, int width, int height, String format) {
+    this(name, data, width, height, format, 0, 0, width, height);
+  }
+
+  public FrameDump(String name, byte[] data, int width, int height, String format, int left,
+                   int top, int cropWidth, int cropHeight) {
+    if (data.length < getDataLength(width, height, format)) {
+      throw new IllegalArgumentException(name + ": " + data.length + " bytes is too short for a " +
+          width + 'x' + height + ' ' + format + " frame");
+    }
+    this.name = name;
+    this.data = data;
+    this.width = width;
+    this.height = height;
+    this.format = format;
+    this.left = left;
+    this.top = top;
+    this.cropWidth = cropWidth;
+    this.cropHeight = cropHeight;
+  }
+
+  /**
+   * @param metadataFile The frame's .properties file; the .yuv file is found next to it.
+   */
+  public static FrameDump read(File metadataFile) throws IOException {
+    Properties metadata = new Properties();
+    InputStream in = new FileInputStream(metadataFile);
+    try {
+      metadata.load(in);
+    } finally {
+      in.close();
+    }
+    String fileName = metadataFile.getName();
+    String name = fileName.substring(0, fileName.length() - METADATA_SUFFIX.length());
+    int width = getInt(metadata, "width", -1);
+    int height = getInt(metadata, "height", -1);
+    String format = metadata.getProperty("format");
+    if (width <= 0 || height <= 0 || format == null) {
+      throw new IOException(metadataFile + " must give the width, height and format");
+    }
+
+    File dataFile = new File(metadataFile.getParentFile(), name + DATA_SUFFIX);
+    byte[] data = new byte[(int) dataFile.length()];
+    DataInputStream dataIn = new DataInputStream(new FileInputStream(dataFile));
+    try {
+      dataIn.readFully(data);
+    } finally {
+      dataIn.close();
+    }
+    return new FrameDump(name, data, width, height, format, getInt(metadata, "left", 0),
+        getInt(metadata, "top", 0), getInt(metadata, "cropWidth", width),
+        getInt(metadata, "cropHeight", height));
+  }
+
+  /**
+   * Writes the frame as name.yuv and name.properties in the given directory.
+   */
+  public void write(File directory) throws IOException {
+    OutputStream dataOut = new FileOutputStream(new File(directory, name + DATA_SUFFIX));
+    try {
+      dataOut.write(data, 0, getDataLength(width, height, format));
+    } finally {
+      dataOut.close();
+    }
+    Properties metadata = new Properties();
+    metadata.setProperty("width", String.valueOf(width));
+    metadata.setProperty("height", String.valueOf(height));
+    metadata.setProperty("format", format);
+    metadata.setProperty("left", String.valueOf(left));
+    metadata.setProperty("top", String.valueOf(top));
+    metadata.setProperty("cropWidth", String.valueOf(cropWidth));
+    metadata.setProperty("cropHeight", String.valueOf(cropHeight));
+    OutputStream metadataOut = new FileOutputStream(new File(directory, name + METADATA_SUFFIX));
+    try {
+      metadata.store(metadataOut, null);
+    } finally {
+      metadataOut.close();
+    }
+  }
+
+  /**
+   * Converts an image into a frame, as a camera would deliver it. Odd widths and heights are
+   * trimmed since the chroma planes are subsampled.
+   */
+  public static FrameDump fromImage(String name, BufferedImage image, String format) {
+    int width = image.getWidth() & ~1;
+    int height = image.getHeight() & ~1;
+    int[] rgb = image.getRGB(0, 0, width, height, null, 0, width);
+    byte[] data = new byte[getDataLength(width, height, format)];
+    boolean interleaved = YUV422I.equals(format);
+    int chromaOffset = width * height;
+    for (int y = 0; y < height; y++) {
+      for (int x = 0; x < width; x += 2) {
+        int index = y * width + x;
+        int pixel = rgb[index];
+        int next = rgb[index + 1];
+        int u = toU(pixel);
+        int v = toV(pixel);
+        if (interleaved) {
+          int offset = index << 1;
+          data[offset] = (byte) toY(pixel);
+          data[offset + 1] = (byte) u;
+          data[offset + 2] = (byte) toY(next);
+          data[offset + 3] = (byte) v;
+        } else {
+          data[index] = (byte) toY(pixel);
+          data[index + 1] = (byte) toY(next);
+          // Both semi-planar formats store V then U for each pair of pixels; 4:2:0 keeps only
+          // every other row of them.
+          if (YUV422SP.equals(format)) {
+            data[chromaOffset + index] = (byte) v;
+            data[chromaOffset + index + 1] = (byte) u;
+          } else if ((y & 1) == 0) {
+            int offset = chromaOffset + (y >> 1) * width + x;
+            data[offset] = (byte) v;
+            data[offset + 1] = (byte) u;
+          }
+        }
+      }
+    }
+    return new FrameDump(name, data, width, height, format);
+  }
+
+  /**
+   * The same choice CameraManager.buildLuminanceSource() makes on the device.
+   *
+   * @throws IllegalArgumentException if the format is not one the device can decode
+   */
+  public LuminanceSource buildLuminanceSource() {
+    if (YUV420SP.equals(format) || YUV422SP.equals(format)) {
+      return new YUVLuminanceSource(data, width, height, left, top, cropWidth, cropHeight, 1);
+    }
+    if (YUV422I.equals(format)) {
+      return new YUVLuminanceSource(data, width, height, left, top, cropWidth, cropHeight, 2);
+    }
+    throw new IllegalArgumentException("Unsupported preview format: " + format);
+  }
+
+  public String getName() {
+    return name;
+  }
+
+  public int getWidth() {
+    return width;
+  }
+
+  public int getHeight() {
+    return height;
+  }
+
+  public String getFormat() {
+    return format;
+  }
+
+  private static int getDataLength(int width, int height, String format) {
+    int area = width * height;
+    return YUV420SP.equals(format) ? area + (area >> 1) : area << 1;
+  }
+
+  private static int getInt(Properties properties, String key, int defaultValue) {
+    String value = properties.getProperty(key);
+    return value == null ? defaultValue : Integer.parseInt(value.trim());
+  }
+
+  // ITU-R BT.601, as camera drivers produce.
+  private static int toY(int rgb) {
+    return ((66 * red(rgb) + 129 * green(rgb) + 25 * blue(rgb) + 128) >> 8) + 16;
+  }
+
+  private static int toU(int rgb) {
+    return ((-38 * red(rgb) - 74 * green(rgb) + 112 * blue(rgb) + 128) >> 8) + 128;
+  }
+
+  private static int toV(int rgb) {
+    return ((112 * red(rgb) - 94 * green(rgb) - 18 * blue(rgb) + 128) >> 8) + 128;
+  }
+
+  private static int red(int rgb) {
+    return (rgb >> 16) & 0xff;
+  }
+
+  private static int green(int rgb) {
+    return (rgb >> 8) & 0xff;
+  }
+
+  private static int blue(int rgb) {
+    return rgb & 0xff;
+  }
+
+}
@@ -0,0 +1,173 @@
+/*
+ * Copyright 2010 ZXing authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.zxing.replay;
+
+import com.google.zxing.BarcodeFormat;
+import com.google.zxing.BinaryBitmap;
+import com.google.zxing.DecodeHintType;
+import com.google.zxing.LuminanceSource;
+import com.google.zxing.MultiFormatReader;
+import com.google.zxing.ReaderException;
+import com.google.zxing.Result;
+import com.google.zxing.common.FrameQuality;
+import com.google.zxing.common.GlobalHistogramBinarizer;
+
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Hashtable;
+import java.util.List;
+import java.util.Vector;
+
+import javax.imageio.ImageIO;
+
+/**
+ * <p>Replays recorded camera frames on a desktop JVM through the same steps as the Android
+ * client's DecodeThread.decode(): build the luminance source as CameraManager does, skip the frame
+ * if FrameQuality says it is not worth decoding, binarize it with GlobalHistogramBinarizer and
+ * decode it with a MultiFormatReader reused from frame to frame, with the hints the client uses
+ * when every format is enabled.</p>
+ *
+ * <p>Each directory given is one sequence of frames, replayed in file name order. It may hold
+ * frame dumps (see {@link FrameDump}), or images, which are first converted to YUV420SP
+ * frames.</p>
+ *
+ * <pre>
+ * java com.google.zxing.replay.FrameReplayer [--warmup passes] [--min-success-rate percent]
+ *     directory...
+ * </pre>
+ *
+ * <p>The warmup passes replay every sequence without reporting, so that the JIT has compiled the
+ * decoder first. The exit status is 1 if any sequence decodes a smaller percentage of its frames
+ * than the minimum, so that a build can fail on it.</p>
+ */
+public final class FrameReplayer {
+
+  private final MultiFormatReader reader;
+
+  public FrameReplayer() {
+    reader = new MultiFormatReader();
+    Hashtable<DecodeHintType, Object> hints = new Hashtable<DecodeHintType, Object>(3);
+    Vector<BarcodeFormat> vector = new Vector<BarcodeFormat>(8);
+    vector.addElement(BarcodeFormat.UPC_A);
+    vector.addElement(BarcodeFormat.UPC_E);
+    vector.addElement(BarcodeFormat.EAN_13);
+    vector.addElement(BarcodeFormat.EAN_8);
+    vector.addElement(BarcodeFormat.CODE_39);
+    vector.addElement(BarcodeFormat.CODE_128);
+    vector.addElement(BarcodeFormat.ITF);
+    vector.addElement(BarcodeFormat.QR_CODE);
+    hints.put(DecodeHintType.POSSIBLE_FORMATS, vector);
+    reader.setHints(hints);
+  }
+
+  public ReplayReport replay(String sequence, List<FrameDump> frames) {
+    ReplayReport report = new ReplayReport(sequence);
+    for (FrameDump frame : frames) {
+      report.add(replay(frame));
+    }
+    return report;
+  }
+
+  public ReplayReport.FrameResult replay(FrameDump frame) {
+    long start = System.nanoTime();
+    LuminanceSource source = frame.buildLuminanceSource();
+    if (!FrameQuality.estimate(source).isWorthDecoding()) {
+      return new ReplayReport.FrameResult(frame.getName(), System.nanoTime() - start, true, null);
+    }
+    BinaryBitmap bitmap = new BinaryBitmap(new GlobalHistogramBinarizer(source));
+    Result result;
+    try {
+      result = reader.decodeWithState(bitmap);
+    } catch (ReaderException re) {
+      result = null;
+    }
+    return new ReplayReport.FrameResult(frame.getName(), System.nanoTime() - start, false, result);
+  }
+
+  /**
+   * Loads the frames in a directory, in file name order.
+   */
+  public static List<FrameDump> loadSequence(File directory) throws IOException {
+    File[] files = directory.listFiles();
+    if (files == null) {
+      throw new IOException("Not a directory: " + directory);
+    }
+    Arrays.sort(files);
+    List<FrameDump> frames = new ArrayList<FrameDump>();
+    for (File file : files) {
+      String name = file.getName();
+      String lowerCase = name.toLowerCase();
+      if (lowerCase.endsWith(FrameDump.METADATA_SUFFIX)) {
+        frames.add(FrameDump.read(file));
+      } else if (lowerCase.endsWith(".jpg") || lowerCase.endsWith(".jpeg") ||
+          lowerCase.endsWith(".gif") || lowerCase.endsWith(".png")) {
+        BufferedImage image = ImageIO.read(file);
+        if (image == null) {
+          throw new IOException("Could not read " + file);
+        }
+        frames.add(FrameDump.fromImage(name, image, FrameDump.YUV420SP));
+      }
+    }
+    return frames;
+  }
+
+  public static void main(String[] args) throws IOException {
+    int warmup = 0;
+    int minSuccessRate = 0;
+    List<File> directories = new ArrayList<File>();
+    for (int i = 0; i < args.length; i++) {
+      if ("--warmup".equals(args[i]) && i + 1 < args.length) {
+        warmup = Integer.parseInt(args[++i]);
+      } else if ("--min-success-rate".equals(args[i]) && i + 1 < args.length) {
+        minSuccessRate = Integer.parseInt(args[++i]);
+      } else {
+        directories.add(new File(args[i]));
+      }
+    }
+    if (directories.isEmpty()) {
+      System.err.println("Usage: FrameReplayer [--warmup passes] [--min-success-rate percent] " +
+          "directory...");
+      System.exit(2);
+    }
+
+    List<List<FrameDump>> sequences = new ArrayList<List<FrameDump>>();
+    for (File directory : directories) {
+      sequences.add(loadSequence(directory));
+    }
+    FrameReplayer replayer = new FrameReplayer();
+    for (int pass = 0; pass < warmup; pass++) {
+      for (int i = 0; i < sequences.size(); i++) {
+        replayer.replay(directories.get(i).getPath(), sequences.get(i));
+      }
+    }
+
+    boolean passed = true;
+    for (int i = 0; i < sequences.size(); i++) {
+      ReplayReport report = replayer.replay(directories.get(i).getPath(), sequences.get(i));
+      System.out.println(report);
+      if (report.getSuccessRate() < minSuccessRate) {
+        System.out.println("  FAILED: below the minimum of " + minSuccessRate + '%');
+        passed = false;
+      }
+    }
+    System.exit(passed ? 0 : 1);
+  }
+
+}
@@ -0,0 +1,105 @@
+/*
+ * Copyright 2010 ZXing authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.zxing.replay;
+
+import com.google.zxing.LuminanceSource;
+import junit.framework.TestCase;
+
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+
+public final class FrameReplayerTestCase extends TestCase {
+
+  public void testFormatsAgree() {
+    BufferedImage image = new BufferedImage(6, 4, BufferedImage.TYPE_INT_RGB);
+    for (int y = 0; y < 4; y++) {
+      for (int x = 0; x < 6; x++) {
+        image.setRGB(x, y, (x * 40) << 16 | (y * 60) << 8 | 0x80);
+      }
+    }
+    byte[] planar =
+        FrameDump.fromImage("test", image, FrameDump.YUV420SP).buildLuminanceSource().getMatrix();
+    assertMatrixEquals(planar,
+        FrameDump.fromImage("test", image, FrameDump.YUV422SP).buildLuminanceSource());
+    assertMatrixEquals(planar,
+        FrameDump.fromImage("test", image, FrameDump.YUV422I).buildLuminanceSource());
+  }
+
+  public void testWriteAndRead() throws IOException {
+    BufferedImage image = new BufferedImage(8, 6, BufferedImage.TYPE_INT_RGB);
+    image.setRGB(3, 2, 0xffffff);
+    FrameDump frame = FrameDump.fromImage("frame", image, FrameDump.YUV422I);
+    File directory = File.createTempFile("replay", "");
+    assertTrue(directory.delete() && directory.mkdir());
+    try {
+      frame.write(directory);
+      FrameDump read = FrameDump.read(new File(directory, "frame" + FrameDump.METADATA_SUFFIX));
+      assertEquals(FrameDump.YUV422I, read.getFormat());
+      assertEquals(8, read.getWidth());
+      assertEquals(6, read.getHeight());
+      assertMatrixEquals(frame.buildLuminanceSource().getMatrix(), read.buildLuminanceSource());
+
+      LuminanceSource cropped = read.buildLuminanceSource().crop(2, 1, 4, 3);
+      assertEquals(16, cropped.getRow(0, null)[1] & 0xff, 1);
+      assertEquals(235, cropped.getRow(1, null)[1] & 0xff, 1);
+    } finally {
+      File[] files = directory.listFiles();
+      for (File file : files) {
+        file.delete();
+      }
+      directory.delete();
+    }
+  }
+
+  /**
+   * Guards the decode path the Android client uses against regressions in what it can read.
+   */
+  public void testReplayBenchmarkFrames() throws IOException {
+    assertReplay("test/data/benchmark/android-1", 6, "upca-3.jpg");
+    assertReplay("test/data/benchmark/android-2", 6, "code128-1.png");
+  }
+
+  private static void assertReplay(String path, int minSuccesses, String mustDecode)
+      throws IOException {
+    File directory = new File(path);
+    if (!directory.exists()) {
+      // try starting with 'core' since the test base is often given as the project root
+      directory = new File("core/" + path);
+    }
+    ReplayReport report = new FrameReplayer().replay(path, FrameReplayer.loadSequence(directory));
+    assertEquals(11, report.getFrames().size());
+    assertTrue(report.toString(), report.getSuccessCount() >= minSuccesses);
+    assertTrue(report.getTimeToFirstSuccess() > 0L);
+    ReplayReport.FrameResult frame = null;
+    for (ReplayReport.FrameResult candidate : report.getFrames()) {
+      if (candidate.getName().equals(mustDecode)) {
+        frame = candidate;
+      }
+    }
+    assertNotNull(frame.getResult());
+  }
+
+  private static void assertMatrixEquals(byte[] expected, LuminanceSource source) {
+    byte[] actual = source.getMatrix();
+    int area = source.getWidth() * source.getHeight();
+    for (int i = 0; i < area; i++) {
+      assertEquals("pixel " + i, expected[i], actual[i]);
+    }
+  }
+
+}
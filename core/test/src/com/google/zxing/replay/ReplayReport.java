@@ -0,0 +1,170 @@
+/*
+ * Copyright 2010 ZXing authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.zxing.replay;
+
+import com.google.zxing.Result;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * The outcome of replaying one sequence of frames: the latency and result of each frame, and
+ * from those the success rate, latency percentiles and the time to the first successful frame.
+ */
+public final class ReplayReport {
+
+  private final String sequence;
+  private final List<FrameResult> frames;
+
+  ReplayReport(String sequence) {
+    this.sequence = sequence;
+    frames = new ArrayList<FrameResult>();
+  }
+
+  void add(FrameResult frame) {
+    frames.add(frame);
+  }
+
+  public String getSequence() {
+    return sequence;
+  }
+
+  public List<FrameResult> getFrames() {
+    return frames;
+  }
+
+  public int getSuccessCount() {
+    int count = 0;
+    for (FrameResult frame : frames) {
+      if (frame.getResult() != null) {
+        count++;
+      }
+    }
+    return count;
+  }
+
+  /**
+   * @return the percentage of frames which decoded
+   */
+  public int getSuccessRate() {
+    return frames.isEmpty() ? 0 : getSuccessCount() * 100 / frames.size();
+  }
+
+  /**
+   * @return the decode time, in nanoseconds, spent on every frame up to and including the first
+   *         one which decoded, or -1 if none did
+   */
+  public long getTimeToFirstSuccess() {
+    long total = 0L;
+    for (FrameResult frame : frames) {
+      total += frame.getLatency();
+      if (frame.getResult() != null) {
+        return total;
+      }
+    }
+    return -1L;
+  }
+
+  /**
+   * @param percentile 0 to 100
+   * @return the frame latency, in nanoseconds, at that percentile
+   */
+  public long getLatencyPercentile(int percentile) {
+    if (frames.isEmpty()) {
+      return 0L;
+    }
+    long[] latencies = new long[frames.size()];
+    for (int i = 0; i < latencies.length; i++) {
+      latencies[i] = frames.get(i).getLatency();
+    }
+    Arrays.sort(latencies);
+    return latencies[Math.min(latencies.length - 1, latencies.length * percentile / 100)];
+  }
+
+  public String toString() {
+    StringBuilder result = new StringBuilder(sequence);
+    result.append(":\n");
+    for (FrameResult frame : frames) {
+      result.append("  ").append(frame).append('\n');
+    }
+    long firstSuccess = getTimeToFirstSuccess();
+    result.append("  ").append(getSuccessCount()).append('/').append(frames.size())
+        .append(" frames decoded (").append(getSuccessRate()).append("%), latency median ")
+        .append(toMillis(getLatencyPercentile(50))).append(" ms, 90th percentile ")
+        .append(toMillis(getLatencyPercentile(90))).append(" ms, max ")
+        .append(toMillis(getLatencyPercentile(100))).append(" ms, first success after ")
+        .append(firstSuccess < 0L ? "never" : toMillis(firstSuccess) + " ms");
+    return result.toString();
+  }
+
+  static String toMillis(long nanos) {
+    long hundredths = (nanos + 5000L) / 10000L;
+    long fraction = hundredths % 100L;
+    return hundredths / 100L + (fraction < 10L ? ".0" : ".") + fraction;
+  }
+
+  /**
+   * What happened to one frame.
+   */
+  public static final class FrameResult {
+    private final String name;
+    private final long latency;
+    private final boolean skipped;
+    private final Result result;
+
+    FrameResult(String name, long latency, boolean skipped, Result result) {
+      this.name = name;
+      this.latency = latency;
+      this.skipped = skipped;
+      this.result = result;
+    }
+
+    public String getName() {
+      return name;
+    }
+
+    /**
+     * @return the time from receiving the frame to giving up on it or decoding it, in
+     *         nanoseconds
+     */
+    public long getLatency() {
+      return latency;
+    }
+
+    /**
+     * @return true if the frame was judged too blurred or flat to be worth decoding
+     */
+    public boolean isSkipped() {
+      return skipped;
+    }
+
+    /**
+     * @return what was decoded, or null
+     */
+    public Result getResult() {
+      return result;
+    }
+
+    public String toString() {
+      String outcome = result != null ? result.getBarcodeFormat() + " " + result.getText() :
+          skipped ? "skipped" : "not found";
+      return name + ' ' + toMillis(latency) + " ms " + outcome;
+    }
+  }
+
+}
@@ -0,0 +1,98 @@
+/*
+ * Copyright 2010 ZXing authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.zxing.replay;
+
+import com.google.zxing.LuminanceSource;
+
+/**
+ * The desktop equivalent of the Android client's PlanarYUVLuminanceSource and
+ * InterleavedYUV422LuminanceSource, without their Bitmap rendering. Rows and the matrix are
+ * copied out of the camera buffer exactly as they are on the device, so that the cost of doing so
+ * shows up in the replayed timings.
+ */
+final class YUVLuminanceSource extends LuminanceSource {
+
+  private final byte[] yuvData;
+  private final int dataWidth;
+  private final int dataHeight;
+  private final int left;
+  private final int top;
+  // 1 where the Y plane comes first, 2 where Y alternates with U and V.
+  private final int pixelStride;
+
+  YUVLuminanceSource(byte[] yuvData, int dataWidth, int dataHeight, int left, int top, int width,
+                     int height, int pixelStride) {
+    super(width, height);
+    if (left + width > dataWidth || top + height > dataHeight) {
+      throw new IllegalArgumentException("Crop rectangle does not fit within image data.");
+    }
+    this.yuvData = yuvData;
+    this.dataWidth = dataWidth;
+    this.dataHeight = dataHeight;
+    this.left = left;
+    this.top = top;
+    this.pixelStride = pixelStride;
+  }
+
+  public byte[] getRow(int y, byte[] row) {
+    if (y < 0 || y >= getHeight()) {
+      throw new IllegalArgumentException("Requested row is outside the image: " + y);
+    }
+    int width = getWidth();
+    if (row == null || row.length < width) {
+      row = new byte[width];
+    }
+    int offset = ((y + top) * dataWidth + left) * pixelStride;
+    if (pixelStride == 1) {
+      System.arraycopy(yuvData, offset, row, 0, width);
+    } else {
+      for (int x = 0; x < width; x++) {
+        row[x] = yuvData[offset + x * pixelStride];
+      }
+    }
+    return row;
+  }
+
+  public byte[] getMatrix() {
+    int width = getWidth();
+    int height = getHeight();
+    if (pixelStride == 1 && width == dataWidth && height == dataHeight) {
+      return yuvData;
+    }
+    byte[] matrix = new byte[width * height];
+    byte[] row = null;
+    for (int y = 0; y < height; y++) {
+      if (pixelStride == 1) {
+        System.arraycopy(yuvData, (y + top) * dataWidth + left, matrix, y * width, width);
+      } else {
+        row = getRow(y, row);
+        System.arraycopy(row, 0, matrix, y * width, width);
+      }
+    }
+    return matrix;
+  }
+
+  public boolean isCropSupported() {
+    return true;
+  }
+
+  public LuminanceSource crop(int left, int top, int width, int height) {
+    return new YUVLuminanceSource(yuvData, dataWidth, dataHeight, this.left + left,
+        this.top + top, width, height, pixelStride);
+  }
+
+}